@@ -3,33 +3,37 @@ package nva.commons.apigateway;
 import static com.google.common.net.HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_SEE_OTHER;
 import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
 import com.amazonaws.services.lambda.runtime.Context;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import nva.commons.apigateway.exceptions.ApiGatewayException;
-import nva.commons.apigateway.exceptions.ApiGatewayUncheckedException;
-import nva.commons.apigateway.exceptions.GatewayResponseSerializingException;
+import nva.commons.apigateway.exceptions.PreconditionFailedException;
 import nva.commons.apigateway.exceptions.RedirectException;
 import nva.commons.apigateway.exceptions.UnsupportedAcceptHeaderException;
 import nva.commons.core.Environment;
-import nva.commons.core.JacocoGenerated;
 import org.zalando.problem.Problem;
 import org.zalando.problem.Status;
 import org.zalando.problem.ThrowableProblem;
 
+@SuppressWarnings("PMD.GodClass")
 public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
 
     public static final String ALLOWED_ORIGIN_ENV = "ALLOWED_ORIGIN";
@@ -39,10 +43,36 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
     public static final String DEFAULT_ERROR_MESSAGE = "Unknown error in handler";
     public static final String REQUEST_ID = "requestId";
     public static final Void EMPTY_BODY = null;
+    public static final String PRETTY_PRINT_QUERY_PARAMETER = "pretty";
+    public static final String RESPONSE_COMPRESSION_THRESHOLD_ENV = "RESPONSE_COMPRESSION_THRESHOLD";
+    public static final String HEADER_VALUE_SEPARATOR = ", ";
+    public static final String RESPONSE_ETAG_FROM_BODY_ENV = "RESPONSE_ETAG_FROM_BODY";
+    public static final String GET_METHOD = "GET";
+    public static final String RESPONSE_OFFLOAD_THRESHOLD_ENV = "RESPONSE_OFFLOAD_THRESHOLD";
+    public static final int DEFAULT_RESPONSE_OFFLOAD_THRESHOLD = 4 * 1024 * 1024;
+    public static final String RESPONSE_CACHE_MAX_BYTES_ENV = "RESPONSE_CACHE_MAX_BYTES";
+    public static final Set<String> CACHEABLE_METHODS = Set.of(GET_METHOD, "HEAD");
+    public static final String PRECONDITION_FAILED_MESSAGE = "The resource matches the If-None-Match header";
+    public static final String UNSCOPED = "";
+    public static final String FIELDS_QUERY_PARAMETER = "fields";
+    private static final int MAX_CACHED_FIELDS_FILTERS = 256;
+    private static final String NO_BODY = "";
+    private static final int HANDLER_TYPE_PARAMETERS = 2;
+    private static final int OUTPUT_TYPE_PARAMETER = 1;
 
     private final ObjectMapper objectMapper;
+    private final GatewayResponseWriter responseWriter;
+    private final Map<String, Optional<FieldsFilter>> fieldsFilters = new ConcurrentHashMap<>();
 
     private Supplier<Map<String, String>> additionalSuccessHeadersSupplier;
+    private Optional<Integer> compressionThreshold = Optional.empty();
+    private boolean etagFromBodyEnabled;
+    private Optional<String> responseETag = Optional.empty();
+    private Optional<ResponseOffloader> responseOffloader = Optional.empty();
+    private int offloadThreshold = DEFAULT_RESPONSE_OFFLOAD_THRESHOLD;
+    private Optional<ResponseCache> responseCache = Optional.empty();
+    private Optional<String> responseCacheKey = Optional.empty();
+    private Duration responseCacheTimeToLive = Duration.ZERO;
 
     public ApiGatewayHandler(Class<I> iclass) {
         this(iclass, new Environment());
@@ -56,18 +86,58 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
     public ApiGatewayHandler(Class<I> iclass, Environment environment, ObjectMapper objectMapper) {
         super(iclass, environment);
         this.objectMapper = objectMapper;
+        this.responseWriter = findOutputType(objectMapper)
+                                  .map(new GatewayResponseWriter(objectMapper)::withBodyType)
+                                  .orElseGet(() -> new GatewayResponseWriter(objectMapper));
         this.additionalSuccessHeadersSupplier = Collections::emptyMap;
     }
 
     @Override
     public void init(OutputStream outputStream, Context context) {
         this.allowedOrigin = environment.readEnv(ALLOWED_ORIGIN_ENV);
+        this.compressionThreshold = environment.readEnvOpt(RESPONSE_COMPRESSION_THRESHOLD_ENV).map(Integer::parseInt);
+        this.etagFromBodyEnabled = environment.readEnvOpt(RESPONSE_ETAG_FROM_BODY_ENV)
+                                       .map(Boolean::parseBoolean)
+                                       .orElse(false);
+        this.responseETag = Optional.empty();
+        this.offloadThreshold = environment.readEnvOpt(RESPONSE_OFFLOAD_THRESHOLD_ENV)
+                                    .map(Integer::parseInt)
+                                    .orElse(DEFAULT_RESPONSE_OFFLOAD_THRESHOLD);
+        if (responseCache.isEmpty()) {
+            this.responseCache = environment.readEnvOpt(RESPONSE_CACHE_MAX_BYTES_ENV)
+                                     .map(maxBytes -> new ResponseCache(Long.parseLong(maxBytes), Clock.systemUTC()));
+        }
+        this.responseCacheKey = Optional.empty();
         super.init(outputStream, context);
     }
 
     /**
      * This is the message for the success case. Sends a JSON string containing the response that APIGateway will send
-     * to the user.
+     * to the user. The output is serialized directly into the response, without intermediate copies, and without
+     * indentation unless the query parameter {@value PRETTY_PRINT_QUERY_PARAMETER} is set to {@code true}.
+     *
+     * <p>When the environment variable {@value RESPONSE_COMPRESSION_THRESHOLD_ENV} is set, outputs of at least that
+     * many bytes are compressed with the preferred encoding in the Accept-Encoding header of the request. API Gateway
+     * must then be configured to treat all media types as binary, so that it decodes the base64 encoded body.
+     *
+     * <p>The response carries an ETag when the handler supplies one, through {@link ApiGatewayHandler#getETag} or
+     * {@link ApiGatewayHandler#setETag}. When the environment variable {@value RESPONSE_ETAG_FROM_BODY_ENV} is
+     * {@code true}, responses to GET requests without such an ETag get one from the hash of the body. A request with
+     * a matching If-None-Match header is answered with "304 Not Modified" and no body.
+     *
+     * <p>When a {@link ResponseOffloader} is set with {@link ApiGatewayHandler#setResponseOffloader}, outputs of at
+     * least {@value RESPONSE_OFFLOAD_THRESHOLD_ENV} bytes (default {@value DEFAULT_RESPONSE_OFFLOAD_THRESHOLD}) are
+     * offloaded, and the client is redirected with "303 See Other" to the URL for downloading them.
+     *
+     * <p>When the query parameter {@value FIELDS_QUERY_PARAMETER} is set, only the properties in that sparse fieldset
+     * are written, see {@link FieldsFilter}.
+     *
+     * <p>When the object mapper of the negotiated media type in {@link ApiGatewayHandler#getObjectMappers()} writes a
+     * binary format, such as CBOR, the output is serialized with that object mapper and returned base64 encoded.
+     * Such responses are not filtered, compressed, offloaded or cached.
+     *
+     * <p>Successful responses to requests that are cached, see {@link ApiGatewayHandler#getResponseCacheTimeToLive},
+     * are stored in the response cache before they are compressed or offloaded.
      *
      * @param input  the input object of class I
      * @param output the output object of class O
@@ -76,16 +146,137 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
     @Override
     protected void writeOutput(I input, O output, RequestInfo requestInfo)
         throws IOException, UnsupportedAcceptHeaderException {
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
-            var headers = getSuccessHeaders(requestInfo);
-            var statusCode = getSuccessStatusCode(input, output);
-            var serializedOutput = getSerializedOutput(output);
-            var gatewayResponse = new GatewayResponse<String>(serializedOutput, headers, statusCode);
-            var responseJson = objectMapper.writeValueAsString(gatewayResponse);
-            writer.write(responseJson);
+        var headers = new HashMap<>(getSuccessHeaders(requestInfo));
+        var statusCode = getSuccessStatusCode(input, output);
+        var responseMapper = getObjectMapper(requestInfo);
+        if (RestConfig.isBinaryFormat(responseMapper)) {
+            responseETag.ifPresent(etag -> headers.put(HttpHeaders.ETAG, etag));
+            responseWriter.writeBinary(outputStream, responseMapper.writeValueAsBytes(output), headers, statusCode);
+        } else if (prettyPrintIsRequested(requestInfo)) {
+            responseETag.ifPresent(etag -> headers.put(HttpHeaders.ETAG, etag));
+            bodyWriter(requestInfo).writePrettyPrinted(outputStream, output, headers, statusCode);
+        } else if (compressionThreshold.isPresent() || responseOffloader.isPresent()
+                   || etagIsComputedFromBody(requestInfo) || responseCacheKey.isPresent()) {
+            writeSerializedOutput(output, headers, statusCode, requestInfo);
+        } else if (responseETag.filter(etag -> clientHasCurrentVersion(requestInfo, etag)).isPresent()) {
+            writeNotModified(headers, responseETag.get());
+        } else {
+            responseETag.ifPresent(etag -> headers.put(HttpHeaders.ETAG, etag));
+            bodyWriter(requestInfo).write(outputStream, output, headers, statusCode);
         }
     }
 
+    /**
+     * Answers the request with "304 Not Modified" without processing the input, when the handler supplies an ETag
+     * through {@link ApiGatewayHandler#getETag} and the If-None-Match header of the request matches it. For methods
+     * other than GET and HEAD, such as a PUT that should only create a resource that does not exist, the request fails
+     * with "412 Precondition Failed" instead, as RFC 7232 requires. Otherwise,
+     * answers the request from the response cache, when the request is cached and the cache has a response for it.
+     *
+     * @param input       the input object of class I.
+     * @param requestInfo Request headers and path.
+     * @return true if the response has been written.
+     * @throws IOException                      when writing the response fails.
+     * @throws ApiGatewayException              when the ETag or the scope of the response cannot be determined.
+     */
+    @Override
+    protected boolean respondWithoutProcessing(I input, RequestInfo requestInfo)
+        throws IOException, ApiGatewayException {
+        responseETag = getETag(input, requestInfo).map(ETags::fromVersion);
+        if (responseETag.filter(etag -> ifNoneMatchMatches(requestInfo, etag)).isPresent()) {
+            if (isUnsafeMethod(requestInfo)) {
+                throw new PreconditionFailedException(PRECONDITION_FAILED_MESSAGE);
+            }
+            writeNotModified(new HashMap<>(getSuccessHeaders(requestInfo)), responseETag.get());
+            return true;
+        }
+        responseCacheKey = findResponseCacheKey(input, requestInfo);
+        var cachedResponse = responseCacheKey.flatMap(key -> responseCache.orElseThrow().get(key));
+        if (cachedResponse.isPresent()) {
+            writeCachedResponse(cachedResponse.get(), requestInfo);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the cache for responses to safe requests. Overrides the cache created when the environment variable
+     * {@value RESPONSE_CACHE_MAX_BYTES_ENV} is set. The cache can be shared by several handlers.
+     *
+     * @param responseCache the response cache.
+     */
+    protected void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = Optional.of(responseCache);
+    }
+
+    /**
+     * Returns the response cache, e.g. for reporting its hit and miss counts.
+     *
+     * @return the response cache, or empty if responses are not cached.
+     */
+    protected Optional<ResponseCache> getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Override this method to cache the responses to GET and HEAD requests, when the handler has a response cache.
+     * Cached responses are returned without calling {@link ApiGatewayHandler#processInput} until they expire, so
+     * only responses that may be stale for that long should be cached.
+     *
+     * @param requestInfo Request headers and path.
+     * @return how long the response to the request may be cached, or empty if it may not be cached.
+     */
+    protected Optional<Duration> getResponseCacheTimeToLive(RequestInfo requestInfo) {
+        return Optional.empty();
+    }
+
+    /**
+     * Override this method when cached responses depend on the caller, e.g. return the customer or the access rights
+     * of the caller that the response depends on. Responses are only returned to requests with the same scope.
+     *
+     * @param input       the input object of class I.
+     * @param requestInfo Request headers and path.
+     * @return the authorization scope of the response.
+     * @throws ApiGatewayException when the scope cannot be determined, e.g. because the caller is unauthorized.
+     */
+    protected String getResponseCacheScope(I input, RequestInfo requestInfo) throws ApiGatewayException {
+        return UNSCOPED;
+    }
+
+    /**
+     * Sets where outputs that are too large to be returned through API Gateway are stored, e.g.
+     * {@code new S3ResponseOffloader(bucketName)::offload} from the s3 module.
+     *
+     * @param responseOffloader the store for large outputs.
+     */
+    protected void setResponseOffloader(ResponseOffloader responseOffloader) {
+        this.responseOffloader = Optional.of(responseOffloader);
+    }
+
+    /**
+     * Override this method to supply the version of the requested resource before the input is processed, e.g. a
+     * revision number or a modification timestamp that can be read cheaply. Requests from clients that already have
+     * this version are answered with "304 Not Modified" without calling {@link ApiGatewayHandler#processInput}.
+     *
+     * @param input       the input object of class I.
+     * @param requestInfo Request headers and path.
+     * @return the version of the resource, or empty if the version is unknown before processing.
+     * @throws ApiGatewayException when the version cannot be determined.
+     */
+    protected Optional<String> getETag(I input, RequestInfo requestInfo) throws ApiGatewayException {
+        return Optional.empty();
+    }
+
+    /**
+     * Sets the version of the response from {@link ApiGatewayHandler#processInput}, when the version is only known
+     * after processing. It replaces any version supplied by {@link ApiGatewayHandler#getETag}.
+     *
+     * @param version the version of the response.
+     */
+    protected void setETag(String version) {
+        this.responseETag = Optional.of(ETags.fromVersion(version));
+    }
+
     /**
      * Sends a message to ApiGateway and to the API-client, in case of failure caused by an ApiGatewayException
      * (predicted exception). This method can be overriden for richer status codes, but in the general case it should
@@ -97,14 +288,10 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
      */
     @Override
     protected void writeExpectedFailure(I input, ApiGatewayException exception, String requestId) throws IOException {
-        try {
-            if (failureIsARedirection(exception)) {
-                sendRedirectResponse((RedirectException) exception);
-            } else {
-                sendErrorResponse(input, exception, requestId);
-            }
-        } catch (GatewayResponseSerializingException e) {
-            throw new ApiGatewayUncheckedException(e);
+        if (failureIsARedirection(exception)) {
+            sendRedirectResponse((RedirectException) exception);
+        } else {
+            sendErrorResponse(input, exception, requestId);
         }
     }
 
@@ -120,15 +307,9 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
     @Override
     protected void writeUnexpectedFailure(I input, Exception exception, String requestId)
         throws IOException {
-        try {
-            RuntimeException runtimeException =
-                new RuntimeException(MESSAGE_FOR_RUNTIME_EXCEPTIONS_HIDING_IMPLEMENTATION_DETAILS_TO_API_CLIENTS);
-            var response =
-                createResponseReportingProblemToClient(runtimeException, HTTP_INTERNAL_ERROR, requestId);
-            writeGatewayResponse(response);
-        } catch (GatewayResponseSerializingException e) {
-            throw new ApiGatewayUncheckedException(e);
-        }
+        RuntimeException runtimeException =
+            new RuntimeException(MESSAGE_FOR_RUNTIME_EXCEPTIONS_HIDING_IMPLEMENTATION_DETAILS_TO_API_CLIENTS);
+        sendResponseReportingProblemToClient(runtimeException, HTTP_INTERNAL_ERROR, requestId);
     }
 
     /**
@@ -144,16 +325,6 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
         return getObjectMappers().getOrDefault(mediaType, objectMapper);
     }
 
-    /**
-     * Override this method to set different object mappers for different Accept media types.
-     *
-     * @return map of object mappers by media type
-     */
-    @JacocoGenerated
-    protected Map<MediaType, ObjectMapper> getObjectMappers() {
-        return Collections.emptyMap();
-    }
-
     /**
      * Add a function that adds headers to the response.
      *
@@ -179,27 +350,157 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
         return headers;
     }
 
-    private String getSerializedOutput(O output) throws JsonProcessingException {
-        return output instanceof String ? (String) output : objectMapper.writeValueAsString(output);
+    private void sendErrorResponse(I input, ApiGatewayException exception, String requestId) throws IOException {
+        var statusCode = getFailureStatusCode(input, exception);
+        sendResponseReportingProblemToClient(exception, statusCode, requestId);
     }
 
-    private void sendErrorResponse(I input, ApiGatewayException exception, String requestId)
-        throws GatewayResponseSerializingException, IOException {
-        var statusCode = getFailureStatusCode(input, exception);
-        var response = createResponseReportingProblemToClient(exception, statusCode, requestId);
-        writeGatewayResponse(response);
+    private void sendRedirectResponse(RedirectException exception) throws IOException {
+        var responseHeaders = Map.of(HttpHeaders.LOCATION, exception.getLocation().toString());
+        responseWriter.write(outputStream, EMPTY_BODY, responseHeaders, exception.getStatusCode());
     }
 
-    private void sendRedirectResponse(RedirectException exception)
-        throws GatewayResponseSerializingException, IOException {
-        GatewayResponse<Void> response = createRedirectResponse(exception);
-        writeGatewayResponse(response);
+    private GatewayResponseWriter bodyWriter(RequestInfo requestInfo) {
+        return requestInfo.getQueryParameterOpt(FIELDS_QUERY_PARAMETER)
+                   .flatMap(this::fieldsFilter)
+                   .map(responseWriter::withBodyFilter)
+                   .orElse(responseWriter);
     }
 
-    private GatewayResponse<Void> createRedirectResponse(RedirectException exception)
-        throws GatewayResponseSerializingException {
-        var responseHeaders = Map.of(HttpHeaders.LOCATION, exception.getLocation().toString());
-        return new GatewayResponse<>(EMPTY_BODY, responseHeaders, exception.getStatusCode(), objectMapper);
+    private Optional<FieldsFilter> fieldsFilter(String fields) {
+        var filter = fieldsFilters.get(fields);
+        if (filter == null) {
+            filter = FieldsFilter.parse(fields);
+            if (fieldsFilters.size() < MAX_CACHED_FIELDS_FILTERS) {
+                fieldsFilters.put(fields, filter);
+            }
+        }
+        return filter;
+    }
+
+    private Optional<String> findResponseCacheKey(I input, RequestInfo requestInfo) throws ApiGatewayException {
+        if (responseCache.isEmpty() || !isCacheableMethod(requestInfo) || prettyPrintIsRequested(requestInfo)) {
+            return Optional.empty();
+        }
+        var timeToLive = getResponseCacheTimeToLive(requestInfo);
+        if (timeToLive.isEmpty()) {
+            return Optional.empty();
+        }
+        if (RestConfig.isBinaryFormat(getObjectMapper(requestInfo))) {
+            return Optional.empty();
+        }
+        responseCacheTimeToLive = timeToLive.get();
+        var mediaType = getDefaultResponseContentTypeHeaderValue(requestInfo).toString();
+        return Optional.of(ResponseCache.createKey(requestInfo.getPath(), requestInfo.getQueryParameters(), mediaType,
+                                                   getResponseCacheScope(input, requestInfo)));
+    }
+
+    private static boolean isCacheableMethod(RequestInfo requestInfo) {
+        return Optional.ofNullable(requestInfo.getHttpMethod())
+                   .map(method -> CACHEABLE_METHODS.contains(method.toUpperCase(Locale.ROOT)))
+                   .orElse(false);
+    }
+
+    private void writeCachedResponse(ResponseCache.Entry cachedResponse, RequestInfo requestInfo) throws IOException {
+        var headers = new HashMap<>(cachedResponse.getHeaders());
+        var etag = Optional.ofNullable(headers.remove(HttpHeaders.ETAG));
+        invocationMetrics.setStatusCode(cachedResponse.getStatusCode());
+        writeSerializedBody(cachedResponse.getSerializedBody(), etag, headers, cachedResponse.getStatusCode(),
+                            requestInfo);
+    }
+
+    // Compression, offloading, caching and ETags from the body hash all need the complete serialized body.
+    private void writeSerializedOutput(O output, Map<String, String> headers, int statusCode,
+                                       RequestInfo requestInfo) throws IOException {
+        var serializedBody = bodyWriter(requestInfo).serialize(output);
+        var etag = responseETag.or(() -> etagFromBody(serializedBody, requestInfo));
+        if (responseCacheKey.isPresent() && statusCode == HTTP_OK) {
+            var cachedHeaders = new HashMap<>(headers);
+            etag.ifPresent(value -> cachedHeaders.put(HttpHeaders.ETAG, value));
+            responseCache.orElseThrow()
+                .put(responseCacheKey.get(), serializedBody, cachedHeaders, statusCode, responseCacheTimeToLive);
+        }
+        writeSerializedBody(serializedBody, etag, headers, statusCode, requestInfo);
+    }
+
+    private void writeSerializedBody(byte[] serializedBody, Optional<String> etag, Map<String, String> headers,
+                                     int statusCode, RequestInfo requestInfo) throws IOException {
+        if (etag.filter(value -> clientHasCurrentVersion(requestInfo, value)).isPresent()) {
+            writeNotModified(headers, etag.get());
+            return;
+        }
+        if (responseOffloader.isPresent() && serializedBody.length >= offloadThreshold) {
+            writeOffloadedOutput(serializedBody, headers);
+            return;
+        }
+        if (compressionThreshold.isPresent()) {
+            headers.merge(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING,
+                          (vary, acceptEncoding) -> vary + HEADER_VALUE_SEPARATOR + acceptEncoding);
+        }
+        var contentEncoding = compressionThreshold
+                                  .filter(threshold -> serializedBody.length >= threshold)
+                                  .flatMap(threshold -> findHeaderIgnoringCase(requestInfo,
+                                                                               HttpHeaders.ACCEPT_ENCODING))
+                                  .flatMap(ContentEncoding::negotiate);
+        if (contentEncoding.isPresent()) {
+            etag.ifPresent(value -> headers.put(HttpHeaders.ETAG, ETags.weak(value)));
+            responseWriter.writeCompressed(outputStream, serializedBody, headers, statusCode, contentEncoding.get());
+        } else {
+            etag.ifPresent(value -> headers.put(HttpHeaders.ETAG, value));
+            responseWriter.writeSerialized(outputStream, serializedBody, headers, statusCode);
+        }
+    }
+
+    private void writeOffloadedOutput(byte[] serializedBody, Map<String, String> headers) throws IOException {
+        var location = responseOffloader.orElseThrow().offload(serializedBody, headers.remove(CONTENT_TYPE));
+        headers.put(HttpHeaders.LOCATION, location.toString());
+        invocationMetrics.setStatusCode(HTTP_SEE_OTHER);
+        responseWriter.write(outputStream, EMPTY_BODY, headers, HTTP_SEE_OTHER);
+    }
+
+    private Optional<String> etagFromBody(byte[] serializedBody, RequestInfo requestInfo) {
+        return etagIsComputedFromBody(requestInfo) ? Optional.of(ETags.fromBody(serializedBody)) : Optional.empty();
+    }
+
+    private boolean etagIsComputedFromBody(RequestInfo requestInfo) {
+        return etagFromBodyEnabled && GET_METHOD.equalsIgnoreCase(requestInfo.getHttpMethod());
+    }
+
+    // Only safe requests are answered with "304 Not Modified"; unsafe requests have been processed at this point.
+    private static boolean clientHasCurrentVersion(RequestInfo requestInfo, String etag) {
+        return !isUnsafeMethod(requestInfo) && ifNoneMatchMatches(requestInfo, etag);
+    }
+
+    private static boolean isUnsafeMethod(RequestInfo requestInfo) {
+        return Optional.ofNullable(requestInfo.getHttpMethod())
+                   .map(method -> !CACHEABLE_METHODS.contains(method.toUpperCase(Locale.ROOT)))
+                   .orElse(false);
+    }
+
+    private static boolean ifNoneMatchMatches(RequestInfo requestInfo, String etag) {
+        return findHeaderIgnoringCase(requestInfo, HttpHeaders.IF_NONE_MATCH)
+                   .map(ifNoneMatch -> ETags.matches(ifNoneMatch, etag))
+                   .orElse(false);
+    }
+
+    private void writeNotModified(Map<String, String> headers, String etag) throws IOException {
+        headers.remove(CONTENT_TYPE);
+        headers.put(HttpHeaders.ETAG, etag);
+        invocationMetrics.setStatusCode(HTTP_NOT_MODIFIED);
+        responseWriter.write(outputStream, NO_BODY, headers, HTTP_NOT_MODIFIED);
+    }
+
+    // The output type is only known when the handler class declares it, not e.g. for handlers generic in it.
+    private Optional<JavaType> findOutputType(ObjectMapper objectMapper) {
+        var typeParameters = objectMapper.getTypeFactory().constructType(getClass())
+                                 .findTypeParameters(ApiGatewayHandler.class);
+        return typeParameters.length == HANDLER_TYPE_PARAMETERS
+                   ? Optional.of(typeParameters[OUTPUT_TYPE_PARAMETER]).filter(type -> !type.isJavaLangObject())
+                   : Optional.empty();
+    }
+
+    private static boolean prettyPrintIsRequested(RequestInfo requestInfo) {
+        return requestInfo.getQueryParameterOpt(PRETTY_PRINT_QUERY_PARAMETER).map(Boolean::parseBoolean).orElse(false);
     }
 
     private boolean failureIsARedirection(ApiGatewayException exception) {
@@ -214,24 +515,13 @@ public abstract class ApiGatewayHandler<I, O> extends RestRequestHandler<I, O> {
      * @param exception  the thrown Exception.
      * @param statusCode the statusCode that should be returned to the API-client.
      * @param requestId  the id of the request that caused the exception.
-     * @return a GatewayResponse with a Problem.
-     * @throws GatewayResponseSerializingException when the writer throws an GatewayResponseSerializingException.
+     * @throws IOException when serializing fails.
      */
 
-    private GatewayResponse<ThrowableProblem> createResponseReportingProblemToClient(Exception exception,
-                                                                                     Integer statusCode,
-                                                                                     String requestId)
-        throws GatewayResponseSerializingException {
-        ThrowableProblem problem = createProblemDescription(exception, statusCode, requestId);
-        return new GatewayResponse<>(problem, getFailureHeaders(), statusCode, objectMapper);
-    }
-
-    private <T> void writeGatewayResponse(GatewayResponse<T> gatewayResponse)
+    private void sendResponseReportingProblemToClient(Exception exception, Integer statusCode, String requestId)
         throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
-            String gateWayResponseJson = objectMapper.writeValueAsString(gatewayResponse);
-            writer.write(gateWayResponseJson);
-        }
+        ThrowableProblem problem = createProblemDescription(exception, statusCode, requestId);
+        responseWriter.write(outputStream, problem, getFailureHeaders(), statusCode);
     }
 
     private ThrowableProblem createProblemDescription(Exception exception, Integer statusCode, String requestId) {
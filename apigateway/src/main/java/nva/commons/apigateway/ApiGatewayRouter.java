@@ -0,0 +1,161 @@
+package nva.commons.apigateway;
+
+import static com.google.common.net.HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.CountingInputStream;
+import com.google.common.net.HttpHeaders;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.problem.Problem;
+import org.zalando.problem.Status;
+
+/**
+ * Hosts the handlers of many routes behind one Lambda function, so that rarely called routes share the cold starts
+ * and the provisioned concurrency of the function. Subclasses register their routes in their constructor, with
+ * {@link ApiGatewayRouter#addRoute}.
+ *
+ * <p>The routes are compiled into a trie over the segments of their path templates when they are registered, so a
+ * request is dispatched without comparing its path to every template. The request is read once, and the handler of
+ * the route receives it with the values of the path parameters of the template added to its "pathParameters".
+ *
+ * <p>All handlers use the same object mappers unless they are constructed with their own. Clients, such as
+ * database or HTTP clients, should be created once in the constructor of the router and passed to the handlers
+ * that need them.
+ */
+public class ApiGatewayRouter implements RequestStreamHandler {
+
+    public static final String ROUTE_NOT_FOUND_MESSAGE = "No route for path: ";
+    public static final String METHOD_NOT_ALLOWED_MESSAGE = "Method is not allowed for path: ";
+    public static final String INVALID_REQUEST_MESSAGE = "Request is not a JSON object";
+    public static final String ALLOWED_METHODS_SEPARATOR = ", ";
+    private static final Logger logger = LoggerFactory.getLogger(ApiGatewayRouter.class);
+    private final Environment environment;
+    private final GatewayResponseWriter responseWriter;
+    private final RouteTrie<RestRequestHandler<?, ?>> routes;
+    private final Set<RestRequestHandler<?, ?>> handlers;
+
+    @JacocoGenerated
+    public ApiGatewayRouter() {
+        this(new Environment());
+    }
+
+    public ApiGatewayRouter(Environment environment) {
+        this.environment = environment;
+        this.responseWriter = new GatewayResponseWriter(defaultRestObjectMapper);
+        this.routes = new RouteTrie<>();
+        this.handlers = new LinkedHashSet<>();
+    }
+
+    @Override
+    public void handleRequest(InputStream inputStream, OutputStream outputStream, Context context) throws IOException {
+        var input = new CountingInputStream(inputStream);
+        var readStart = System.nanoTime();
+        var request = readRequest(input, outputStream, context);
+        if (request.isPresent()) {
+            route(request.get(), System.nanoTime() - readStart, input.getCount(), outputStream, context);
+        }
+    }
+
+    /**
+     * Primes the handlers of all routes. See {@link RestRequestHandler#prime()}.
+     *
+     * @throws IOException         when priming a handler fails.
+     * @throws ApiGatewayException when priming a handler fails.
+     */
+    public void prime() throws IOException, ApiGatewayException {
+        for (var handler : handlers) {
+            handler.prime();
+        }
+    }
+
+    /**
+     * Registers the handler of a route.
+     *
+     * @param httpMethod   the HTTP method of the route.
+     * @param pathTemplate the path template of the route, e.g. {@code /publication/{identifier}}. A last path
+     *                     parameter ending with "+", e.g. {@code {proxy+}}, matches the rest of the path.
+     * @param handler      the handler of the route.
+     * @throws IllegalArgumentException when the route is already registered.
+     */
+    protected final void addRoute(String httpMethod, String pathTemplate, RestRequestHandler<?, ?> handler) {
+        routes.add(httpMethod, pathTemplate, handler);
+        handlers.add(handler);
+    }
+
+    private void route(ObjectNode request, long readNanos, long inputBytes, OutputStream outputStream,
+                       Context context) throws IOException {
+        var path = request.path(RequestInfoConstants.PATH_FIELD).asText();
+        var match = routes.find(path);
+        if (match.isEmpty()) {
+            writeProblem(outputStream, Status.NOT_FOUND, ROUTE_NOT_FOUND_MESSAGE + path, context, Map.of());
+            return;
+        }
+        var httpMethod = request.path(RequestInfoConstants.HTTP_METHOD_FIELD).asText();
+        var handler = match.get().getRoute(httpMethod);
+        if (handler.isEmpty()) {
+            var allowedMethods = String.join(ALLOWED_METHODS_SEPARATOR, match.get().getHttpMethods());
+            writeProblem(outputStream, Status.METHOD_NOT_ALLOWED, METHOD_NOT_ALLOWED_MESSAGE + path, context,
+                         Map.of(HttpHeaders.ALLOW, allowedMethods));
+            return;
+        }
+        addPathParameters(request, match.get().getPathParameters());
+        handler.get().handleRoutedRequest(request, readNanos, inputBytes, outputStream, context);
+    }
+
+    // Malformed requests are answered with "400 Bad Request", like RestRequestHandler answers them.
+    private Optional<ObjectNode> readRequest(InputStream inputStream, OutputStream outputStream, Context context)
+        throws IOException {
+        JsonNode request;
+        try {
+            request = defaultRestObjectMapper.readTree(inputStream);
+        } catch (JsonProcessingException e) {
+            writeProblem(outputStream, Status.BAD_REQUEST, e.getOriginalMessage(), context, Map.of());
+            return Optional.empty();
+        }
+        if (request == null || !request.isObject()) {
+            writeProblem(outputStream, Status.BAD_REQUEST, INVALID_REQUEST_MESSAGE, context, Map.of());
+            return Optional.empty();
+        }
+        return Optional.of((ObjectNode) request);
+    }
+
+    private static void addPathParameters(ObjectNode request, Map<String, String> pathParameters) {
+        var existingParameters = request.get(RequestInfoConstants.PATH_PARAMETERS_FIELD);
+        var parameters = existingParameters instanceof ObjectNode
+                             ? (ObjectNode) existingParameters
+                             : request.putObject(RequestInfoConstants.PATH_PARAMETERS_FIELD);
+        pathParameters.forEach(parameters::put);
+    }
+
+    private void writeProblem(OutputStream outputStream, Status status, String detail, Context context,
+                              Map<String, String> additionalHeaders) throws IOException {
+        logger.warn(detail);
+        var problem = Problem.builder()
+                          .withStatus(status)
+                          .withTitle(status.getReasonPhrase())
+                          .withDetail(detail)
+                          .with(ApiGatewayHandler.REQUEST_ID, context.getAwsRequestId())
+                          .build();
+        var headers = new HashMap<>(additionalHeaders);
+        headers.put(ACCESS_CONTROL_ALLOW_ORIGIN, environment.readEnv(ApiGatewayHandler.ALLOWED_ORIGIN_ENV));
+        headers.put(CONTENT_TYPE, MediaTypes.APPLICATION_PROBLEM_JSON.toString());
+        responseWriter.write(outputStream, problem, headers, status.getStatusCode());
+    }
+}
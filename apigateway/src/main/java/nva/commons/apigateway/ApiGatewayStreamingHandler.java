@@ -0,0 +1,234 @@
+package nva.commons.apigateway;
+
+import static com.google.common.net.HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.net.MediaType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.apigateway.exceptions.UnsupportedAcceptHeaderException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.problem.Problem;
+import org.zalando.problem.Status;
+
+/**
+ * Template class for handlers of Lambda functions that stream their responses, e.g. through a function URL with the
+ * invoke mode RESPONSE_STREAM. The output of {@link RestRequestHandler#processInput} is a {@link Stream} of items,
+ * and the items are serialized one at a time as they are consumed from the stream, so the handler starts sending the
+ * response before all items are available, and the response can exceed the 6 MB limit of buffered responses without
+ * holding the whole response in memory. Function URLs send events in the payload format version 2.0, whose path,
+ * HTTP method and cookies are read into the {@link RequestInfo} like those of REST API events, see
+ * {@link ApiMessageParser#parseRequest}.
+ *
+ * <p>The response is written in the HTTP integration format of Lambda response streaming: a JSON prelude with the
+ * status code and the headers, eight NUL bytes, and then the body. The body is a JSON array, or newline delimited
+ * JSON when the client accepts {@link MediaTypes#APPLICATION_NDJSON}. The function must run in a runtime that
+ * supports response streaming, such as a custom runtime or the Lambda Web Adapter.
+ *
+ * <p>Failures before the first item is written are answered with a Problem, like in {@link ApiGatewayHandler}. Since
+ * the status code has already been sent when a failure happens while the items are written, the response is then
+ * ended so that clients do not mistake it for a complete response. A JSON array is left unterminated. Newline
+ * delimited JSON would look complete after any line, so it is ended with an error record: a line with a JSON object
+ * with the Problem in the field {@value ERROR_RECORD_FIELD}. The status code that was sent is the one recorded in the
+ * metrics of the invocation.
+ *
+ * @param <I> Class of the object in the body field of the ApiGateway message.
+ * @param <T> Class of the items of the response.
+ */
+public abstract class ApiGatewayStreamingHandler<I, T> extends RestRequestHandler<I, Stream<T>> {
+
+    public static final int PRELUDE_DELIMITER_LENGTH = 8;
+    public static final int FLUSH_INTERVAL = 100;
+    public static final String STATUS_CODE_FIELD = "statusCode";
+    public static final String HEADERS_FIELD = "headers";
+    public static final String RESPONSE_ALREADY_STARTED_MESSAGE = "Response already started, ending it incomplete: ";
+    public static final String ERROR_RECORD_FIELD = "error";
+    private static final byte[] PRELUDE_DELIMITER = new byte[PRELUDE_DELIMITER_LENGTH];
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES = List.of(JSON_UTF_8, MediaTypes.APPLICATION_NDJSON);
+    private static final String NDJSON_LINE_SEPARATOR = "\n";
+    private static final byte[] NDJSON_LINE_SEPARATOR_BYTES = NDJSON_LINE_SEPARATOR.getBytes(StandardCharsets.UTF_8);
+    private static final String NO_ROOT_VALUE_SEPARATOR = "";
+    private static final Logger logger = LoggerFactory.getLogger(ApiGatewayStreamingHandler.class);
+    private final ObjectWriter preludeWriter;
+    private final ObjectWriter itemWriter;
+    private boolean preludeWritten;
+    private int sentStatusCode;
+    private boolean newlineDelimited;
+    private boolean itemLineOpen;
+
+    @JacocoGenerated
+    protected ApiGatewayStreamingHandler(Class<I> iclass) {
+        this(iclass, new Environment());
+    }
+
+    protected ApiGatewayStreamingHandler(Class<I> iclass, Environment environment) {
+        this(iclass, environment, defaultRestObjectMapper);
+    }
+
+    protected ApiGatewayStreamingHandler(Class<I> iclass, Environment environment, ObjectMapper objectMapper) {
+        super(iclass, environment);
+        this.preludeWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        // Items are flushed in batches by the handler, instead of after each item.
+        this.itemWriter = preludeWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                              .withRootValueSeparator(NO_ROOT_VALUE_SEPARATOR);
+    }
+
+    @Override
+    public void init(OutputStream outputStream, Context context) {
+        this.allowedOrigin = environment.readEnv(ApiGatewayHandler.ALLOWED_ORIGIN_ENV);
+        this.preludeWritten = false;
+        this.newlineDelimited = false;
+        this.itemLineOpen = false;
+        super.init(outputStream, context);
+    }
+
+    /**
+     * Writes the prelude of the response, and then the items of the output as they are consumed from the stream. The
+     * first item is flushed immediately, and the following items every {@value FLUSH_INTERVAL} items. The stream is
+     * closed when all items have been written.
+     *
+     * @param input       the input object of class I.
+     * @param output      the items of the response.
+     * @param requestInfo Request headers and path.
+     * @throws IOException                      when serializing or writing fails.
+     * @throws UnsupportedAcceptHeaderException when the client accepts neither JSON nor newline delimited JSON.
+     */
+    @Override
+    protected void writeOutput(I input, Stream<T> output, RequestInfo requestInfo)
+        throws IOException, UnsupportedAcceptHeaderException {
+        var mediaType = getDefaultResponseContentTypeHeaderValue(requestInfo);
+        newlineDelimited = mediaType.is(MediaTypes.APPLICATION_NDJSON);
+        try (output; JsonGenerator generator = createBodyGenerator()) {
+            writePrelude(getSuccessStatusCode(input, output), headers(mediaType));
+            if (!newlineDelimited) {
+                generator.writeStartArray();
+            }
+            writeItems(generator, output);
+            if (!newlineDelimited) {
+                generator.writeEndArray();
+            }
+        }
+        outputStream.close();
+    }
+
+    @Override
+    protected Integer getSuccessStatusCode(I input, Stream<T> output) {
+        return HttpURLConnection.HTTP_OK;
+    }
+
+    /**
+     * Override this method to change the supported media types. The items are written as newline delimited JSON for
+     * {@link MediaTypes#APPLICATION_NDJSON}, and as a JSON array for all other media types.
+     *
+     * @return a list of supported media types
+     */
+    @Override
+    protected List<MediaType> listSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    protected void writeExpectedFailure(I input, ApiGatewayException exception, String requestId)
+        throws IOException {
+        writeFailure(getFailureStatusCode(input, exception), exception.getMessage(), requestId);
+    }
+
+    @Override
+    protected void writeUnexpectedFailure(I input, Exception exception, String requestId) throws IOException {
+        writeFailure(HttpURLConnection.HTTP_INTERNAL_ERROR,
+                     ApiGatewayHandler.MESSAGE_FOR_RUNTIME_EXCEPTIONS_HIDING_IMPLEMENTATION_DETAILS_TO_API_CLIENTS,
+                     requestId);
+    }
+
+    private JsonGenerator createBodyGenerator() throws IOException {
+        // The content is not completed when the generator is closed, so that a failure leaves a JSON array
+        // unterminated, and the stream is left open for the error record of newline delimited JSON.
+        return itemWriter.createGenerator(outputStream, JsonEncoding.UTF8)
+                   .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                   .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private void writeItems(JsonGenerator generator, Stream<T> items) throws IOException {
+        var iterator = items.iterator();
+        var count = 0;
+        while (iterator.hasNext()) {
+            var item = iterator.next();
+            itemLineOpen = newlineDelimited;
+            itemWriter.writeValue(generator, item);
+            if (newlineDelimited) {
+                generator.writeRaw(NDJSON_LINE_SEPARATOR);
+                itemLineOpen = false;
+            }
+            count++;
+            if (count == 1 || count % FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
+        }
+    }
+
+    private void writePrelude(int statusCode, Map<String, String> headers) throws IOException {
+        var prelude = new LinkedHashMap<String, Object>();
+        prelude.put(STATUS_CODE_FIELD, statusCode);
+        prelude.put(HEADERS_FIELD, headers);
+        outputStream.write(preludeWriter.writeValueAsBytes(prelude));
+        outputStream.write(PRELUDE_DELIMITER);
+        outputStream.flush();
+        sentStatusCode = statusCode;
+        preludeWritten = true;
+    }
+
+    private void writeFailure(int statusCode, String message, String requestId) throws IOException {
+        var status = Status.valueOf(statusCode);
+        var problem = Problem.builder()
+                          .withStatus(status)
+                          .withTitle(status.getReasonPhrase())
+                          .withDetail(Optional.ofNullable(message).orElse(ApiGatewayHandler.DEFAULT_ERROR_MESSAGE))
+                          .with(ApiGatewayHandler.REQUEST_ID, requestId)
+                          .build();
+        if (preludeWritten) {
+            endStartedResponse(problem, requestId);
+            return;
+        }
+        writePrelude(statusCode, headers(MediaTypes.APPLICATION_PROBLEM_JSON));
+        outputStream.write(preludeWriter.writeValueAsBytes(problem));
+        outputStream.close();
+    }
+
+    private void endStartedResponse(Problem problem, String requestId) throws IOException {
+        logger.warn(RESPONSE_ALREADY_STARTED_MESSAGE + requestId);
+        invocationMetrics.setStatusCode(sentStatusCode);
+        if (newlineDelimited) {
+            if (itemLineOpen) {
+                outputStream.write(NDJSON_LINE_SEPARATOR_BYTES);
+            }
+            outputStream.write(preludeWriter.writeValueAsBytes(Map.of(ERROR_RECORD_FIELD, problem)));
+            outputStream.write(NDJSON_LINE_SEPARATOR_BYTES);
+        }
+        outputStream.close();
+    }
+
+    private Map<String, String> headers(MediaType mediaType) {
+        var headers = new LinkedHashMap<String, String>();
+        headers.put(ACCESS_CONTROL_ALLOW_ORIGIN, allowedOrigin);
+        headers.put(CONTENT_TYPE, mediaType.toString());
+        return headers;
+    }
+}
@@ -1,13 +1,22 @@
 package nva.commons.apigateway;
 
 import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
+import static nva.commons.core.attempt.Try.attempt;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.TreeTraversingParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.net.HttpHeaders;
+import com.google.common.net.MediaType;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
+import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import nva.commons.apigateway.exceptions.ApiIoException;
 import nva.commons.core.JacocoGenerated;
 
@@ -19,15 +28,83 @@ import nva.commons.core.JacocoGenerated;
 public class ApiMessageParser<T> {
 
     public static final String COULD_NOT_PARSE_REQUEST_INFO = "Could not parse RequestInfo: ";
+    private static final String BODY_FIELD = "body";
+    private static final String IS_BASE64_ENCODED_FIELD = GatewayResponse.IS_BASE64_ENCODED_FIELD;
+    private static final String VERSION_FIELD = "version";
+    private static final String PAYLOAD_FORMAT_V2 = "2.0";
+    private static final String RAW_PATH_FIELD = "rawPath";
+    private static final String HTTP_FIELD = "http";
+    private static final String METHOD_FIELD = "method";
+    private static final String COOKIES_FIELD = "cookies";
+    private static final String COOKIE_HEADER = "cookie";
+    private static final String COOKIE_SEPARATOR = "; ";
     private final transient ObjectMapper mapper;
+    private final transient ObjectReader requestInfoReader;
+    private final transient Map<Class<?>, ObjectReader> bodyReaders;
+    private final transient Map<ObjectMapper, Map<Class<?>, ObjectReader>> binaryBodyReaders;
 
     @JacocoGenerated
     public ApiMessageParser() {
-        this.mapper = defaultRestObjectMapper;
+        this(defaultRestObjectMapper);
     }
 
+    /**
+     * Constructor for a parser with a custom object mapper. The deserializer of {@link RequestInfo} is built here, so
+     * that the first request does not pay for the introspection of the class.
+     *
+     * @param mapper the object mapper for parsing messages.
+     */
     public ApiMessageParser(ObjectMapper mapper) {
         this.mapper = mapper;
+        this.requestInfoReader = mapper.readerFor(RequestInfo.class);
+        this.bodyReaders = new ConcurrentHashMap<>();
+        this.binaryBodyReaders = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Builds and caches the deserializer for a body class ahead of the first request with such a body.
+     *
+     * @param tclass the class of the body.
+     */
+    public void prepareBodyReader(Class<T> tclass) {
+        if (!isStreamedBody(tclass)) {
+            bodyReader(tclass);
+        }
+    }
+
+    /**
+     * Parse the whole ApiGateway message once. The resulting tree can be used for extracting both the
+     * {@link RequestInfo} and the body without reading or tokenizing the request again.
+     *
+     * <p>Messages in the payload format version 2.0, which function URLs and HTTP APIs send, get the fields of the REST
+     * proxy format that they lack: the path from "rawPath", the HTTP method from "requestContext.http.method", and a
+     * Cookie header from "cookies". Function URLs have no path parameters.
+     *
+     * @param inputStream the stream containing the ApiGateway message.
+     * @return the ApiGateway message as a {@link JsonNode}.
+     * @throws IOException when reading fails, or the message is not valid JSON.
+     */
+    public JsonNode parseRequest(InputStream inputStream) throws IOException {
+        var request = mapper.readTree(inputStream);
+        if (request instanceof ObjectNode && PAYLOAD_FORMAT_V2.equals(request.path(VERSION_FIELD).asText())) {
+            addRestProxyFields((ObjectNode) request);
+        }
+        return request;
+    }
+
+    /**
+     * Get the Information about the Rest-Api Request, such as Headers.
+     *
+     * @param request the ApiGateway message as parsed by {@link ApiMessageParser#parseRequest(InputStream)}.
+     * @return a {@link RequestInfo} object
+     * @throws ApiIoException when the message cannot be mapped to a {@link RequestInfo}
+     */
+    public RequestInfo getRequestInfo(JsonNode request) throws ApiIoException {
+        try {
+            return requestInfoReader.readValue(request);
+        } catch (IOException e) {
+            throw new ApiIoException(e, COULD_NOT_PARSE_REQUEST_INFO + request);
+        }
     }
 
     /**
@@ -53,35 +130,124 @@ public class ApiMessageParser<T> {
      * @return An instance of the input class.
      * @throws IOException when reading fails, or the JSON parser throws an Exception.
      */
-    @SuppressWarnings("unchecked")
     public T getBodyElementFromJson(String inputString, Class<T> tclass) throws IOException {
+        return getBodyElementFromJson(mapper.readTree(new StringReader(inputString)), tclass);
+    }
 
-        Optional<JsonNode> tree = Optional.ofNullable(mapper.readTree(new StringReader(inputString)));
-        JsonNode body = tree.map(node -> node.get("body")).orElse(null);
+    /**
+     * Get Request body from an already parsed Rest-API request. When the input class is {@link InputStream} or
+     * {@link RequestBodyInputStream}, the body is returned as a {@link RequestBodyInputStream}, which decodes base64
+     * encoded bodies lazily.
+     *
+     * @param apiMessage the Rest-API request as parsed by {@link ApiMessageParser#parseRequest(InputStream)}.
+     * @param tclass     the class to map the the JSON object to.
+     * @return An instance of the input class.
+     * @throws IOException when the JSON parser throws an Exception.
+     */
+    @SuppressWarnings("unchecked")
+    public T getBodyElementFromJson(JsonNode apiMessage, Class<T> tclass) throws IOException {
+        JsonNode body = Optional.ofNullable(apiMessage).map(node -> node.get(BODY_FIELD)).orElse(null);
         if (body == null) {
             return null;
         }
         if (tclass.equals(String.class)) {
             return (T) body.asText();
+        } else if (isStreamedBody(tclass)) {
+            return (T) (apiMessage.path(IS_BASE64_ENCODED_FIELD).asBoolean()
+                            ? RequestBodyInputStream.fromBase64(body.asText())
+                            : RequestBodyInputStream.fromText(body.isTextual() ? body.textValue() : body.toString()));
         } else {
             T request;
             // body should always be a string for a lambda function connected to the API
             if (body.isValueNode()) {
-                request = parseBody(mapper, body.asText(), tclass);
+                request = bodyReader(tclass).readValue(body.asText());
             } else {
-                request = parseBody(mapper, body, tclass);
+                request = bodyReader(tclass).readValue(body);
             }
             return request;
         }
     }
 
-    private T parseBody(ObjectMapper mapper, JsonNode node, Class<T> tclass) throws IOException {
-        return mapper.readValue(new TreeTraversingParser(node), tclass);
+    /**
+     * Get Request body in a binary format, such as CBOR, from an already parsed Rest-API request. API Gateway passes
+     * binary bodies as base64 encoded strings.
+     *
+     * @param apiMessage   the Rest-API request as parsed by {@link ApiMessageParser#parseRequest(InputStream)}.
+     * @param binaryMapper the object mapper of the binary format.
+     * @param tclass       the class to map the body to.
+     * @return An instance of the input class.
+     * @throws IOException when the body is not base64 encoded, or the parser throws an Exception.
+     */
+    public T getBodyElementFromBinary(JsonNode apiMessage, ObjectMapper binaryMapper, Class<T> tclass)
+        throws IOException {
+        JsonNode body = apiMessage.get(BODY_FIELD);
+        if (body == null || body.isNull()) {
+            return null;
+        }
+        return binaryBodyReader(binaryMapper, tclass).readValue(body.binaryValue());
+    }
+
+    /**
+     * Find the object mapper of a binary format, such as CBOR, for a base64 encoded request body, by the Content-Type
+     * of the request.
+     *
+     * @param apiMessage    the Rest-API request as parsed by {@link ApiMessageParser#parseRequest(InputStream)}.
+     * @param objectMappers the object mappers by media type.
+     * @return the object mapper of the binary format, or empty when the body is not binary.
+     */
+    public Optional<ObjectMapper> findBinaryBodyMapper(JsonNode apiMessage,
+                                                       Map<MediaType, ObjectMapper> objectMappers) {
+        if (!apiMessage.path(IS_BASE64_ENCODED_FIELD).asBoolean()) {
+            return Optional.empty();
+        }
+        return findContentType(apiMessage).flatMap(
+            contentType -> objectMappers.entrySet().stream()
+                               .filter(entry -> entry.getKey().withoutParameters().equals(contentType))
+                               .map(Map.Entry::getValue)
+                               .filter(RestConfig::isBinaryFormat)
+                               .findFirst());
+    }
+
+    private static Optional<MediaType> findContentType(JsonNode apiMessage) {
+        var headers = apiMessage.path(RequestInfoConstants.HEADERS_FIELD).fields();
+        while (headers.hasNext()) {
+            var header = headers.next();
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+                return attempt(() -> MediaType.parse(header.getValue().asText()).withoutParameters()).toOptional();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static void addRestProxyFields(ObjectNode request) {
+        var httpContext = request.path(RequestInfoConstants.REQUEST_CONTEXT_FIELD).path(HTTP_FIELD);
+        putIfAbsent(request, RequestInfoConstants.PATH_FIELD, request.path(RAW_PATH_FIELD));
+        putIfAbsent(request, RequestInfoConstants.HTTP_METHOD_FIELD, httpContext.path(METHOD_FIELD));
+        var cookies = request.path(COOKIES_FIELD);
+        var headers = request.path(RequestInfoConstants.HEADERS_FIELD);
+        if (cookies.isArray() && !cookies.isEmpty() && headers instanceof ObjectNode) {
+            var cookieHeader = new StringJoiner(COOKIE_SEPARATOR);
+            cookies.forEach(cookie -> cookieHeader.add(cookie.asText()));
+            putIfAbsent((ObjectNode) headers, COOKIE_HEADER, TextNode.valueOf(cookieHeader.toString()));
+        }
+    }
+
+    private static void putIfAbsent(ObjectNode node, String field, JsonNode value) {
+        if (!node.hasNonNull(field) && !value.isMissingNode()) {
+            node.set(field, value);
+        }
     }
 
-    private T parseBody(ObjectMapper mapper, String json, Class<T> tclass) throws IOException {
+    private static boolean isStreamedBody(Class<?> tclass) {
+        return tclass.equals(InputStream.class) || tclass.equals(RequestBodyInputStream.class);
+    }
+
+    private ObjectReader bodyReader(Class<T> tclass) {
+        return bodyReaders.computeIfAbsent(tclass, mapper::readerFor);
+    }
 
-        T object = mapper.readValue(json, tclass);
-        return object;
+    private ObjectReader binaryBodyReader(ObjectMapper binaryMapper, Class<T> tclass) {
+        return binaryBodyReaders.computeIfAbsent(binaryMapper, format -> new ConcurrentHashMap<>())
+                   .computeIfAbsent(tclass, binaryMapper::readerFor);
     }
 }
@@ -0,0 +1,115 @@
+package nva.commons.apigateway;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The content encodings that can be used for compressing response bodies, and the negotiation of the encoding from
+ * the Accept-Encoding header of a request.
+ */
+public enum ContentEncoding {
+
+    GZIP("gzip") {
+        @Override
+        public OutputStream compress(OutputStream outputStream) throws IOException {
+            return new GZIPOutputStream(outputStream);
+        }
+    },
+    DEFLATE("deflate") {
+        @Override
+        public OutputStream compress(OutputStream outputStream) {
+            return new DeflaterOutputStream(outputStream);
+        }
+    };
+
+    public static final String ANY_ENCODING = "*";
+    private static final String ENCODINGS_SEPARATOR = ",";
+    private static final String PARAMETER_SEPARATOR = ";";
+    private static final String QUALITY_PARAMETER = "q=";
+    private static final double DEFAULT_QUALITY = 1.0;
+    private static final double NOT_ACCEPTABLE = 0.0;
+    private final String value;
+
+    ContentEncoding(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Selects the preferred content encoding of the client. Encodings with a higher quality value are preferred, and
+     * gzip is preferred over deflate when the client has no preference.
+     *
+     * @param acceptEncodingHeader the value of the Accept-Encoding header.
+     * @return the content encoding to use, or empty if the client does not accept any of the supported encodings.
+     */
+    public static Optional<ContentEncoding> negotiate(String acceptEncodingHeader) {
+        var acceptedEncodings = Arrays.stream(acceptEncodingHeader.split(ENCODINGS_SEPARATOR))
+                                    .map(AcceptedEncoding::parse)
+                                    .toArray(AcceptedEncoding[]::new);
+        return Arrays.stream(values())
+                   .filter(encoding -> encoding.qualityIn(acceptedEncodings) > NOT_ACCEPTABLE)
+                   .max(Comparator.comparingDouble(encoding -> encoding.qualityIn(acceptedEncodings)));
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Wraps an output stream so that everything written to it is compressed with this encoding.
+     *
+     * @param outputStream the stream receiving the compressed bytes.
+     * @return a stream that compresses its input. It must be closed to write the complete compressed content.
+     * @throws IOException when writing to the output stream fails.
+     */
+    public abstract OutputStream compress(OutputStream outputStream) throws IOException;
+
+    private double qualityIn(AcceptedEncoding... acceptedEncodings) {
+        return Arrays.stream(acceptedEncodings)
+                   .filter(accepted -> value.equals(accepted.name))
+                   .findFirst()
+                   .or(() -> Arrays.stream(acceptedEncodings)
+                                 .filter(accepted -> ANY_ENCODING.equals(accepted.name))
+                                 .findFirst())
+                   .map(accepted -> accepted.quality)
+                   .orElse(NOT_ACCEPTABLE);
+    }
+
+    private static final class AcceptedEncoding {
+
+        private final String name;
+        private final double quality;
+
+        private AcceptedEncoding(String name, double quality) {
+            this.name = name;
+            this.quality = quality;
+        }
+
+        private static AcceptedEncoding parse(String acceptedEncoding) {
+            var parts = acceptedEncoding.split(PARAMETER_SEPARATOR);
+            var name = parts[0].strip().toLowerCase(Locale.ROOT);
+            var quality = Arrays.stream(parts)
+                              .skip(1)
+                              .map(String::strip)
+                              .filter(parameter -> parameter.startsWith(QUALITY_PARAMETER))
+                              .map(parameter -> parameter.substring(QUALITY_PARAMETER.length()))
+                              .findFirst()
+                              .map(AcceptedEncoding::parseQuality)
+                              .orElse(DEFAULT_QUALITY);
+            return new AcceptedEncoding(name, quality);
+        }
+
+        private static double parseQuality(String quality) {
+            try {
+                return Double.parseDouble(quality);
+            } catch (NumberFormatException e) {
+                return NOT_ACCEPTABLE;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package nva.commons.apigateway;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Creation and comparison of entity tags (ETags) for conditional requests, as described in RFC 7232.
+ */
+public final class ETags {
+
+    public static final String ANY_ETAG = "*";
+    public static final String WEAK_PREFIX = "W/";
+    private static final String QUOTE = "\"";
+    private static final String ETAGS_SEPARATOR = ",";
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private ETags() {
+    }
+
+    /**
+     * Creates a strong ETag from a value identifying a version of a resource. Values that already are ETags, i.e.
+     * quoted or weak, are returned as they are.
+     *
+     * @param version the version of the resource.
+     * @return the ETag of the version.
+     */
+    public static String fromVersion(String version) {
+        return version.startsWith(QUOTE) || version.startsWith(WEAK_PREFIX) ? version : QUOTE + version + QUOTE;
+    }
+
+    /**
+     * Creates a strong ETag from the hash of a serialized body.
+     *
+     * @param serializedBody the body as it is sent to the client.
+     * @return the ETag of the body.
+     */
+    public static String fromBody(byte[] serializedBody) {
+        var hash = newMessageDigest().digest(serializedBody);
+        return fromVersion(Base64.getUrlEncoder().withoutPadding().encodeToString(hash));
+    }
+
+    /**
+     * Returns the weak version of an ETag, for representations that are only semantically equivalent to the
+     * representation the ETag was created for, e.g. compressed representations.
+     *
+     * @param etag an ETag.
+     * @return the weak ETag.
+     */
+    public static String weak(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag : WEAK_PREFIX + etag;
+    }
+
+    /**
+     * Checks if an If-None-Match header matches an ETag, using the weak comparison that RFC 7232 requires for
+     * If-None-Match.
+     *
+     * @param ifNoneMatchHeader the value of the If-None-Match header of a request.
+     * @param etag              the current ETag of the resource.
+     * @return true if the client already has the current representation of the resource.
+     */
+    public static boolean matches(String ifNoneMatchHeader, String etag) {
+        var opaqueTag = opaqueTag(etag);
+        return Arrays.stream(ifNoneMatchHeader.split(ETAGS_SEPARATOR))
+                   .map(String::strip)
+                   .anyMatch(candidate -> ANY_ETAG.equals(candidate) || opaqueTag.equals(opaqueTag(candidate)));
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package nva.commons.apigateway;
+
+import static no.unit.nva.commons.json.JsonUtils.singleLineObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Publishes the metrics of an invocation as a log line in CloudWatch Embedded Metric Format (EMF), which CloudWatch
+ * turns into metrics without any calls to the CloudWatch API. The metrics have the handler class and the status code
+ * of the response as dimensions.
+ *
+ * <p>The log line must be written to standard output on its own, since CloudWatch does not recognize EMF in log
+ * lines with the prefix that the logging framework adds.
+ *
+ * <p>See the Embedded Metric Format specification in the CloudWatch documentation.
+ */
+public class EmfInvocationMetrics implements InvocationMetrics {
+
+    public static final String HANDLER_DIMENSION = "Handler";
+    public static final String STATUS_CODE_DIMENSION = "StatusCode";
+    public static final String LATENCY_SUFFIX = "Latency";
+    public static final String TOTAL_LATENCY_METRIC = "Total" + LATENCY_SUFFIX;
+    public static final String INPUT_BYTES_METRIC = "InputBytes";
+    public static final String OUTPUT_BYTES_METRIC = "OutputBytes";
+    public static final String MILLISECONDS_UNIT = "Milliseconds";
+    public static final String BYTES_UNIT = "Bytes";
+    private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+    private static final String METADATA_FIELD = "_aws";
+    private static final String TIMESTAMP_FIELD = "Timestamp";
+    private static final String CLOUDWATCH_METRICS_FIELD = "CloudWatchMetrics";
+    private static final String NAMESPACE_FIELD = "Namespace";
+    private static final String DIMENSIONS_FIELD = "Dimensions";
+    private static final String METRICS_FIELD = "Metrics";
+    private static final String NAME_FIELD = "Name";
+    private static final String UNIT_FIELD = "Unit";
+    private final String namespace;
+    private final String handlerName;
+    private final PrintStream printStream;
+    private final Clock clock;
+    private final Map<Phase, Double> phaseLatencies;
+    private long startTime;
+    private long lastPhaseEndTime;
+    private int statusCode;
+    private Optional<LongSupplier> inputBytes;
+    private Optional<CountingOutputStream> output;
+
+    /**
+     * Starts collecting metrics for an invocation.
+     *
+     * @param namespace   the CloudWatch namespace of the metrics.
+     * @param handlerName the name of the handler, used as dimension.
+     * @param printStream where the EMF log line is written, normally standard output.
+     * @param clock       the clock for the timestamp of the metrics.
+     */
+    public EmfInvocationMetrics(String namespace, String handlerName, PrintStream printStream, Clock clock) {
+        this.namespace = namespace;
+        this.handlerName = handlerName;
+        this.printStream = printStream;
+        this.clock = clock;
+        this.startTime = System.nanoTime();
+        this.lastPhaseEndTime = startTime;
+        this.phaseLatencies = new EnumMap<>(Phase.class);
+        this.inputBytes = Optional.empty();
+        this.output = Optional.empty();
+    }
+
+    @Override
+    public InputStream countInput(InputStream inputStream) {
+        var countingStream = new CountingInputStream(inputStream);
+        inputBytes = Optional.of(countingStream::getCount);
+        return countingStream;
+    }
+
+    @Override
+    public void requestReadBeforeInvocation(long readNanos, long inputBytes) {
+        startTime -= readNanos;
+        lastPhaseEndTime -= readNanos;
+        this.inputBytes = Optional.of(() -> inputBytes);
+    }
+
+    @Override
+    public OutputStream countOutput(OutputStream outputStream) {
+        var countingStream = new CountingOutputStream(outputStream);
+        output = Optional.of(countingStream);
+        return countingStream;
+    }
+
+    @Override
+    public void phaseCompleted(Phase phase) {
+        var now = System.nanoTime();
+        phaseLatencies.put(phase, toMilliseconds(now - lastPhaseEndTime));
+        lastPhaseEndTime = now;
+    }
+
+    @Override
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    @Override
+    public void invocationCompleted() {
+        var totalLatency = toMilliseconds(System.nanoTime() - startTime);
+        var logLine = singleLineObjectMapper.createObjectNode();
+        var metricDefinitions = singleLineObjectMapper.createArrayNode();
+        addMetric(logLine, metricDefinitions, TOTAL_LATENCY_METRIC, MILLISECONDS_UNIT, totalLatency);
+        logLine.put(HANDLER_DIMENSION, handlerName);
+        logLine.put(STATUS_CODE_DIMENSION, String.valueOf(statusCode));
+        phaseLatencies.forEach((phase, latency) -> addMetric(logLine, metricDefinitions,
+                                                             phase.getMetricName() + LATENCY_SUFFIX,
+                                                             MILLISECONDS_UNIT, latency));
+        inputBytes.ifPresent(bytes -> addMetric(logLine, metricDefinitions, INPUT_BYTES_METRIC, BYTES_UNIT,
+                                                bytes.getAsLong()));
+        output.ifPresent(stream -> addMetric(logLine, metricDefinitions, OUTPUT_BYTES_METRIC, BYTES_UNIT,
+                                             stream.getCount()));
+        logLine.set(METADATA_FIELD, createMetadata(metricDefinitions));
+        printStream.println(logLine);
+    }
+
+    private ObjectNode createMetadata(ArrayNode metricDefinitions) {
+        var metricDirective = singleLineObjectMapper.createObjectNode();
+        metricDirective.put(NAMESPACE_FIELD, namespace);
+        metricDirective.putArray(DIMENSIONS_FIELD).addArray().add(HANDLER_DIMENSION).add(STATUS_CODE_DIMENSION);
+        metricDirective.set(METRICS_FIELD, metricDefinitions);
+        var metadata = singleLineObjectMapper.createObjectNode();
+        metadata.put(TIMESTAMP_FIELD, clock.millis());
+        metadata.putArray(CLOUDWATCH_METRICS_FIELD).add(metricDirective);
+        return metadata;
+    }
+
+    private static void addMetric(ObjectNode logLine, ArrayNode metricDefinitions, String name, String unit,
+                                  double value) {
+        metricDefinitions.addObject().put(NAME_FIELD, name).put(UNIT_FIELD, unit);
+        logLine.put(name, value);
+    }
+
+    private static double toMilliseconds(long nanos) {
+        return nanos / NANOS_PER_MILLISECOND;
+    }
+}
@@ -0,0 +1,59 @@
+package nva.commons.apigateway;
+
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Filters the properties of a serialized object to the ones in a sparse fieldset, such as
+ * {@code id,entityDescription.mainTitle,entityDescription.contributors.name}. Nested properties are separated by
+ * dots, and a property that is requested without nested properties is written in whole. Properties of objects in
+ * arrays are filtered like properties of the array itself, so the same fieldset applies to a single resource and to a
+ * list of resources.
+ *
+ * <p>The filter is applied by the generator while the object is serialized, so the properties that are filtered away
+ * are never written.
+ */
+public final class FieldsFilter extends TokenFilter {
+
+    public static final String FIELD_SEPARATOR = ",";
+    private static final Pattern PATH_SEPARATOR = Pattern.compile("\\.");
+    private final Map<String, FieldsFilter> properties;
+    private boolean wholeProperty;
+
+    private FieldsFilter() {
+        super();
+        this.properties = new HashMap<>();
+    }
+
+    /**
+     * Compiles a sparse fieldset.
+     *
+     * @param fields the comma separated property paths.
+     * @return the filter, or empty if the fieldset has no properties.
+     */
+    public static Optional<FieldsFilter> parse(String fields) {
+        var root = new FieldsFilter();
+        for (var field : fields.split(FIELD_SEPARATOR)) {
+            var node = root;
+            for (var property : PATH_SEPARATOR.split(field.strip())) {
+                if (!property.isEmpty()) {
+                    node = node.properties.computeIfAbsent(property, name -> new FieldsFilter());
+                }
+            }
+            node.wholeProperty = true;
+        }
+        return root.properties.isEmpty() ? Optional.empty() : Optional.of(root);
+    }
+
+    @Override
+    public TokenFilter includeProperty(String name) {
+        var property = properties.get(name);
+        if (property == null) {
+            return null;
+        }
+        return property.wholeProperty ? INCLUDE_ALL : property;
+    }
+}
@@ -1,7 +1,6 @@
 package nva.commons.apigateway;
 
 import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
-import static nva.commons.core.attempt.Try.attempt;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -22,25 +21,42 @@ import nva.commons.core.JacocoGenerated;
 @SuppressWarnings("PMD.ShortMethodName")
 public class GatewayResponse<T> implements Serializable {
 
+    public static final String IS_BASE64_ENCODED_FIELD = "isBase64Encoded";
+
     private final String body;
     private final Map<String, String> headers;
     private final int statusCode;
+    private final boolean base64Encoded;
 
     /**
-     * Constructor for JSON deserializing.
+     * Constructor for GatewayResponse with a body that is not base64 encoded.
      *
      * @param body       the body as JSON string
      * @param headers    the headers map.
      * @param statusCode the status code.
      */
+    public GatewayResponse(String body, Map<String, String> headers, int statusCode) {
+        this(body, headers, statusCode, false);
+    }
+
+    /**
+     * Constructor for JSON deserializing.
+     *
+     * @param body          the body as JSON string, or as base64 string when the body is binary.
+     * @param headers       the headers map.
+     * @param statusCode    the status code.
+     * @param base64Encoded whether the body is base64 encoded.
+     */
     @JsonCreator
     public GatewayResponse(
         @JsonProperty("body") final String body,
         @JsonProperty("headers") final Map<String, String> headers,
-        @JsonProperty("statusCode") final int statusCode) {
+        @JsonProperty("statusCode") final int statusCode,
+        @JsonProperty(IS_BASE64_ENCODED_FIELD) final boolean base64Encoded) {
         this.body = body;
         this.headers = headers;
         this.statusCode = statusCode;
+        this.base64Encoded = base64Encoded;
     }
 
     /**
@@ -58,6 +74,7 @@ public class GatewayResponse<T> implements Serializable {
             this.statusCode = statusCode;
             this.body = body instanceof String ? (String) body : objectMapper.writeValueAsString(body);
             this.headers = Map.copyOf(headers);
+            this.base64Encoded = false;
         } catch (JsonProcessingException e) {
             throw new GatewayResponseSerializingException(e);
         }
@@ -164,9 +181,9 @@ public class GatewayResponse<T> implements Serializable {
         };
         Map<String, String> headers = defaultRestObjectMapper.convertValue(jsonNode.get("headers"), typeref);
         int statusCode = jsonNode.get("statusCode").asInt();
+        boolean base64Encoded = jsonNode.path(IS_BASE64_ENCODED_FIELD).asBoolean();
 
-        return (GatewayResponse<T>)
-                   attempt(() -> new GatewayResponse(body, headers, statusCode, defaultRestObjectMapper)).orElseThrow();
+        return new GatewayResponse<>(body, Map.copyOf(headers), statusCode, base64Encoded);
     }
 
     public String getBody() {
@@ -199,10 +216,15 @@ public class GatewayResponse<T> implements Serializable {
         return statusCode;
     }
 
+    @JsonProperty(IS_BASE64_ENCODED_FIELD)
+    public boolean isBase64Encoded() {
+        return base64Encoded;
+    }
+
     @Override
     @JacocoGenerated
     public int hashCode() {
-        return Objects.hash(body, headers, statusCode);
+        return Objects.hash(body, headers, statusCode, base64Encoded);
     }
 
     @Override
@@ -216,6 +238,7 @@ public class GatewayResponse<T> implements Serializable {
         }
         GatewayResponse<?> that = (GatewayResponse<?>) o;
         return statusCode == that.statusCode
+               && base64Encoded == that.base64Encoded
                && Objects.equals(body, that.body)
                && Objects.equals(headers, that.headers);
     }
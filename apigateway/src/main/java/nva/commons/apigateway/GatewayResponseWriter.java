@@ -0,0 +1,354 @@
+package nva.commons.apigateway;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.core.filter.TokenFilter.Inclusion;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.net.HttpHeaders;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes a {@link GatewayResponse} directly to the output stream of a handler. The body is serialized straight into
+ * the "body" field of the response as an escaped JSON string, so neither the serialized body nor the serialized
+ * response are ever held in memory as Strings, and the body is not escaped a second time.
+ *
+ * <p>Responses are written in a compact form, regardless of whether the object mapper indents its output, because
+ * indentation only adds bytes on the wire. Indented responses can be written on request for debugging.
+ */
+public class GatewayResponseWriter {
+
+    public static final String BODY_FIELD = "body";
+    public static final String HEADERS_FIELD = "headers";
+    public static final String STATUS_CODE_FIELD = "statusCode";
+    private static final String QUOTE = "\"";
+    private static final boolean BASE64_ENCODED = true;
+    private static final boolean NOT_BASE64_ENCODED = false;
+    private static final boolean ALLOW_MULTIPLE_MATCHES = true;
+    private final ObjectWriter compactWriter;
+    private final ObjectWriter prettyWriter;
+    private final Optional<TokenFilter> bodyFilter;
+    private final Optional<JavaType> bodyType;
+    private final ObjectWriter bodyTypeWriter;
+
+    public GatewayResponseWriter(ObjectMapper objectMapper) {
+        this(objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT),
+             objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT),
+             Optional.empty(), Optional.empty());
+    }
+
+    private GatewayResponseWriter(ObjectWriter compactWriter, ObjectWriter prettyWriter,
+                                  Optional<TokenFilter> bodyFilter, Optional<JavaType> bodyType) {
+        this.compactWriter = compactWriter;
+        this.prettyWriter = prettyWriter;
+        this.bodyFilter = bodyFilter;
+        this.bodyType = bodyType;
+        this.bodyTypeWriter = bodyType.map(compactWriter::forType).orElse(compactWriter);
+    }
+
+    /**
+     * Creates a writer that has the serializer of a body type built in advance, so that the first response with a
+     * body of that type does not pay for building it. The serializer is only used for bodies of exactly that class,
+     * so that bodies of subclasses are serialized with all their properties.
+     *
+     * @param bodyType the type of the bodies, e.g. the output type of a handler.
+     * @return a writer with the same object mapper as this writer, that has the serializer of the body type.
+     */
+    public GatewayResponseWriter withBodyType(JavaType bodyType) {
+        return new GatewayResponseWriter(compactWriter, prettyWriter, bodyFilter, Optional.of(bodyType));
+    }
+
+    /**
+     * Creates a writer that filters the properties of the bodies it serializes, e.g. with a {@link FieldsFilter}.
+     * String bodies are written as they are.
+     *
+     * @param filter the filter of the serialized bodies.
+     * @return a writer with the same object mapper as this writer, that filters bodies.
+     */
+    public GatewayResponseWriter withBodyFilter(TokenFilter filter) {
+        return new GatewayResponseWriter(compactWriter, prettyWriter, Optional.of(filter), bodyType);
+    }
+
+    /**
+     * Writes the response in compact form and closes the output stream. String bodies are written as they are, and
+     * all other bodies are serialized with the object mapper of the writer.
+     *
+     * @param outputStream the output stream of the handler.
+     * @param body         the body of the response.
+     * @param headers      the headers of the response.
+     * @param statusCode   the status code of the response.
+     * @throws IOException when serializing or writing fails.
+     */
+    public void write(OutputStream outputStream, Object body, Map<String, String> headers, int statusCode)
+        throws IOException {
+        writeResponse(compactWriterFor(body), outputStream, body, headers, statusCode);
+    }
+
+    /**
+     * Writes the response with indentation and closes the output stream. Intended for debugging only.
+     *
+     * @param outputStream the output stream of the handler.
+     * @param body         the body of the response.
+     * @param headers      the headers of the response.
+     * @param statusCode   the status code of the response.
+     * @throws IOException when serializing or writing fails.
+     */
+    public void writePrettyPrinted(OutputStream outputStream, Object body, Map<String, String> headers,
+                                   int statusCode) throws IOException {
+        writeResponse(prettyWriter, outputStream, body, headers, statusCode);
+    }
+
+    /**
+     * Serializes a body in compact form, for responses that need the complete serialized body before the response
+     * is written. String bodies are used as they are.
+     *
+     * @param body the body of the response.
+     * @return the UTF-8 encoded body.
+     * @throws IOException when serializing fails.
+     */
+    public byte[] serialize(Object body) throws IOException {
+        if (body instanceof String) {
+            return ((String) body).getBytes(StandardCharsets.UTF_8);
+        }
+        var writer = compactWriterFor(body);
+        if (bodyFilter.isEmpty() || body == null) {
+            return writer.writeValueAsBytes(body);
+        }
+        var serializedBody = new ByteArrayOutputStream();
+        try (JsonGenerator generator = filtered(writer.createGenerator(serializedBody, JsonEncoding.UTF8))) {
+            writer.writeValue(generator, body);
+        }
+        return serializedBody.toByteArray();
+    }
+
+    /**
+     * Writes a response with a body that has already been serialized, and closes the output stream.
+     *
+     * @param outputStream   the output stream of the handler.
+     * @param serializedBody the UTF-8 encoded body of the response.
+     * @param headers        the headers of the response.
+     * @param statusCode     the status code of the response.
+     * @throws IOException when writing fails.
+     */
+    public void writeSerialized(OutputStream outputStream, byte[] serializedBody, Map<String, String> headers,
+                                int statusCode) throws IOException {
+        writeResponse(compactWriter, outputStream, headers, statusCode, NOT_BASE64_ENCODED,
+                      generator -> generator.writeUTF8String(serializedBody, 0, serializedBody.length));
+    }
+
+    /**
+     * Writes a response with a compressed body and closes the output stream. The compressed body is base64 encoded,
+     * as API Gateway requires for binary bodies, and the response is marked with "isBase64Encoded" and a
+     * Content-Encoding header.
+     *
+     * @param outputStream   the output stream of the handler.
+     * @param serializedBody the UTF-8 encoded body of the response.
+     * @param headers        the headers of the response.
+     * @param statusCode     the status code of the response.
+     * @param encoding       the content encoding to compress the body with.
+     * @throws IOException when compressing or writing fails.
+     */
+    public void writeCompressed(OutputStream outputStream, byte[] serializedBody, Map<String, String> headers,
+                                int statusCode, ContentEncoding encoding) throws IOException {
+        var compressedBody = compress(serializedBody, encoding);
+        var compressedHeaders = new HashMap<>(headers);
+        compressedHeaders.put(HttpHeaders.CONTENT_ENCODING, encoding.getValue());
+        writeResponse(compactWriter, outputStream, compressedHeaders, statusCode, BASE64_ENCODED,
+                      generator -> generator.writeBinary(compressedBody));
+    }
+
+    /**
+     * Writes a response with a body in a binary format, such as CBOR, and closes the output stream. The body is base64
+     * encoded, as API Gateway requires for binary bodies, and the response is marked with "isBase64Encoded".
+     *
+     * @param outputStream the output stream of the handler.
+     * @param binaryBody   the body of the response.
+     * @param headers      the headers of the response.
+     * @param statusCode   the status code of the response.
+     * @throws IOException when writing fails.
+     */
+    public void writeBinary(OutputStream outputStream, byte[] binaryBody, Map<String, String> headers, int statusCode)
+        throws IOException {
+        writeResponse(compactWriter, outputStream, headers, statusCode, BASE64_ENCODED,
+                      generator -> generator.writeBinary(binaryBody));
+    }
+
+    private ObjectWriter compactWriterFor(Object body) {
+        return body != null && bodyType.map(JavaType::getRawClass).filter(body.getClass()::equals).isPresent()
+                   ? bodyTypeWriter
+                   : compactWriter;
+    }
+
+    private void writeResponse(ObjectWriter writer, OutputStream outputStream, Object body,
+                               Map<String, String> headers, int statusCode) throws IOException {
+        writeResponse(writer, outputStream, headers, statusCode, NOT_BASE64_ENCODED,
+                      generator -> writeBody(writer, generator, body));
+    }
+
+    private static void writeResponse(ObjectWriter writer, OutputStream outputStream, Map<String, String> headers,
+                                      int statusCode, boolean base64Encoded, BodyWriter bodyWriter)
+        throws IOException {
+        try (JsonGenerator generator = writer.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName(BODY_FIELD);
+            bodyWriter.write(generator);
+            writeHeaders(generator, headers);
+            generator.writeNumberField(STATUS_CODE_FIELD, statusCode);
+            if (base64Encoded) {
+                generator.writeBooleanField(GatewayResponse.IS_BASE64_ENCODED_FIELD, true);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static byte[] compress(byte[] serializedBody, ContentEncoding encoding) throws IOException {
+        var compressedBody = new ByteArrayOutputStream();
+        try (var compressingStream = encoding.compress(compressedBody)) {
+            compressingStream.write(serializedBody);
+        }
+        return compressedBody.toByteArray();
+    }
+
+    private static void writeHeaders(JsonGenerator generator, Map<String, String> headers) throws IOException {
+        generator.writeObjectFieldStart(HEADERS_FIELD);
+        for (var header : headers.entrySet()) {
+            generator.writeStringField(header.getKey(), header.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeBody(ObjectWriter writer, JsonGenerator generator, Object body) throws IOException {
+        if (body instanceof String) {
+            generator.writeString((String) body);
+        } else {
+            // The opening quote is written as a raw value so that the generator registers the field value.
+            generator.writeRawValue(QUOTE);
+            try (Writer bodyWriter = new JsonStringContentWriter(generator);
+                JsonGenerator bodyGenerator = createBodyGenerator(writer, bodyWriter, body)) {
+                writer.writeValue(bodyGenerator, body);
+            }
+            generator.writeRaw(QUOTE);
+        }
+    }
+
+    private JsonGenerator createBodyGenerator(ObjectWriter writer, Writer bodyWriter, Object body)
+        throws IOException {
+        var generator = writer.createGenerator(bodyWriter);
+        return body == null ? generator : filtered(generator);
+    }
+
+    private JsonGenerator filtered(JsonGenerator generator) {
+        return bodyFilter.<JsonGenerator>map(filter -> new FilteringGeneratorDelegate(
+            generator, filter, Inclusion.INCLUDE_NON_NULL, ALLOW_MULTIPLE_MATCHES)).orElse(generator);
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Escapes the characters written to it and writes them to a generator as the contents of a JSON string.
+     */
+    private static final class JsonStringContentWriter extends Writer {
+
+        private static final char NO_PENDING_CHARACTER = 0;
+        private static final String UNICODE_ESCAPE = "\\u%04X";
+        private final JsonGenerator generator;
+        private final JsonStringEncoder encoder;
+        private char pendingHighSurrogate;
+
+        private JsonStringContentWriter(JsonGenerator generator) {
+            super();
+            this.generator = generator;
+            this.encoder = JsonStringEncoder.getInstance();
+            this.pendingHighSurrogate = NO_PENDING_CHARACTER;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            var text = CharBuffer.allocate(length + 1);
+            if (pendingHighSurrogate != NO_PENDING_CHARACTER) {
+                text.put(pendingHighSurrogate);
+                pendingHighSurrogate = NO_PENDING_CHARACTER;
+            }
+            text.put(buffer, offset, length).flip();
+            writeEscaped(holdBackTrailingHighSurrogate(text));
+        }
+
+        @Override
+        public void flush() {
+            // The generator is flushed when the whole response has been written.
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (pendingHighSurrogate != NO_PENDING_CHARACTER) {
+                writeUnicodeEscape(pendingHighSurrogate);
+                pendingHighSurrogate = NO_PENDING_CHARACTER;
+            }
+        }
+
+        // A surrogate pair split between two writes cannot be encoded, so its first half waits for the next write.
+        private CharBuffer holdBackTrailingHighSurrogate(CharBuffer text) {
+            var lastCharacter = text.get(text.limit() - 1);
+            if (Character.isHighSurrogate(lastCharacter)) {
+                pendingHighSurrogate = lastCharacter;
+                text.limit(text.limit() - 1);
+            }
+            return text;
+        }
+
+        private void writeEscaped(CharBuffer text) throws IOException {
+            if (text.hasRemaining()) {
+                writeRawEscapingUnpairedSurrogates(encoder.quoteAsString(text));
+            }
+        }
+
+        // The generator cannot encode unpaired surrogates, so they are written as escape sequences instead.
+        private void writeRawEscapingUnpairedSurrogates(char... escaped) throws IOException {
+            var start = 0;
+            var index = 0;
+            while (index < escaped.length) {
+                if (isSurrogatePair(escaped, index)) {
+                    index += 2;
+                    continue;
+                }
+                if (Character.isSurrogate(escaped[index])) {
+                    generator.writeRaw(escaped, start, index - start);
+                    writeUnicodeEscape(escaped[index]);
+                    start = index + 1;
+                }
+                index++;
+            }
+            generator.writeRaw(escaped, start, escaped.length - start);
+        }
+
+        private static boolean isSurrogatePair(char[] text, int index) {
+            return index + 1 < text.length
+                   && Character.isHighSurrogate(text[index])
+                   && Character.isLowSurrogate(text[index + 1]);
+        }
+
+        private void writeUnicodeEscape(char character) throws IOException {
+            generator.writeRaw(String.format(UNICODE_ESCAPE, (int) character));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package nva.commons.apigateway;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Collects metrics about a single invocation of a {@link RestRequestHandler}: how long each phase of the invocation
+ * takes, how many bytes are read and written, and the status code of the response. A new instance is created for
+ * every invocation by {@link RestRequestHandler#createInvocationMetrics}.
+ *
+ * <p>All methods do nothing by default, so that {@link InvocationMetrics#DISABLED} adds no cost to invocations.
+ */
+public interface InvocationMetrics {
+
+    InvocationMetrics DISABLED = new InvocationMetrics() {
+    };
+
+    /**
+     * Wraps the input stream of the handler, for counting the bytes of the request.
+     *
+     * @param inputStream the input stream of the handler.
+     * @return the stream the handler should read from.
+     */
+    default InputStream countInput(InputStream inputStream) {
+        return inputStream;
+    }
+
+    /**
+     * Records a request that was read before the invocation started, e.g. by an {@link ApiGatewayRouter} that reads
+     * the request for finding the handler of its route. The time of reading counts towards the
+     * {@link Phase#READ_REQUEST} phase and the total latency of the invocation.
+     *
+     * @param readNanos  how long reading the request took, in nanoseconds.
+     * @param inputBytes the number of bytes of the request.
+     */
+    default void requestReadBeforeInvocation(long readNanos, long inputBytes) {
+        // Not recorded.
+    }
+
+    /**
+     * Wraps the output stream of the handler, for counting the bytes of the response.
+     *
+     * @param outputStream the output stream of the handler.
+     * @return the stream the handler should write to.
+     */
+    default OutputStream countOutput(OutputStream outputStream) {
+        return outputStream;
+    }
+
+    /**
+     * Marks the end of a phase. The phase lasted from the end of the previous phase, or from the start of the
+     * invocation for the first phase.
+     *
+     * @param phase the phase that has completed.
+     */
+    default void phaseCompleted(Phase phase) {
+        // Not recorded.
+    }
+
+    /**
+     * Sets the status code of the response. The last status code set is the one that is recorded.
+     *
+     * @param statusCode the status code of the response.
+     */
+    default void setStatusCode(int statusCode) {
+        // Not recorded.
+    }
+
+    /**
+     * Marks the end of the invocation, when the metrics are published.
+     */
+    default void invocationCompleted() {
+        // Not published.
+    }
+
+    /**
+     * The phases of an invocation, in the order they happen.
+     */
+    enum Phase {
+        READ_REQUEST("ReadRequest"),
+        PARSE_BODY("ParseBody"),
+        PARSE_REQUEST_INFO("ParseRequestInfo"),
+        PROCESS_INPUT("ProcessInput"),
+        WRITE_OUTPUT("WriteOutput");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+}
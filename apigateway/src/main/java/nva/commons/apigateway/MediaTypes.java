@@ -12,6 +12,9 @@ public final class MediaTypes {
         MediaType.create(APPLICATION, "vnd.datacite.datacite+xml");
     public static final MediaType SCHEMA_ORG =
         MediaType.create(APPLICATION, "vnd.schemaorg.ld+json");
+    public static final MediaType APPLICATION_CBOR = MediaType.create(APPLICATION, "cbor");
+    public static final MediaType APPLICATION_SMILE = MediaType.create(APPLICATION, "x-jackson-smile");
+    public static final MediaType APPLICATION_NDJSON = MediaType.create(APPLICATION, "x-ndjson");
 
     private MediaTypes() {
     }
@@ -0,0 +1,81 @@
+package nva.commons.apigateway;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import nva.commons.core.JacocoGenerated;
+
+/**
+ * The Lambda context of the synthetic request that primes a handler, which does not run inside an invocation.
+ */
+class PrimingContext implements Context {
+
+    public static final String PRIMING_REQUEST_ID = "priming";
+    private static final int NO_TIME_LIMIT = Integer.MAX_VALUE;
+
+    @Override
+    public String getAwsRequestId() {
+        return PRIMING_REQUEST_ID;
+    }
+
+    @JacocoGenerated
+    @Override
+    public String getLogGroupName() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public String getLogStreamName() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public String getFunctionName() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public String getFunctionVersion() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public String getInvokedFunctionArn() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public int getRemainingTimeInMillis() {
+        return NO_TIME_LIMIT;
+    }
+
+    @JacocoGenerated
+    @Override
+    public int getMemoryLimitInMB() {
+        return 0;
+    }
+
+    @JacocoGenerated
+    @Override
+    public LambdaLogger getLogger() {
+        return null;
+    }
+}
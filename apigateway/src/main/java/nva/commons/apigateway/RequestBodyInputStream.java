@@ -0,0 +1,106 @@
+package nva.commons.apigateway;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The body of a request as a stream, for handlers with {@link InputStream} or this class as input class. Base64
+ * encoded bodies, such as binary uploads, are decoded lazily while the stream is read, straight from the text of the
+ * parsed request, so the decoded body is never held in memory in whole. The length of the decoded body is known in
+ * advance, so the stream can be passed on to clients that need the length, e.g.
+ * {@code S3Driver.insertFile(UnixPath, InputStream, long)}.
+ */
+public final class RequestBodyInputStream extends FilterInputStream {
+
+    private static final char BASE64_PADDING = '=';
+    private static final int BASE64_BITS_PER_CHARACTER = 6;
+    private final long length;
+
+    private RequestBodyInputStream(InputStream content, long length) {
+        super(content);
+        this.length = length;
+    }
+
+    /**
+     * Creates a stream that decodes a base64 encoded body while it is read.
+     *
+     * @param base64Body the base64 encoded body.
+     * @return the decoded body.
+     */
+    public static RequestBodyInputStream fromBase64(String base64Body) {
+        return new RequestBodyInputStream(Base64.getDecoder().wrap(new AsciiInputStream(base64Body)),
+                                          decodedLength(base64Body));
+    }
+
+    /**
+     * Creates a stream with a text body encoded as UTF-8.
+     *
+     * @param body the body.
+     * @return the UTF-8 encoded body.
+     */
+    public static RequestBodyInputStream fromText(String body) {
+        var content = body.getBytes(StandardCharsets.UTF_8);
+        return new RequestBodyInputStream(new ByteArrayInputStream(content), content.length);
+    }
+
+    /**
+     * Returns the number of bytes in the body.
+     *
+     * @return the number of bytes in the body.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    private static long decodedLength(String base64Body) {
+        var characters = base64Body.length();
+        while (characters > 0 && base64Body.charAt(characters - 1) == BASE64_PADDING) {
+            characters--;
+        }
+        return (long) characters * BASE64_BITS_PER_CHARACTER / Byte.SIZE;
+    }
+
+    /**
+     * Reads the characters of a string that only contains ASCII characters, such as base64, as bytes, without copying
+     * the string.
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private static final int END_OF_STREAM = -1;
+        private final String text;
+        private int position;
+
+        private AsciiInputStream(String text) {
+            super();
+            this.text = text;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) : END_OF_STREAM;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= text.length()) {
+                return END_OF_STREAM;
+            }
+            var count = Math.min(length, text.length() - position);
+            for (var index = 0; index < count; index++) {
+                buffer[offset + index] = (byte) text.charAt(position++);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return text.length() - position;
+        }
+    }
+}
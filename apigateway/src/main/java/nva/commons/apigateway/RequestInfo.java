@@ -11,6 +11,7 @@ import static nva.commons.apigateway.RequestInfoConstants.EXTERNAL_USER_POOL_URI
 import static nva.commons.apigateway.RequestInfoConstants.FEIDE_ID;
 import static nva.commons.apigateway.RequestInfoConstants.HEADERS_FIELD;
 import static nva.commons.apigateway.RequestInfoConstants.ISS;
+import static nva.commons.apigateway.RequestInfoConstants.HTTP_METHOD_FIELD;
 import static nva.commons.apigateway.RequestInfoConstants.METHOD_ARN_FIELD;
 import static nva.commons.apigateway.RequestInfoConstants.MISSING_FROM_HEADERS;
 import static nva.commons.apigateway.RequestInfoConstants.MISSING_FROM_PATH_PARAMETERS;
@@ -35,6 +36,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Suppliers;
 import com.google.common.net.HttpHeaders;
 import java.io.InputStream;
 import java.net.URI;
@@ -48,7 +50,9 @@ import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import no.unit.nva.auth.CognitoAccessTokenVerifier;
 import no.unit.nva.auth.CognitoUserInfo;
+import no.unit.nva.auth.CognitoUserInfoCache;
 import no.unit.nva.auth.FetchUserInfo;
 import no.unit.nva.commons.json.JsonUtils;
 import nva.commons.apigateway.exceptions.BadRequestException;
@@ -65,9 +69,16 @@ import org.slf4j.LoggerFactory;
 public class RequestInfo {
 
     public static final String ERROR_FETCHING_COGNITO_INFO = "Could not fetch user information from Cognito:{}";
+    public static final String ERROR_VERIFYING_ACCESS_TOKEN = "Could not verify access token:{}";
     private static final HttpClient DEFAULT_HTTP_CLIENT = HttpClient.newBuilder().build();
+    private static final CognitoUserInfoCache SHARED_USER_INFO_CACHE =
+        RequestInfoConstants.createSharedUserInfoCache();
+    private static final Optional<CognitoAccessTokenVerifier> SHARED_TOKEN_VERIFIER =
+        RequestInfoConstants.createSharedTokenVerifier(DEFAULT_HTTP_CLIENT);
     private static final Logger logger = LoggerFactory.getLogger(RequestInfo.class);
     private final HttpClient httpClient;
+    private final CognitoUserInfoCache userInfoCache;
+    private final Optional<CognitoAccessTokenVerifier> tokenVerifier;
     private final Supplier<URI> cognitoUri;
     private final Supplier<URI> e2eTestsUserInfoUri;
     @JsonProperty(HEADERS_FIELD)
@@ -82,13 +93,50 @@ public class RequestInfo {
     private JsonNode requestContext;
     @JsonProperty(METHOD_ARN_FIELD)
     private String methodArn;
+    @JsonProperty(HTTP_METHOD_FIELD)
+    private String httpMethod;
     @JsonAnySetter
     private Map<String, Object> otherProperties;
+    @JsonIgnore
+    private Supplier<Optional<CognitoUserInfo>> cognitoUserInfo = memoizedUserInfoFromCognito();
 
     public RequestInfo(HttpClient httpClient, Supplier<URI> cognitoUri, Supplier<URI> e2eTestsUserInfoUri) {
+        this(httpClient, cognitoUri, e2eTestsUserInfoUri, SHARED_USER_INFO_CACHE);
+    }
+
+    public RequestInfo(HttpClient httpClient, Supplier<URI> cognitoUri, Supplier<URI> e2eTestsUserInfoUri,
+                       CognitoUserInfoCache userInfoCache) {
         this.httpClient = httpClient;
         this.cognitoUri = cognitoUri;
         this.e2eTestsUserInfoUri = e2eTestsUserInfoUri;
+        this.userInfoCache = userInfoCache;
+        this.tokenVerifier = SHARED_TOKEN_VERIFIER;
+    }
+
+    /**
+     * Constructor for reading the user info from the verified access token instead of calling Cognito.
+     *
+     * @param httpClient    the client for calling Cognito.
+     * @param tokenVerifier the verifier of the access token in the Authorization header.
+     */
+    public RequestInfo(HttpClient httpClient, CognitoAccessTokenVerifier tokenVerifier) {
+        this(httpClient, DEFAULT_COGNITO_URI, tokenVerifier);
+    }
+
+    /**
+     * Constructor for reading the user info from the verified access token, and from the userinfo endpoint of Cognito
+     * when the token does not carry the custom attributes of the user.
+     *
+     * @param httpClient    the client for calling Cognito.
+     * @param cognitoUri    the userinfo endpoint of Cognito.
+     * @param tokenVerifier the verifier of the access token in the Authorization header.
+     */
+    public RequestInfo(HttpClient httpClient, Supplier<URI> cognitoUri, CognitoAccessTokenVerifier tokenVerifier) {
+        this.httpClient = httpClient;
+        this.cognitoUri = cognitoUri;
+        this.e2eTestsUserInfoUri = RequestInfoConstants.E2E_TESTING_USER_INFO_ENDPOINT;
+        this.userInfoCache = SHARED_USER_INFO_CACHE;
+        this.tokenVerifier = Optional.of(tokenVerifier);
     }
 
     public RequestInfo() {
@@ -100,6 +148,8 @@ public class RequestInfo {
         this.httpClient = DEFAULT_HTTP_CLIENT;
         this.cognitoUri = DEFAULT_COGNITO_URI;
         this.e2eTestsUserInfoUri = RequestInfoConstants.E2E_TESTING_USER_INFO_ENDPOINT;
+        this.userInfoCache = SHARED_USER_INFO_CACHE;
+        this.tokenVerifier = SHARED_TOKEN_VERIFIER;
     }
 
     public static RequestInfo fromRequest(InputStream requestStream) {
@@ -159,6 +209,14 @@ public class RequestInfo {
                    .map(JsonNode::asText);
     }
 
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.httpMethod = httpMethod;
+    }
+
     @JacocoGenerated
     public String getMethodArn() {
         return methodArn;
@@ -186,6 +244,7 @@ public class RequestInfo {
 
     public void setHeaders(Map<String, String> headers) {
         this.headers = nonNullMap(headers);
+        this.cognitoUserInfo = memoizedUserInfoFromCognito();
     }
 
     public String getPath() {
@@ -396,11 +455,45 @@ public class RequestInfo {
                    .orElseGet(Collections::emptyList);
     }
 
+    /**
+     * The user info is fetched at most once per request, and the outcome (including a failure) is reused by all the
+     * accessors that fall back to Cognito. When offline verification is enabled, the user info is read from the
+     * verified access token instead.
+     *
+     * @return the user info of the user sending the request, if it could be fetched.
+     */
     private Optional<CognitoUserInfo> fetchUserInfoFromCognito() {
-        return attempt(() -> fetchUserInfo(cognitoUri)).or(() -> fetchUserInfo(e2eTestsUserInfoUri))
+        return cognitoUserInfo.get();
+    }
+
+    private Supplier<Optional<CognitoUserInfo>> memoizedUserInfoFromCognito() {
+        return Suppliers.memoize(this::readUserInfoFromTokenOrCognito);
+    }
+
+    private Optional<CognitoUserInfo> readUserInfoFromTokenOrCognito() {
+        return tokenVerifier.map(this::readUserInfoFromVerifiedToken).orElseGet(this::fetchUserInfoFromCognitoOnline);
+    }
+
+    // Access tokens without the custom attributes of the user are verified, but their user info is fetched online.
+    private Optional<CognitoUserInfo> readUserInfoFromVerifiedToken(CognitoAccessTokenVerifier verifier) {
+        return attempt(() -> verifier.verify(extractAuthorizationHeader()))
+                   .toOptional(this::logVerificationResult)
+                   .flatMap(userInfo -> userInfo.or(this::fetchUserInfoFromCognitoOnline));
+    }
+
+    private void logVerificationResult(Failure<Optional<CognitoUserInfo>> fail) {
+        logger.warn(ERROR_VERIFYING_ACCESS_TOKEN, ExceptionUtils.stackTraceInSingleLine(fail.getException()));
+    }
+
+    private Optional<CognitoUserInfo> fetchUserInfoFromCognitoOnline() {
+        return attempt(() -> userInfoCache.fetch(extractAuthorizationHeader(), this::fetchUserInfoFromAnyEndpoint))
                    .toOptional(this::logOnlineFetchResult);
     }
 
+    private CognitoUserInfo fetchUserInfoFromAnyEndpoint() {
+        return attempt(() -> fetchUserInfo(cognitoUri)).or(() -> fetchUserInfo(e2eTestsUserInfoUri)).orElseThrow();
+    }
+
     private CognitoUserInfo fetchUserInfo(Supplier<URI> cognitoUri) {
         var userInfo = new FetchUserInfo(httpClient, cognitoUri, extractAuthorizationHeader());
         return userInfo.fetch();
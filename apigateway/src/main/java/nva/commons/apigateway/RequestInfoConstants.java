@@ -5,12 +5,23 @@ import static no.unit.nva.auth.CognitoUserInfo.PERSON_NIN_CLAIM;
 import static no.unit.nva.auth.CognitoUserInfo.TOP_LEVEL_ORG_CRISTIN_ID_CLAIM;
 import static no.unit.nva.auth.CognitoUserInfo.USER_NAME_CLAIM;
 import static no.unit.nva.auth.OAuthConstants.OAUTH_USER_INFO;
+import static nva.commons.core.attempt.Try.attempt;
 import com.fasterxml.jackson.core.JsonPointer;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import no.unit.nva.auth.CognitoAccessTokenVerifier;
+import no.unit.nva.auth.CognitoUserInfoCache;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
 import nva.commons.core.paths.UriWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @JacocoGenerated
 public final class RequestInfoConstants {
@@ -24,11 +35,17 @@ public final class RequestInfoConstants {
     public static final String IDENTITY_SERVICE_USER_INFO_PATH = "userinfo";
     public static final Supplier<URI> E2E_TESTING_USER_INFO_ENDPOINT =
         RequestInfoConstants::lazyInitializationForE2EUserInfoEndpoint;
+    public static final String USER_INFO_CACHE_SIZE_ENV = "USER_INFO_CACHE_SIZE";
+    public static final String INVALID_USER_INFO_CACHE_SIZE_MESSAGE = "Invalid {}: {}. Using the default size of {}";
+    public static final String COGNITO_USER_POOL_ISSUER_ENV = "COGNITO_USER_POOL_ISSUER";
+    public static final String COGNITO_APP_CLIENT_IDS_ENV = "COGNITO_APP_CLIENT_IDS";
+    public static final String APP_CLIENT_IDS_SEPARATOR = ",";
     public static final String QUERY_STRING_PARAMETERS_FIELD = "queryStringParameters";
     public static final String PATH_PARAMETERS_FIELD = "pathParameters";
     public static final String PATH_FIELD = "path";
     public static final String HEADERS_FIELD = "headers";
     public static final String METHOD_ARN_FIELD = "methodArn";
+    public static final String HTTP_METHOD_FIELD = "httpMethod";
     public static final String REQUEST_CONTEXT_FIELD = "requestContext";
     public static final String PROXY_TAG = "proxy";
     public static final String MISSING_FROM_HEADERS = "Missing from headers: ";
@@ -44,6 +61,7 @@ public final class RequestInfoConstants {
     public static final String CLIENT_ID_CLAIM = "client_id";
     public static final String ISS_CLAIM = "iss";
     private static final String CLAIMS_PATH = "/authorizer/claims/";
+    private static final Logger logger = LoggerFactory.getLogger(RequestInfoConstants.class);
     public static final JsonPointer PERSON_GROUPS = claimToJsonPointer(PERSON_GROUPS_CLAIM);
     public static final JsonPointer USER_NAME = claimToJsonPointer(USER_NAME_CLAIM);
     public static final JsonPointer TOP_LEVEL_ORG_CRISTIN_ID = claimToJsonPointer(TOP_LEVEL_ORG_CRISTIN_ID_CLAIM);
@@ -58,6 +76,63 @@ public final class RequestInfoConstants {
 
     }
 
+    /**
+     * Creates the Cognito user info cache that is shared by all requests served by the same Lambda container. The
+     * maximum number of entries can be set with the environment variable {@value USER_INFO_CACHE_SIZE_ENV}, and a
+     * size of 0 disables the cache. A size that is not a number is logged, and the default size is used instead.
+     *
+     * @return a {@link CognitoUserInfoCache}.
+     */
+    public static CognitoUserInfoCache createSharedUserInfoCache() {
+        return new CognitoUserInfoCache(readUserInfoCacheSize(ENVIRONMENT), Clock.systemUTC());
+    }
+
+    /* default */ static int readUserInfoCacheSize(Environment environment) {
+        return environment.readEnvOpt(USER_INFO_CACHE_SIZE_ENV)
+                   .map(RequestInfoConstants::parseUserInfoCacheSize)
+                   .orElse(CognitoUserInfoCache.DEFAULT_MAX_SIZE);
+    }
+
+    private static int parseUserInfoCacheSize(String size) {
+        return attempt(() -> Integer.parseInt(size.trim()))
+                   .toOptional(fail -> logger.warn(INVALID_USER_INFO_CACHE_SIZE_MESSAGE, USER_INFO_CACHE_SIZE_ENV, size,
+                                                   CognitoUserInfoCache.DEFAULT_MAX_SIZE))
+                   .orElse(CognitoUserInfoCache.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates the access token verifier that is shared by all requests served by the same Lambda container. Offline
+     * verification is opt-in, and it is enabled by setting the environment variable
+     * {@value COGNITO_USER_POOL_ISSUER_ENV} to the issuer of the user pool, e.g.
+     * {@code https://cognito-idp.eu-west-1.amazonaws.com/eu-west-1_example}, and the environment variable
+     * {@value COGNITO_APP_CLIENT_IDS_ENV} to a comma separated list of the app clients whose access tokens are
+     * accepted. The user info of access tokens without custom attributes is still fetched from the userinfo endpoint,
+     * see {@link CognitoAccessTokenVerifier}.
+     *
+     * @param httpClient the client for fetching the JWKS of the user pool.
+     * @return a {@link CognitoAccessTokenVerifier} if offline verification is enabled.
+     */
+    public static Optional<CognitoAccessTokenVerifier> createSharedTokenVerifier(HttpClient httpClient) {
+        return createTokenVerifier(httpClient, ENVIRONMENT);
+    }
+
+    /* default */ static Optional<CognitoAccessTokenVerifier> createTokenVerifier(HttpClient httpClient,
+                                                                                 Environment environment) {
+        var appClientIds = environment.readEnvOpt(COGNITO_APP_CLIENT_IDS_ENV)
+                               .map(RequestInfoConstants::parseAppClientIds)
+                               .filter(ids -> !ids.isEmpty());
+        return environment.readEnvOpt(COGNITO_USER_POOL_ISSUER_ENV)
+                   .flatMap(issuer -> appClientIds.map(ids -> CognitoAccessTokenVerifier.forIssuer(httpClient, issuer,
+                                                                                                    ids)));
+    }
+
+    private static Set<String> parseAppClientIds(String appClientIds) {
+        return Arrays.stream(appClientIds.split(APP_CLIENT_IDS_SEPARATOR))
+                   .map(String::strip)
+                   .filter(id -> !id.isEmpty())
+                   .collect(Collectors.toSet());
+    }
+
     private static URI lazyInitializationForE2EUserInfoEndpoint() {
         var apiHost = ENVIRONMENT.readEnv("API_HOST");
         return UriWrapper.fromHost(apiHost)
@@ -0,0 +1,201 @@
+package nva.commons.apigateway;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import nva.commons.core.JacocoGenerated;
+
+/**
+ * Keeps serialized responses to safe requests in memory, so that repeated requests for data that rarely changes are
+ * answered without processing the input or serializing the output again. The cache lives as long as the execution
+ * environment of the Lambda function, and each execution environment has its own cache.
+ *
+ * <p>The cache is bounded by the approximate number of bytes of its entries, and evicts the least recently used
+ * entries when it is full. Expired entries are removed when they are looked up.
+ */
+public class ResponseCache {
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    private static final char LENGTH_SEPARATOR = ':';
+    private static final char NULL_COMPONENT = '-';
+    private static final boolean ACCESS_ORDER = true;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private final long maxBytes;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private long usedBytes;
+
+    @JacocoGenerated
+    public ResponseCache() {
+        this(DEFAULT_MAX_BYTES, Clock.systemUTC());
+    }
+
+    public ResponseCache(long maxBytes, Clock clock) {
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, ACCESS_ORDER);
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+    }
+
+    /**
+     * Creates the key of a request. Query parameters are sorted, so that their order does not matter. Each component
+     * of the key is prefixed with its length, so that values containing delimiters, such as a decoded query parameter
+     * value of "1&amp;b=2", cannot produce the key of another request.
+     *
+     * @param path            the path of the request.
+     * @param queryParameters the query parameters of the request.
+     * @param mediaType       the media type negotiated for the response.
+     * @param scope           the authorization scope of the response, e.g. the customer or the access rights that
+     *                        the response depends on.
+     * @return the key of the request.
+     */
+    public static String createKey(String path, Map<String, String> queryParameters, String mediaType,
+                                   String scope) {
+        var key = new StringBuilder();
+        appendComponent(key, path);
+        key.append(queryParameters.size()).append(LENGTH_SEPARATOR);
+        new TreeMap<>(queryParameters).forEach((name, value) -> {
+            appendComponent(key, name);
+            appendComponent(key, value);
+        });
+        appendComponent(key, mediaType);
+        appendComponent(key, scope);
+        return key.toString();
+    }
+
+    private static void appendComponent(StringBuilder key, String component) {
+        if (Objects.isNull(component)) {
+            key.append(NULL_COMPONENT);
+        } else {
+            key.append(component.length()).append(LENGTH_SEPARATOR).append(component);
+        }
+    }
+
+    /**
+     * Looks up a response and counts the lookup as a hit or a miss.
+     *
+     * @param key the key of the request, from {@link ResponseCache#createKey}.
+     * @return the response, or empty if there is no response or it has expired.
+     */
+    public Optional<Entry> get(String key) {
+        var entry = cachedEntry(key);
+        (entry.isPresent() ? hitCount : missCount).incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Stores a response. Responses that are larger than the whole cache are not stored.
+     *
+     * @param key            the key of the request, from {@link ResponseCache#createKey}.
+     * @param serializedBody the serialized body of the response.
+     * @param headers        the headers of the response.
+     * @param statusCode     the status code of the response.
+     * @param timeToLive     how long the response may be returned.
+     */
+    public void put(String key, byte[] serializedBody, Map<String, String> headers, int statusCode,
+                    Duration timeToLive) {
+        var entry = new Entry(serializedBody, headers, statusCode, clock.instant().plus(timeToLive),
+                              estimateSize(key, serializedBody, headers));
+        synchronized (entries) {
+            remove(key);
+            if (entry.size > maxBytes) {
+                return;
+            }
+            entries.put(key, entry);
+            usedBytes += entry.size;
+            var iterator = entries.values().iterator();
+            while (usedBytes > maxBytes) {
+                usedBytes -= iterator.next().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getUsedBytes() {
+        synchronized (entries) {
+            return usedBytes;
+        }
+    }
+
+    private Optional<Entry> cachedEntry(String key) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (Objects.isNull(entry)) {
+                return Optional.empty();
+            }
+            if (!clock.instant().isBefore(entry.expiresAt)) {
+                remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry);
+        }
+    }
+
+    private void remove(String key) {
+        var removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.size;
+        }
+    }
+
+    // Strings are counted as two bytes per character, which is an upper bound of their size in memory.
+    private static long estimateSize(String key, byte[] serializedBody, Map<String, String> headers) {
+        long size = serializedBody.length + 2L * key.length();
+        for (var header : headers.entrySet()) {
+            size += 2L * (header.getKey().length() + header.getValue().length());
+        }
+        return size;
+    }
+
+    /**
+     * A cached response.
+     */
+    public static final class Entry {
+
+        private final byte[] serializedBody;
+        private final Map<String, String> headers;
+        private final int statusCode;
+        private final Instant expiresAt;
+        private final long size;
+
+        private Entry(byte[] serializedBody, Map<String, String> headers, int statusCode, Instant expiresAt,
+                      long size) {
+            this.serializedBody = serializedBody.clone();
+            this.headers = Collections.unmodifiableMap(new TreeMap<>(headers));
+            this.statusCode = statusCode;
+            this.expiresAt = expiresAt;
+            this.size = size;
+        }
+
+        public byte[] getSerializedBody() {
+            return serializedBody.clone();
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package nva.commons.apigateway;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Stores response bodies that are too large to be returned through API Gateway, and creates URLs that clients can
+ * download them from. Lambda functions cannot return synchronous responses larger than 6 MB, and serializing and
+ * transferring responses near that size dominates the latency of the function.
+ *
+ * <p>{@code no.unit.nva.s3.S3ResponseOffloader} in the s3 module stores the bodies in an S3 bucket, and can be set
+ * with {@code setResponseOffloader(new S3ResponseOffloader(bucketName)::offload)}. It is not a dependency of this
+ * module, so that handlers that do not offload responses do not load the S3 client.
+ */
+@FunctionalInterface
+public interface ResponseOffloader {
+
+    /**
+     * Stores a response body.
+     *
+     * @param serializedBody the UTF-8 encoded body of the response.
+     * @param contentType    the Content-Type of the response.
+     * @return a URL for downloading the body.
+     * @throws IOException when storing the body fails.
+     */
+    URI offload(byte[] serializedBody, String contentType) throws IOException;
+}
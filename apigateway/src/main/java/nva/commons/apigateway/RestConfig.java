@@ -2,11 +2,28 @@ package nva.commons.apigateway;
 
 import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 
 public final class RestConfig {
 
     /* default */ static final ObjectMapper defaultRestObjectMapper = dtoObjectMapper;
 
+    /**
+     * Object mapper for {@link MediaTypes#APPLICATION_CBOR} with the same configuration as the default object mapper,
+     * for handlers that offer CBOR to other services through {@code getObjectMappers()}.
+     */
+    public static final ObjectMapper cborObjectMapper = defaultRestObjectMapper.copyWith(new CBORFactory());
+
     private RestConfig() {
     }
+
+    /**
+     * Checks whether an object mapper reads and writes a binary format, such as CBOR or Smile, instead of text.
+     *
+     * @param objectMapper the object mapper.
+     * @return true if the format of the object mapper is binary.
+     */
+    public static boolean isBinaryFormat(ObjectMapper objectMapper) {
+        return objectMapper.getFactory().canHandleBinaryNatively();
+    }
 }
@@ -1,25 +1,38 @@
 package nva.commons.apigateway;
 
 import static com.google.common.net.MediaType.JSON_UTF_8;
+import static java.util.Objects.isNull;
 import static nva.commons.core.attempt.Try.attempt;
 import static nva.commons.core.exceptions.ExceptionUtils.stackTraceInSingleLine;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import nva.commons.apigateway.InvocationMetrics.Phase;
 import nva.commons.apigateway.exceptions.ApiGatewayException;
 import nva.commons.apigateway.exceptions.BadRequestException;
 import nva.commons.apigateway.exceptions.GatewayResponseSerializingException;
 import nva.commons.apigateway.exceptions.UnsupportedAcceptHeaderException;
 import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
 import nva.commons.core.attempt.Failure;
-import nva.commons.core.ioutils.IoUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,19 +51,32 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
     public static final String SPACE = " ";
     public static final String EMPTY_STRING = "";
     public static final String COMMA = ",";
+    public static final String METRICS_NAMESPACE_ENV = "METRICS_NAMESPACE";
+    public static final String PRIMING_HTTP_METHOD = "GET";
+    public static final String PRIMING_PATH = "/";
     protected final Environment environment;
     private static final Logger logger = LoggerFactory.getLogger(RestRequestHandler.class);
     private final transient Class<I> iclass;
     private final transient ApiMessageParser<I> inputParser = new ApiMessageParser<>();
+    private final transient boolean parsesInputFromString;
 
     protected transient OutputStream outputStream;
     protected transient String allowedOrigin;
+    protected transient InvocationMetrics invocationMetrics = InvocationMetrics.DISABLED;
+    private transient StackTraceSampler stackTraceSampler;
 
     private static final List<MediaType> DEFAULT_SUPPORTED_MEDIA_TYPES = List.of(JSON_UTF_8);
+    private static final int MAX_CACHED_ACCEPT_HEADERS = 256;
+    private static final String QUALITY_PARAMETER = "q";
+    private static final String WILDCARD = "*";
+    private static final double DEFAULT_QUALITY = 1.0;
+    private static final double NOT_ACCEPTABLE = 0.0;
+    private final transient Map<String, Optional<MediaType>> negotiatedMediaTypes = new ConcurrentHashMap<>();
 
     /**
      * Calculates the Content MediaType of the response based on the supported Media Types and the requested Media
-     * Types.
+     * Types. The outcome of the negotiation is cached for each distinct Accept header, so the header is only parsed
+     * the first time the handler sees it.
      *
      * @param requestInfo The request as sent by ApiGateway
      * @return the MediaType value of the Response. Basically the value of the Content header.
@@ -59,20 +85,31 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
      */
     protected MediaType calculateContentTypeHeaderReturnValue(RequestInfo requestInfo)
         throws UnsupportedAcceptHeaderException {
-        if (requestInfo.getHeaders().containsKey(HttpHeaders.ACCEPT)) {
-            return bestMatchingMediaTypeBasedOnRequestAcceptHeader(requestInfo);
+        var acceptHeader = findHeaderIgnoringCase(requestInfo, HttpHeaders.ACCEPT);
+        if (acceptHeader.isPresent()) {
+            return bestMatchingMediaTypeBasedOnRequestAcceptHeader(acceptHeader.get());
         }
         return defaultResponseContentTypeWhenNotSpecifiedByClientRequest();
     }
 
-    private MediaType bestMatchingMediaTypeBasedOnRequestAcceptHeader(RequestInfo requestInfo)
+    /* default */ static Optional<String> findHeaderIgnoringCase(RequestInfo requestInfo, String header) {
+        return requestInfo.getHeaders().entrySet().stream()
+                   .filter(entry -> header.equalsIgnoreCase(entry.getKey()))
+                   .map(Map.Entry::getValue)
+                   .findFirst();
+    }
+
+    private MediaType bestMatchingMediaTypeBasedOnRequestAcceptHeader(String acceptHeader)
         throws UnsupportedAcceptHeaderException {
-        List<MediaType> acceptMediaTypes = parseAcceptHeader(requestInfo.getHeader(HttpHeaders.ACCEPT));
-        List<MediaType> matches = findMediaTypeMatches(acceptMediaTypes);
-        if (matches.isEmpty()) {
-            throw new UnsupportedAcceptHeaderException(acceptMediaTypes, listSupportedMediaTypes());
+        Optional<MediaType> negotiatedMediaType = negotiatedMediaTypes.get(acceptHeader);
+        if (isNull(negotiatedMediaType)) {
+            negotiatedMediaType = findMediaTypeMatches(parseAcceptHeader(acceptHeader)).stream().findFirst();
+            if (negotiatedMediaTypes.size() < MAX_CACHED_ACCEPT_HEADERS) {
+                negotiatedMediaTypes.put(acceptHeader, negotiatedMediaType);
+            }
         }
-        return matches.get(0);
+        return negotiatedMediaType.orElseThrow(
+            () -> new UnsupportedAcceptHeaderException(parseAcceptHeader(acceptHeader), listSupportedMediaTypes()));
     }
 
     private List<MediaType> parseAcceptHeader(String header) {
@@ -81,16 +118,44 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Finds the supported media types that the client accepts, ordered by the preference of the client. The
+     * preference for a media type is the quality value of the most specific media range that includes it, and media
+     * types with quality value 0 are not acceptable. Media types that the client prefers equally keep the order of
+     * {@link RestRequestHandler#listSupportedMediaTypes()}.
+     *
+     * @param acceptMediaTypes the media ranges of the Accept header.
+     * @return the acceptable supported media types, most preferred first.
+     */
     protected List<MediaType> findMediaTypeMatches(List<MediaType> acceptMediaTypes) {
         return listSupportedMediaTypes().stream()
-            .filter(mediaType -> inAcceptedMediaTypeRange(mediaType, acceptMediaTypes))
+            .filter(mediaType -> quality(mediaType, acceptMediaTypes) > NOT_ACCEPTABLE)
+            .sorted(Comparator.comparingDouble(
+                (MediaType mediaType) -> quality(mediaType, acceptMediaTypes)).reversed())
             .collect(Collectors.toList());
     }
 
-    private boolean inAcceptedMediaTypeRange(MediaType mediaType, List<MediaType> acceptMediaTypes) {
+    private static double quality(MediaType mediaType, List<MediaType> acceptMediaTypes) {
         return acceptMediaTypes.stream()
-                .map(MediaType::withoutParameters)
-                .anyMatch(mediaType::is);
+                   .filter(range -> mediaType.is(range.withoutParameters()))
+                   .max(Comparator.<MediaType>comparingInt(RestRequestHandler::specificity)
+                            .thenComparingDouble(RestRequestHandler::qualityValue))
+                   .map(RestRequestHandler::qualityValue)
+                   .orElse(NOT_ACCEPTABLE);
+    }
+
+    private static int specificity(MediaType range) {
+        if (WILDCARD.equals(range.type())) {
+            return 0;
+        }
+        return WILDCARD.equals(range.subtype()) ? 1 : 2;
+    }
+
+    private static double qualityValue(MediaType range) {
+        return range.parameters().get(QUALITY_PARAMETER).stream()
+                   .findFirst()
+                   .map(quality -> attempt(() -> Double.parseDouble(quality)).orElse(fail -> NOT_ACCEPTABLE))
+                   .orElse(DEFAULT_QUALITY);
     }
 
     /**
@@ -120,28 +185,145 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
     public RestRequestHandler(Class<I> iclass, Environment environment) {
         this.iclass = iclass;
         this.environment = environment;
+        this.inputParser.prepareBodyReader(iclass);
+        this.stackTraceSampler = StackTraceSampler.fromEnvironment(environment);
+        this.parsesInputFromString = overridesParseInputFromString(getClass());
+    }
+
+    /**
+     * Sets the sampler that decides when the stack traces of expected exceptions are logged. By default, the stack
+     * trace of each kind of expected exception is logged once per
+     * {@value StackTraceSampler#STACK_TRACE_SAMPLING_WINDOW_SECONDS_ENV} seconds, or once per minute when the
+     * environment variable is not set or invalid. A window of zero logs every stack trace.
+     *
+     * @param stackTraceSampler the stack trace sampler.
+     */
+    protected void setStackTraceSampler(StackTraceSampler stackTraceSampler) {
+        this.stackTraceSampler = stackTraceSampler;
+    }
+
+    /**
+     * Warms up the handler before its first request, so that the first request does not pay for one-time
+     * initialization such as the introspection of classes by Jackson. Call this method from the constructor of the
+     * handler, or from the {@code beforeCheckpoint} method of a CRaC resource when the function uses SnapStart.
+     *
+     * <p>The request from {@link RestRequestHandler#createPrimingRequest} is read and parsed, the content type of the
+     * response is negotiated, and a failure response is written to a stream that discards it. The request is only
+     * processed when {@link RestRequestHandler#primingRequestCanBeProcessed} is overridden to return true, since
+     * {@link RestRequestHandler#processInput} may have side effects. No metrics are published for the priming request.
+     *
+     * @throws IOException         when writing the response fails.
+     * @throws ApiGatewayException when the priming request cannot be parsed.
+     */
+    public void prime() throws IOException, ApiGatewayException {
+        var context = new PrimingContext();
+        invocationMetrics = InvocationMetrics.DISABLED;
+        if (primingRequestCanBeProcessed()) {
+            handleRequest(() -> readRequest(createPrimingRequest()), OutputStream.nullOutputStream(), context);
+            return;
+        }
+        init(OutputStream.nullOutputStream(), context);
+        JsonNode request = readRequest(createPrimingRequest());
+        I input = attempt(() -> parseInput(request)).orElseThrow(this::parsingExceptionToBadRequestException);
+        calculateContentTypeHeaderReturnValue(inputParser.getRequestInfo(request));
+        writeUnexpectedFailure(input, new IllegalStateException(PrimingContext.PRIMING_REQUEST_ID),
+                               context.getAwsRequestId());
+    }
+
+    /**
+     * Override this method to prime the handler with a request that resembles real requests more closely, e.g. with
+     * a body of the input class.
+     *
+     * @return an ApiGateway message for priming the handler.
+     */
+    protected InputStream createPrimingRequest() {
+        var request = RestConfig.defaultRestObjectMapper.createObjectNode();
+        request.put(RequestInfoConstants.HTTP_METHOD_FIELD, PRIMING_HTTP_METHOD);
+        request.put(RequestInfoConstants.PATH_FIELD, PRIMING_PATH);
+        request.putObject(RequestInfoConstants.HEADERS_FIELD)
+            .put(HttpHeaders.ACCEPT, defaultResponseContentTypeWhenNotSpecifiedByClientRequest().toString());
+        return new ByteArrayInputStream(request.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Override this method to return true when the priming request can be processed without side effects, so that
+     * {@link RestRequestHandler#prime} also warms up {@link RestRequestHandler#processInput} and the success response.
+     *
+     * @return true if the priming request should be processed.
+     */
+    protected boolean primingRequestCanBeProcessed() {
+        return false;
     }
 
     @Override
     public void handleRequest(InputStream inputStream, OutputStream outputStream, Context context) throws IOException {
         logger.info(REQUEST_ID + context.getAwsRequestId());
+        invocationMetrics = createInvocationMetrics(context);
+        handleRequest(() -> readRequest(invocationMetrics.countInput(inputStream)), outputStream, context);
+    }
+
+    private void handleRequest(RequestReader requestReader, OutputStream outputStream, Context context)
+        throws IOException {
         I inputObject = null;
         try {
-            init(outputStream, context);
-            String inputString = IoUtils.streamToString(inputStream);
-            inputObject = attempt(() -> parseInput(inputString))
+            init(invocationMetrics.countOutput(outputStream), context);
+            JsonNode request = requestReader.read();
+            invocationMetrics.phaseCompleted(Phase.READ_REQUEST);
+            inputObject = attempt(() -> parsesInputFromString ? parseInput(request.toString()) : parseInput(request))
                 .orElseThrow(this::parsingExceptionToBadRequestException);
+            invocationMetrics.phaseCompleted(Phase.PARSE_BODY);
 
-            RequestInfo requestInfo = inputParser.getRequestInfo(inputString);
-
-            O response = processInput(inputObject, requestInfo, context);
+            RequestInfo requestInfo = inputParser.getRequestInfo(request);
+            invocationMetrics.phaseCompleted(Phase.PARSE_REQUEST_INFO);
 
-            writeOutput(inputObject, response, requestInfo);
+            if (!respondWithoutProcessing(inputObject, requestInfo)) {
+                O response = processInput(inputObject, requestInfo, context);
+                invocationMetrics.phaseCompleted(Phase.PROCESS_INPUT);
+                invocationMetrics.setStatusCode(getSuccessStatusCode(inputObject, response));
+                writeOutput(inputObject, response, requestInfo);
+            }
+            invocationMetrics.phaseCompleted(Phase.WRITE_OUTPUT);
         } catch (ApiGatewayException e) {
+            invocationMetrics.setStatusCode(getFailureStatusCode(inputObject, e));
             handleExpectedException(context, inputObject, e);
         } catch (Exception e) {
+            invocationMetrics.setStatusCode(HttpURLConnection.HTTP_INTERNAL_ERROR);
             handleUnexpectedException(context, inputObject, e);
         }
+        invocationMetrics.invocationCompleted();
+    }
+
+    /**
+     * Handles an ApiGateway message that an {@link ApiGatewayRouter} has read, recording the time and the bytes of
+     * reading it in the metrics of the invocation.
+     */
+    /* default */ void handleRoutedRequest(JsonNode request, long readNanos, long inputBytes,
+                                           OutputStream outputStream, Context context) throws IOException {
+        logger.info(REQUEST_ID + context.getAwsRequestId());
+        invocationMetrics = createInvocationMetrics(context);
+        invocationMetrics.requestReadBeforeInvocation(readNanos, inputBytes);
+        handleRequest(() -> request, outputStream, context);
+    }
+
+    /**
+     * Creates the collector of metrics for an invocation. When the environment variable
+     * {@value METRICS_NAMESPACE_ENV} is set, the latency of each phase of the invocation and the sizes of the request
+     * and response are published as CloudWatch metrics in that namespace. Otherwise no metrics are collected. Override
+     * this method to publish the metrics elsewhere.
+     *
+     * @param context the Lambda context of the invocation.
+     * @return the collector of metrics for the invocation.
+     */
+    protected InvocationMetrics createInvocationMetrics(Context context) {
+        return environment.readEnvOpt(METRICS_NAMESPACE_ENV)
+                   .<InvocationMetrics>map(namespace -> new EmfInvocationMetrics(namespace, getClass().getName(),
+                                                                                 System.out, Clock.systemUTC()))
+                   .orElse(InvocationMetrics.DISABLED);
+    }
+
+    private JsonNode readRequest(InputStream inputStream) throws BadRequestException {
+        return attempt(() -> inputParser.parseRequest(inputStream))
+            .orElseThrow(fail -> new BadRequestException(fail.getException().getMessage(), fail.getException()));
     }
 
     protected ApiGatewayException parsingExceptionToBadRequestException(Failure<I> fail) {
@@ -158,7 +340,7 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
     protected void handleExpectedException(Context context, I inputObject, ApiGatewayException e)
         throws IOException {
         logger.warn(e.getMessage());
-        logger.warn(stackTraceInSingleLine(e));
+        stackTraceSampler.logIfSampled(logger, e);
         writeExpectedFailure(inputObject, e, context.getAwsRequestId());
     }
 
@@ -179,6 +361,21 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
      */
     protected abstract O processInput(I input, RequestInfo requestInfo, Context context) throws ApiGatewayException;
 
+    /**
+     * Called before {@link RestRequestHandler#processInput}. Override this method to answer requests that do not need
+     * processing, for example with "304 Not Modified" when the client already has the current version of a resource.
+     *
+     * @param input       the input object of class I.
+     * @param requestInfo Request headers and path.
+     * @return true if a response has been written and the input should not be processed, otherwise false.
+     * @throws IOException         when writing the response fails.
+     * @throws ApiGatewayException when the request should fail instead.
+     */
+    protected boolean respondWithoutProcessing(I input, RequestInfo requestInfo)
+        throws IOException, ApiGatewayException {
+        return false;
+    }
+
     /**
      * Define the response statusCode in case of failure.
      *
@@ -191,16 +388,50 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
     }
 
     /**
-     * Method for parsing the input object from the ApiGateway message.
+     * Method for parsing the input object from the ApiGateway message. The message has already been parsed once, and
+     * the same tree is used for creating the {@link RequestInfo}. Base64 encoded bodies with a Content-Type that has
+     * an object mapper for a binary format in {@link RestRequestHandler#getObjectMappers()}, such as CBOR, are parsed
+     * with that object mapper.
+     *
+     * @param request the ApiGateway message.
+     * @return an object of class I.
+     * @throws IOException when parsing fails.
+     */
+    protected I parseInput(JsonNode request) throws IOException {
+        var binaryMapper = inputParser.findBinaryBodyMapper(request, getObjectMappers());
+        return binaryMapper.isPresent()
+                   ? inputParser.getBodyElementFromBinary(request, binaryMapper.get(), getIClass())
+                   : inputParser.getBodyElementFromJson(request, getIClass());
+    }
+
+    /**
+     * Method for parsing the input object from the ApiGateway message as a string. Handlers that override this method
+     * are still given the message as a string, at the cost of serializing the already parsed message again.
      *
      * @param inputString the ApiGateway message.
      * @return an object of class I.
      * @throws IOException when parsing fails.
+     * @deprecated override {@link RestRequestHandler#parseInput(JsonNode)}, which gets the message without parsing it
+     *     again.
      */
+    @Deprecated
     protected I parseInput(String inputString) throws IOException {
         return inputParser.getBodyElementFromJson(inputString, getIClass());
     }
 
+    /**
+     * Override this method to set different object mappers for different media types. The object mapper of the
+     * negotiated media type is used for the response, and object mappers of binary formats are also used for request
+     * bodies with their media type as Content-Type. API Gateway must treat the media types of binary formats as binary
+     * media types, so that their bodies are passed base64 encoded.
+     *
+     * @return map of object mappers by media type
+     */
+    @JacocoGenerated
+    protected Map<MediaType, ObjectMapper> getObjectMappers() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Define the success status code.
      *
@@ -221,5 +452,21 @@ public abstract class RestRequestHandler<I, O> implements RequestStreamHandler {
     private Class<I> getIClass() {
         return iclass;
     }
+
+    private static boolean overridesParseInputFromString(Class<?> handlerClass) {
+        for (var type = handlerClass; !RestRequestHandler.class.equals(type); type = type.getSuperclass()) {
+            var declaringType = type;
+            if (attempt(() -> declaringType.getDeclaredMethod("parseInput", String.class)).isSuccess()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface RequestReader {
+
+        JsonNode read() throws ApiGatewayException;
+    }
 }
 
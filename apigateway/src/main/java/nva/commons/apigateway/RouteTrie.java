@@ -0,0 +1,151 @@
+package nva.commons.apigateway;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A trie over the segments of path templates such as {@code /publication/{identifier}/files/{proxy+}}, for finding
+ * the route of a request path without comparing the path to every template. Literal segments take precedence over
+ * path parameters, and path parameters over greedy path parameters, which match the rest of the path.
+ *
+ * @param <T> the type of the routes.
+ */
+final class RouteTrie<T> {
+
+    public static final String PATH_SEPARATOR = "/";
+    private static final String PARAMETER_START = "{";
+    private static final String PARAMETER_END = "}";
+    private static final String GREEDY_PARAMETER_END = "+}";
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Adds a route for an HTTP method and a path template.
+     *
+     * @param httpMethod   the HTTP method of the route.
+     * @param pathTemplate the path template of the route, with path parameters in curly brackets.
+     * @param route        the route.
+     * @throws IllegalArgumentException when the method and the template already have a route.
+     */
+    void add(String httpMethod, String pathTemplate, T route) {
+        var node = root;
+        for (var segment : segments(pathTemplate)) {
+            node = node.child(segment);
+        }
+        if (node.routes.putIfAbsent(httpMethod.toUpperCase(Locale.ROOT), route) != null) {
+            throw new IllegalArgumentException("Duplicate route: " + httpMethod + " " + pathTemplate);
+        }
+    }
+
+    /**
+     * Finds the route of a request.
+     *
+     * @param path the path of the request.
+     * @return the routes of all HTTP methods for the most specific path template that matches the path, together with
+     *     the values of its path parameters, or empty when no template matches the path.
+     */
+    Optional<Match<T>> find(String path) {
+        var pathParameters = new HashMap<String, String>();
+        return Optional.ofNullable(root.find(segments(path), 0, pathParameters))
+                   .map(node -> new Match<>(node.routes, pathParameters));
+    }
+
+    private static List<String> segments(String path) {
+        var segments = new ArrayList<String>();
+        for (var segment : path.split(PATH_SEPARATOR)) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * The routes of a path template that matches a request path, and the values of the path parameters.
+     */
+    static final class Match<T> {
+
+        private final Map<String, T> routes;
+        private final Map<String, String> pathParameters;
+
+        private Match(Map<String, T> routes, Map<String, String> pathParameters) {
+            this.routes = routes;
+            this.pathParameters = pathParameters;
+        }
+
+        Optional<T> getRoute(String httpMethod) {
+            return Optional.ofNullable(routes.get(httpMethod.toUpperCase(Locale.ROOT)));
+        }
+
+        Set<String> getHttpMethods() {
+            return Collections.unmodifiableSet(routes.keySet());
+        }
+
+        Map<String, String> getPathParameters() {
+            return pathParameters;
+        }
+    }
+
+    private static final class Node<T> {
+
+        private final Map<String, Node<T>> literalChildren = new HashMap<>();
+        private final Map<String, T> routes = new HashMap<>();
+        private String parameterName;
+        private Node<T> parameterChild;
+        private String greedyParameterName;
+        private Node<T> greedyChild;
+
+        private Node<T> child(String segment) {
+            if (segment.startsWith(PARAMETER_START) && segment.endsWith(GREEDY_PARAMETER_END)) {
+                greedyParameterName = checkedParameterName(greedyParameterName, segment, GREEDY_PARAMETER_END);
+                greedyChild = Optional.ofNullable(greedyChild).orElseGet(Node::new);
+                return greedyChild;
+            }
+            if (segment.startsWith(PARAMETER_START) && segment.endsWith(PARAMETER_END)) {
+                parameterName = checkedParameterName(parameterName, segment, PARAMETER_END);
+                parameterChild = Optional.ofNullable(parameterChild).orElseGet(Node::new);
+                return parameterChild;
+            }
+            return literalChildren.computeIfAbsent(segment, key -> new Node<>());
+        }
+
+        // API Gateway does not allow path parameters with different names in the same position either.
+        private static String checkedParameterName(String existingName, String segment, String parameterEnd) {
+            var name = segment.substring(PARAMETER_START.length(), segment.length() - parameterEnd.length());
+            if (existingName != null && !existingName.equals(name)) {
+                throw new IllegalArgumentException("Conflicting path parameters: " + existingName + " and " + name);
+            }
+            return name;
+        }
+
+        private Node<T> find(List<String> segments, int index, Map<String, String> pathParameters) {
+            if (index == segments.size()) {
+                return routes.isEmpty() ? null : this;
+            }
+            var segment = segments.get(index);
+            var literalMatch = Optional.ofNullable(literalChildren.get(segment))
+                                   .map(child -> child.find(segments, index + 1, pathParameters));
+            if (literalMatch.isPresent()) {
+                return literalMatch.get();
+            }
+            if (parameterChild != null) {
+                var parameterMatch = parameterChild.find(segments, index + 1, pathParameters);
+                if (parameterMatch != null) {
+                    pathParameters.put(parameterName, segment);
+                    return parameterMatch;
+                }
+            }
+            if (greedyChild != null && !greedyChild.routes.isEmpty()) {
+                pathParameters.put(greedyParameterName,
+                                   String.join(PATH_SEPARATOR, segments.subList(index, segments.size())));
+                return greedyChild;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package nva.commons.apigateway;
+
+import static java.util.Objects.isNull;
+import static nva.commons.core.attempt.Try.attempt;
+import static nva.commons.core.exceptions.ExceptionUtils.stackTraceInSingleLine;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides when the stack trace of an exception should be logged. Exceptions are fingerprinted by their class, the top
+ * frames of their stack trace and the classes of their causes, and the stack trace of each fingerprint is logged once
+ * per time window. The other occurrences of the fingerprint in the window are only counted, so that routine failures,
+ * such as requests for resources that do not exist, do not fill the logs with identical stack traces.
+ *
+ * <p>A sampler with a window of zero logs every stack trace.
+ */
+public class StackTraceSampler {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+    public static final int FINGERPRINT_FRAMES = 3;
+    public static final int FINGERPRINT_CAUSES = 8;
+    public static final String STACK_TRACE_SAMPLING_WINDOW_SECONDS_ENV = "STACK_TRACE_SAMPLING_WINDOW_SECONDS";
+    public static final String SAMPLED_STACK_TRACE_MESSAGE = "Stack trace of {} omitted, seen {} times since {}";
+    public static final String INVALID_WINDOW_MESSAGE = "Invalid {}: {}. Using the default window of {}";
+    private static final Logger logger = LoggerFactory.getLogger(StackTraceSampler.class);
+    private static final int MAX_FINGERPRINTS = 1024;
+    private static final char FRAME_SEPARATOR = ',';
+    private static final char STACK_TRACE_SEPARATOR = '@';
+    private static final String CAUSE_SEPARATOR = "<-";
+    private final Duration window;
+    private final Clock clock;
+    private final Map<String, Sample> samples;
+
+    @JacocoGenerated
+    public StackTraceSampler() {
+        this(DEFAULT_WINDOW, Clock.systemUTC());
+    }
+
+    public StackTraceSampler(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+        this.samples = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a sampler with the window in the environment variable {@value STACK_TRACE_SAMPLING_WINDOW_SECONDS_ENV},
+     * or with the {@link StackTraceSampler#DEFAULT_WINDOW} when the variable is not set or is not a number of seconds.
+     *
+     * @param environment the environment of the handler.
+     * @return the sampler.
+     */
+    public static StackTraceSampler fromEnvironment(Environment environment) {
+        var window = Optional.ofNullable(environment)
+                         .flatMap(env -> env.readEnvOpt(STACK_TRACE_SAMPLING_WINDOW_SECONDS_ENV))
+                         .map(StackTraceSampler::parseWindow)
+                         .orElse(DEFAULT_WINDOW);
+        return new StackTraceSampler(window, Clock.systemUTC());
+    }
+
+    /**
+     * Logs the stack trace of an exception when it is the first occurrence of its fingerprint in the window, and a
+     * count of the occurrences otherwise. Exceptions without a stack trace and without a cause are not logged.
+     *
+     * @param log       the logger of the caller.
+     * @param exception the exception that has occurred.
+     */
+    public void logIfSampled(Logger log, Exception exception) {
+        if (exception.getStackTrace().length == 0 && isNull(exception.getCause())) {
+            return;
+        }
+        var sample = sample(exception);
+        if (sample.isStackTraceLogged()) {
+            log.warn(stackTraceInSingleLine(exception));
+        } else {
+            log.warn(SAMPLED_STACK_TRACE_MESSAGE, sample.getFingerprint(), sample.getOccurrences(),
+                     sample.getWindowStart());
+        }
+    }
+
+    /**
+     * Counts an occurrence of an exception.
+     *
+     * @param exception the exception that has occurred.
+     * @return the sample of the fingerprint of the exception, telling whether its stack trace should be logged.
+     */
+    public Sample sample(Throwable exception) {
+        var fingerprint = fingerprint(exception);
+        if (window.isZero()) {
+            return new Sample(fingerprint, clock.instant(), 1);
+        }
+        if (samples.size() >= MAX_FINGERPRINTS && !samples.containsKey(fingerprint)) {
+            samples.clear();
+        }
+        var now = clock.instant();
+        return samples.compute(fingerprint, (key, sample) -> sample == null || sample.hasExpired(now, window)
+                                                                 ? new Sample(key, now, 1)
+                                                                 : sample.next());
+    }
+
+    /**
+     * Creates the fingerprint of an exception from its class, the top {@value FINGERPRINT_FRAMES} frames of its stack
+     * trace and the classes of its first {@value FINGERPRINT_CAUSES} causes, so that a cycle of causes ends the
+     * fingerprint. Exceptions that are thrown from the same place for the same reason have the same fingerprint,
+     * regardless of their messages.
+     *
+     * @param exception the exception.
+     * @return the fingerprint of the exception.
+     */
+    public static String fingerprint(Throwable exception) {
+        var fingerprint = new StringBuilder(exception.getClass().getName()).append(STACK_TRACE_SEPARATOR);
+        var frames = exception.getStackTrace();
+        for (int i = 0; i < Math.min(FINGERPRINT_FRAMES, frames.length); i++) {
+            fingerprint.append(frames[i]).append(FRAME_SEPARATOR);
+        }
+        var cause = exception.getCause();
+        for (int depth = 0; depth < FINGERPRINT_CAUSES && cause != null; depth++) {
+            fingerprint.append(CAUSE_SEPARATOR).append(cause.getClass().getName());
+            cause = cause.getCause();
+        }
+        return fingerprint.toString();
+    }
+
+    private static Duration parseWindow(String seconds) {
+        return attempt(() -> Duration.ofSeconds(Long.parseLong(seconds.trim())))
+                   .toOptional(fail -> logger.warn(INVALID_WINDOW_MESSAGE, STACK_TRACE_SAMPLING_WINDOW_SECONDS_ENV,
+                                                   seconds, DEFAULT_WINDOW))
+                   .orElse(DEFAULT_WINDOW);
+    }
+
+    /**
+     * The occurrences of a fingerprint in the current time window.
+     */
+    public static final class Sample {
+
+        private final String fingerprint;
+        private final Instant windowStart;
+        private final long occurrences;
+
+        private Sample(String fingerprint, Instant windowStart, long occurrences) {
+            this.fingerprint = fingerprint;
+            this.windowStart = windowStart;
+            this.occurrences = occurrences;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public Instant getWindowStart() {
+            return windowStart;
+        }
+
+        public long getOccurrences() {
+            return occurrences;
+        }
+
+        /**
+         * The stack trace is logged for the first occurrence of the fingerprint in the window.
+         *
+         * @return whether the stack trace of the exception should be logged.
+         */
+        public boolean isStackTraceLogged() {
+            return occurrences == 1;
+        }
+
+        private Sample next() {
+            return new Sample(fingerprint, windowStart, occurrences + 1);
+        }
+
+        private boolean hasExpired(Instant now, Duration window) {
+            return !now.isBefore(windowStart.plus(window));
+        }
+    }
+}
@@ -24,6 +24,19 @@ public abstract class ApiGatewayException extends Exception {
         super(message, exception);
     }
 
+    /**
+     * Constructor for exceptions that may skip capturing the stack trace. Capturing the stack trace is the most
+     * expensive part of creating an exception, and the stack trace of a routine failure, such as a request for a
+     * resource that does not exist, is rarely of interest. The stack trace of the cause is still captured.
+     *
+     * @param message            the message of the exception.
+     * @param cause              the cause of the exception, or null.
+     * @param writableStackTrace whether the stack trace should be captured.
+     */
+    protected ApiGatewayException(String message, Exception cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+    }
+
     protected abstract Integer statusCode();
 
     /**
@@ -0,0 +1,15 @@
+package nva.commons.apigateway.exceptions;
+
+import java.net.HttpURLConnection;
+
+public class PreconditionFailedException extends ApiGatewayException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    @Override
+    protected Integer statusCode() {
+        return HttpURLConnection.HTTP_PRECON_FAILED;
+    }
+}
@@ -3,22 +3,31 @@ package nva.commons.apigateway;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
 import static no.unit.nva.testutils.RandomDataGenerator.objectMapper;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
 import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static nva.commons.apigateway.ApiGatewayHandler.REQUEST_ID;
+import static nva.commons.apigateway.ApiGatewayHandler.UNSCOPED;
 import static nva.commons.apigateway.MediaTypes.APPLICATION_PROBLEM_JSON;
 import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
+import static nva.commons.core.attempt.Try.attempt;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -30,17 +39,27 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 import javax.management.modelmbean.XMLParseException;
 import no.unit.nva.stubs.FakeContext;
 import no.unit.nva.testutils.HandlerRequestBuilder;
@@ -51,6 +70,7 @@ import nva.commons.apigateway.testutils.Handler;
 import nva.commons.apigateway.testutils.RawStringResponseHandler;
 import nva.commons.apigateway.testutils.RedirectHandler;
 import nva.commons.apigateway.testutils.RequestBody;
+import nva.commons.core.Environment;
 import nva.commons.core.ioutils.IoUtils;
 import nva.commons.logutils.LogUtils;
 import nva.commons.logutils.TestAppender;
@@ -181,6 +201,25 @@ class ApiGatewayHandlerTest {
         assertThat(response.getHeaders().get(CONTENT_TYPE), is(equalTo(mediaType)));
     }
 
+    @Test
+    void shouldReturnSupportedMediaTypeWithHighestQualityValueInAcceptHeader() throws IOException {
+        Handler handler = handlerThatOverridesListSupportedMediaTypes();
+        var acceptHeader = "application/json;q=0.5, " + MediaTypes.APPLICATION_JSON_LD + ";q=0.9, */*;q=0.1";
+
+        for (var attempt = 0; attempt < 2; attempt++) {
+            var response = getStringResponse(requestWithAcceptHeader(acceptHeader), handler);
+            assertThat(response.getHeaders().get(CONTENT_TYPE), is(equalTo(MediaTypes.APPLICATION_JSON_LD.toString())));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"application/json;q=0, */*", "application/json;q=invalid"})
+    void shouldNotReturnMediaTypeThatTheClientDoesNotAccept(String acceptHeader) throws IOException {
+        var response = getStringResponse(requestWithAcceptHeader(acceptHeader), handler);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_UNSUPPORTED_TYPE)));
+    }
+
     @Test
     @DisplayName("handleRequest should have available the request path")
     public void handleRequestShouldHaveAvailableTheRequestPath() throws IOException {
@@ -247,6 +286,56 @@ class ApiGatewayHandlerTest {
         assertThat(logs, containsString(BOTTOM_EXCEPTION_MESSAGE));
     }
 
+    @Test
+    void shouldLogStackTraceOfRepeatedExpectedExceptionOncePerSamplingWindow() throws IOException {
+        TestAppender appender = LogUtils.getTestingAppenderForRootLogger();
+        Handler handler = handlerThatThrowsExceptions();
+
+        handler.handleRequest(requestWithHeadersAndPath(), outputStream(), context);
+        handler.handleRequest(requestWithHeadersAndPath(), outputStream(), context);
+
+        String logs = appender.getMessages();
+        assertThat(logs, containsString(XMLParseException.class.getName()));
+        assertThat(logs, containsString("omitted, seen 2 times"));
+    }
+
+    @Test
+    void shouldLogEveryStackTraceWhenSamplingWindowIsZero() throws IOException {
+        TestAppender appender = LogUtils.getTestingAppenderForRootLogger();
+        Handler handler = handlerThatThrowsExceptions();
+        handler.setStackTraceSampler(new StackTraceSampler(Duration.ZERO, Clock.systemUTC()));
+
+        handler.handleRequest(requestWithHeadersAndPath(), outputStream(), context);
+        handler.handleRequest(requestWithHeadersAndPath(), outputStream(), context);
+
+        assertThat(appender.getMessages(), not(containsString("omitted")));
+    }
+
+    @Test
+    void shouldNotLogStackTraceOfExpectedExceptionWithoutStackTrace() throws IOException {
+        TestAppender appender = LogUtils.getTestingAppenderForRootLogger();
+        var exception = new ApiGatewayException(TOP_EXCEPTION_MESSAGE, null, false) {
+            @Override
+            protected Integer statusCode() {
+                return HttpURLConnection.HTTP_NOT_FOUND;
+            }
+        };
+        Handler handler = new Handler() {
+            @Override
+            protected RequestBody processInput(RequestBody input, RequestInfo requestInfo, Context context)
+                throws ApiGatewayException {
+                throw exception;
+            }
+        };
+
+        var response = getProblemResponse(requestWithHeadersAndPath(), handler);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_FOUND)));
+        assertThat(exception.getStackTrace().length, is(equalTo(0)));
+        assertThat(appender.getMessages(), containsString(TOP_EXCEPTION_MESSAGE));
+        assertThat(appender.getMessages(), not(containsString(exception.getClass().getName())));
+    }
+
     @Test
     @DisplayName("Handler does not reveal information for runtime exceptions")
     public void handlerDoesNotRevealInformationForRuntimeExceptions() throws IOException {
@@ -349,6 +438,32 @@ class ApiGatewayHandlerTest {
         assertThat(problem.getDetail(), containsString(expectedMessage));
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    void handlerParsesInputWithTheStringParserWhenHandlerOverridesIt() throws IOException {
+        var parsedInputs = new ArrayList<String>();
+        Handler handler = new Handler() {
+            @Override
+            protected RequestBody parseInput(String inputString) throws IOException {
+                parsedInputs.add(inputString);
+                return super.parseInput(inputString);
+            }
+        };
+        GatewayResponse<RequestBody> response = getResponse(RequestBody.class, requestWithHeadersAndPath(), handler);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThat(parsedInputs.size(), is(equalTo(1)));
+        assertThat(defaultRestObjectMapper.readTree(parsedInputs.get(0)).has("headers"), is(true));
+    }
+
+    @Test
+    void handlerReturnsBadRequestWhenRequestIsNotValidJson() throws IOException {
+        InputStream input = IoUtils.stringToStream("not a json request");
+        GatewayResponse<Problem> response = getProblemResponse(input, handler);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    }
+
     @Test
     void handlerSerializesBodyWithNonDefaultSerializationWhenDefaultSerializerIsOverridden() throws IOException {
         ObjectMapper spiedMapper = spy(defaultRestObjectMapper);
@@ -356,7 +471,389 @@ class ApiGatewayHandlerTest {
         var inputStream = requestWithHeaders();
         var outputStream = outputStream();
         handler.handleRequest(inputStream, outputStream, context);
-        verify(spiedMapper, atLeast(1)).writeValueAsString(any());
+        verify(spiedMapper, atLeast(1)).writer();
+    }
+
+    @Test
+    void handlerWritesResponseWithoutIndentationByDefault() throws IOException {
+        var handler = new Handler();
+        var outputStream = outputStream();
+        handler.handleRequest(requestWithHeaders(), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8), not(containsString(System.lineSeparator())));
+        assertThat(response.getBody(), not(containsString(System.lineSeparator())));
+    }
+
+    @Test
+    void handlerWritesResponseWithIndentationWhenPrettyPrintIsRequested() throws IOException {
+        var handler = new Handler();
+        var request = defaultRestObjectMapper.createObjectNode();
+        request.set("body", createBody());
+        request.set("headers", createHeaders());
+        request.set("queryStringParameters", defaultRestObjectMapper.createObjectNode()
+                                                  .put(ApiGatewayHandler.PRETTY_PRINT_QUERY_PARAMETER, "true"));
+        var outputStream = outputStream();
+        handler.handleRequest(jsonNodeToInputStream(request), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        assertThat(response.getBody(), containsString(System.lineSeparator()));
+    }
+
+    @Test
+    void handlerCompressesResponseWhenCompressionIsEnabledAndClientAcceptsCompressedContent() throws IOException {
+        var handler = new Handler(environmentWithCompressionThreshold());
+        var outputStream = outputStream();
+        var request = requestWithHeaders(Map.of(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+        handler.handleRequest(request, outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        var compressedBody = Base64.getDecoder().decode(response.getBody());
+        var body = new GZIPInputStream(new ByteArrayInputStream(compressedBody)).readAllBytes();
+
+        assertThat(response.isBase64Encoded(), is(true));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+        assertThat(dtoObjectMapper.readValue(body, RequestBody.class),
+                   is(equalTo(objectMapper.convertValue(createBody(), RequestBody.class))));
+    }
+
+    @Test
+    void handlerDoesNotCompressResponseWhenClientDoesNotAcceptCompressedContent() throws IOException {
+        var handler = new Handler(environmentWithCompressionThreshold());
+        var outputStream = outputStream();
+        handler.handleRequest(requestWithHeaders(), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, RequestBody.class);
+
+        assertThat(response.isBase64Encoded(), is(false));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+        assertThat(response.getHeaders(), not(hasKey(HttpHeaders.CONTENT_ENCODING)));
+    }
+
+    @Test
+    void handlerAnswersWithNotModifiedWithoutProcessingInputWhenClientHasTheVersionFromGetETag()
+        throws IOException {
+        var version = randomString();
+        var handler = handlerWithETag(version);
+        var outputStream = outputStream();
+        handler.handleRequest(requestWithHeaders(Map.of(HttpHeaders.IF_NONE_MATCH, "\"" + version + "\"")),
+                              outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_MODIFIED)));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.ETAG, "\"" + version + "\""));
+        assertThat(response.getHeaders(), not(hasKey(HttpHeaders.CONTENT_TYPE)));
+        assertThat(response.getBody(), is(emptyString()));
+        assertThat(handler.getBody(), is(nullValue()));
+    }
+
+    @Test
+    void handlerAnswersWithPreconditionFailedWithoutProcessingInputWhenUnsafeRequestMatchesIfNoneMatch()
+        throws IOException {
+        var handler = handlerWithETag(randomString());
+        var request = defaultRestObjectMapper.createObjectNode();
+        request.set("body", createBody());
+        request.set("headers", createHeaders(Map.of(HttpHeaders.IF_NONE_MATCH, "*")));
+        request.put("httpMethod", "PUT");
+        var outputStream = outputStream();
+        handler.handleRequest(jsonNodeToInputStream(request), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_PRECON_FAILED)));
+        assertThat(handler.getBody(), is(nullValue()));
+    }
+
+    @Test
+    void handlerReturnsETagFromGetETagWhenClientDoesNotHaveTheVersion() throws IOException {
+        var version = randomString();
+        var handler = handlerWithETag(version);
+        var outputStream = outputStream();
+        handler.handleRequest(requestWithHeaders(Map.of(HttpHeaders.IF_NONE_MATCH, "\"" + randomString() + "\"")),
+                              outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, RequestBody.class);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.ETAG, "\"" + version + "\""));
+    }
+
+    @Test
+    void handlerReturnsETagSetWhileProcessingInput() throws IOException {
+        var version = randomString();
+        var handler = new Handler() {
+            @Override
+            protected RequestBody processInput(RequestBody input, RequestInfo requestInfo, Context context)
+                throws ApiGatewayException {
+                setETag(version);
+                return super.processInput(input, requestInfo, context);
+            }
+        };
+        var outputStream = outputStream();
+        handler.handleRequest(requestWithHeaders(Map.of(HttpHeaders.IF_NONE_MATCH, "W/\"" + version + "\"")),
+                              outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, Void.class);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_MODIFIED)));
+    }
+
+    @Test
+    void handlerReturnsETagFromBodyForGetRequestsWhenEnabled() throws IOException {
+        var handler = new Handler(environmentWithETagFromBody());
+        var outputStream = outputStream();
+        handler.handleRequest(getRequestWithHeaders(Map.of()), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        var expectedETag = ETags.fromBody(response.getBody().getBytes(StandardCharsets.UTF_8));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.ETAG, expectedETag));
+
+        var secondOutputStream = outputStream();
+        new Handler(environmentWithETagFromBody())
+            .handleRequest(getRequestWithHeaders(Map.of(HttpHeaders.IF_NONE_MATCH, expectedETag)),
+                           secondOutputStream, context);
+        var secondResponse = GatewayResponse.fromOutputStream(secondOutputStream, String.class);
+        assertThat(secondResponse.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_MODIFIED)));
+        assertThat(secondResponse.getBody(), is(emptyString()));
+    }
+
+    @Test
+    void handlerDoesNotReturnETagFromBodyWhenNotEnabled() throws IOException {
+        var handler = new Handler();
+        var outputStream = outputStream();
+        handler.handleRequest(getRequestWithHeaders(Map.of()), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, RequestBody.class);
+        assertThat(response.getHeaders(), not(hasKey(HttpHeaders.ETAG)));
+    }
+
+    @Test
+    void handlerRedirectsToOffloadedOutputWhenOutputIsLargerThanTheOffloadThreshold() throws IOException {
+        var offloadedBodies = new ConcurrentHashMap<String, byte[]>();
+        var location = URI.create("https://example.org/" + randomString());
+        var handler = new Handler(environmentWithOffloadThreshold("0"));
+        handler.setResponseOffloader((serializedBody, contentType) -> {
+            offloadedBodies.put(contentType, serializedBody);
+            return location;
+        });
+        var outputStream = outputStream();
+        handler.handleRequest(requestWithHeaders(), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, Void.class);
+        var offloadedBody = offloadedBodies.get(MediaType.JSON_UTF_8.toString());
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_SEE_OTHER)));
+        assertThat(response.getHeaders().get(HttpHeaders.LOCATION), is(equalTo(location.toString())));
+        assertThat(response.getHeaders(), not(hasKey(CONTENT_TYPE)));
+        assertThat(dtoObjectMapper.readValue(offloadedBody, RequestBody.class),
+                   is(equalTo(objectMapper.convertValue(createBody(), RequestBody.class))));
+    }
+
+    @Test
+    void handlerReturnsOutputDirectlyWhenOutputIsSmallerThanTheOffloadThreshold() throws IOException {
+        var handler = new Handler(environmentWithOffloadThreshold(String.valueOf(Integer.MAX_VALUE)));
+        handler.setResponseOffloader((serializedBody, contentType) -> {
+            throw new IllegalStateException("The output should not be offloaded");
+        });
+        var outputStream = outputStream();
+        handler.handleRequest(requestWithHeaders(), outputStream, context);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, RequestBody.class);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThat(response.getBodyObject(RequestBody.class),
+                   is(equalTo(objectMapper.convertValue(createBody(), RequestBody.class))));
+    }
+
+    @Test
+    void handlerPublishesMetricsOfInvocationWithStatusCodeOfResponse() throws IOException {
+        var logOutput = new ByteArrayOutputStream();
+        var version = randomString();
+        var handler = new Handler() {
+            @Override
+            protected InvocationMetrics createInvocationMetrics(Context context) {
+                return new EmfInvocationMetrics(randomString(), randomString(),
+                                                new PrintStream(logOutput, true, StandardCharsets.UTF_8),
+                                                Clock.systemUTC());
+            }
+
+            @Override
+            protected Optional<String> getETag(RequestBody input, RequestInfo requestInfo) {
+                return Optional.of(version);
+            }
+        };
+        handler.handleRequest(requestWithHeaders(), outputStream(), context);
+        var okMetrics = defaultRestObjectMapper.readTree(logOutput.toString(StandardCharsets.UTF_8));
+        logOutput.reset();
+        handler.handleRequest(requestWithHeaders(Map.of(HttpHeaders.IF_NONE_MATCH, "\"" + version + "\"")),
+                              outputStream(), context);
+        var notModifiedMetrics = defaultRestObjectMapper.readTree(logOutput.toString(StandardCharsets.UTF_8));
+
+        assertThat(okMetrics.get(EmfInvocationMetrics.STATUS_CODE_DIMENSION).asText(), is(equalTo("200")));
+        assertThat(okMetrics.get(EmfInvocationMetrics.OUTPUT_BYTES_METRIC).asInt(), is(greaterThan(0)));
+        assertThat(okMetrics.has("ProcessInputLatency"), is(true));
+        assertThat(notModifiedMetrics.get(EmfInvocationMetrics.STATUS_CODE_DIMENSION).asText(), is(equalTo("304")));
+        assertThat(notModifiedMetrics.has("ProcessInputLatency"), is(false));
+    }
+
+    @Test
+    void handlerPublishesMetricsOnlyWhenMetricsNamespaceIsSet() {
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(RestRequestHandler.METRICS_NAMESPACE_ENV)).thenReturn(Optional.of(randomString()));
+
+        assertThat(new Handler(environment).createInvocationMetrics(context), is(instanceOf(EmfInvocationMetrics.class)));
+        assertThat(new Handler(mock(Environment.class)).createInvocationMetrics(context),
+                   is(equalTo(InvocationMetrics.DISABLED)));
+    }
+
+    @Test
+    void handlerReturnsCachedResponseWithoutProcessingInputWhenSafeRequestIsRepeated() throws IOException {
+        var responseCache = new ResponseCache();
+        var processedInputs = new AtomicInteger();
+        var handler = handlerWithResponseCache(responseCache, processedInputs, UNSCOPED);
+        var first = getResponse(RequestBody.class, getRequestWithHeaders(Map.of()), handler);
+        var second = getResponse(RequestBody.class, getRequestWithHeaders(Map.of()), handler);
+
+        assertThat(processedInputs.get(), is(equalTo(1)));
+        assertThat(second.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThat(second.getBody(), is(equalTo(first.getBody())));
+        assertThat(second.getHeaders(), is(equalTo(first.getHeaders())));
+        assertThat(responseCache.getHitCount(), is(equalTo(1L)));
+        assertThat(responseCache.getMissCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    void handlerDoesNotReturnCachedResponseToRequestWithOtherScope() throws IOException {
+        var responseCache = new ResponseCache();
+        var processedInputs = new AtomicInteger();
+        getResponse(RequestBody.class, getRequestWithHeaders(Map.of()),
+                    handlerWithResponseCache(responseCache, processedInputs, randomString()));
+        getResponse(RequestBody.class, getRequestWithHeaders(Map.of()),
+                    handlerWithResponseCache(responseCache, processedInputs, randomString()));
+
+        assertThat(processedInputs.get(), is(equalTo(2)));
+        assertThat(responseCache.getHitCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    void handlerDoesNotCacheResponsesToUnsafeRequests() throws IOException {
+        var responseCache = new ResponseCache();
+        var processedInputs = new AtomicInteger();
+        var handler = handlerWithResponseCache(responseCache, processedInputs, UNSCOPED);
+        getResponse(RequestBody.class, requestWithHeaders(), handler);
+        getResponse(RequestBody.class, requestWithHeaders(), handler);
+
+        assertThat(processedInputs.get(), is(equalTo(2)));
+        assertThat(responseCache.getUsedBytes(), is(equalTo(0L)));
+    }
+
+    @Test
+    void handlerAnswersRequestWithNotModifiedWhenCachedResponseHasMatchingETag() throws IOException {
+        var responseCache = new ResponseCache();
+        var handler = handlerWithResponseCache(responseCache, new AtomicInteger(), UNSCOPED);
+        handler.handleRequest(getRequestWithHeaders(Map.of()), outputStream(), context);
+        var etag = ETags.fromBody(responseCache.get(cacheKeyOfRequestWithoutParameters()).orElseThrow()
+                                      .getSerializedBody());
+        var response = getResponse(String.class, getRequestWithHeaders(Map.of(HttpHeaders.IF_NONE_MATCH, etag)),
+                                   handler);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_MODIFIED)));
+        assertThat(response.getBody(), is(emptyString()));
+    }
+
+    @Test
+    void handlerParsesAndReturnsCborBodiesWhenHandlerHasCborObjectMapper() throws IOException {
+        var body = new RequestBody(randomString(), randomString());
+        var request = defaultRestObjectMapper.createObjectNode();
+        request.put("body", Base64.getEncoder().encodeToString(RestConfig.cborObjectMapper.writeValueAsBytes(body)));
+        request.put(GatewayResponse.IS_BASE64_ENCODED_FIELD, true);
+        request.set("headers", createHeaders(Map.of(CONTENT_TYPE, MediaTypes.APPLICATION_CBOR.toString(),
+                                                    HttpHeaders.ACCEPT, MediaTypes.APPLICATION_CBOR.toString())));
+        var response = getResponse(String.class, jsonNodeToInputStream(request), handlerWithCborObjectMapper());
+        var responseBody = Base64.getDecoder().decode(response.getBody());
+
+        assertThat(response.isBase64Encoded(), is(true));
+        assertThat(response.getHeaders(), hasEntry(CONTENT_TYPE, MediaTypes.APPLICATION_CBOR.toString()));
+        assertThat(RestConfig.cborObjectMapper.readValue(responseBody, RequestBody.class), is(equalTo(body)));
+    }
+
+    @Test
+    void handlerWithCborObjectMapperReturnsJsonWhenClientDoesNotAcceptCbor() throws IOException {
+        var response = getResponse(RequestBody.class, requestWithHeaders(), handlerWithCborObjectMapper());
+
+        assertThat(response.isBase64Encoded(), is(false));
+        assertThat(response.getBodyObject(RequestBody.class),
+                   is(equalTo(objectMapper.convertValue(createBody(), RequestBody.class))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void handlerWritesOnlyPropertiesInFieldsQueryParameter(boolean prettyPrint) throws IOException {
+        var request = defaultRestObjectMapper.createObjectNode();
+        request.set("body", createBody());
+        request.set("headers", createHeaders());
+        request.set("queryStringParameters",
+                    defaultRestObjectMapper.valueToTree(Map.of(ApiGatewayHandler.FIELDS_QUERY_PARAMETER,
+                                                               RequestBody.FIELD1,
+                                                               ApiGatewayHandler.PRETTY_PRINT_QUERY_PARAMETER,
+                                                               String.valueOf(prettyPrint))));
+        var response = getResponse(JsonNode.class, jsonNodeToInputStream(request), handler);
+        var body = response.getBodyObject(JsonNode.class);
+
+        assertThat(body.has(RequestBody.FIELD1), is(true));
+        assertThat(body.has(RequestBody.FIELD2), is(false));
+        assertThat(body.has(RequestBody.EMPTY_LIST), is(false));
+    }
+
+    @Test
+    void primeShouldWarmUpHandlerWithoutProcessingInputByDefault() throws IOException, ApiGatewayException {
+        var handler = new Handler();
+        handler.prime();
+
+        assertThat(handler.getBody(), is(nullValue()));
+        var response = getResponse(RequestBody.class, requestWithHeaders(), handler);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    }
+
+    @Test
+    void primeShouldProcessPrimingRequestWhenHandlerAllowsIt() throws IOException, ApiGatewayException {
+        var handler = new Handler() {
+            @Override
+            protected boolean primingRequestCanBeProcessed() {
+                return true;
+            }
+
+            @Override
+            protected InputStream createPrimingRequest() {
+                return attempt(() -> requestWithHeaders()).orElseThrow();
+            }
+        };
+        handler.prime();
+
+        assertThat(handler.getBody(), is(equalTo(objectMapper.convertValue(createBody(), RequestBody.class))));
+    }
+
+    @Test
+    void primeShouldNotPublishMetricsForPrimingRequest() throws IOException, ApiGatewayException {
+        var createdMetrics = new AtomicInteger();
+        var handler = new Handler() {
+            @Override
+            protected boolean primingRequestCanBeProcessed() {
+                return true;
+            }
+
+            @Override
+            protected InputStream createPrimingRequest() {
+                return attempt(() -> requestWithHeaders()).orElseThrow();
+            }
+
+            @Override
+            protected InvocationMetrics createInvocationMetrics(Context context) {
+                createdMetrics.incrementAndGet();
+                return super.createInvocationMetrics(context);
+            }
+        };
+        handler.prime();
+
+        assertThat(handler.getBody(), is(equalTo(objectMapper.convertValue(createBody(), RequestBody.class))));
+        assertThat(createdMetrics.get(), is(equalTo(0)));
     }
 
     @Test
@@ -422,7 +919,7 @@ class ApiGatewayHandlerTest {
     private Handler handlerFailingWhenParsing(String expectedMessage) {
         return new Handler() {
             @Override
-            protected RequestBody parseInput(String inputString) {
+            protected RequestBody parseInput(JsonNode request) {
                 throw new RuntimeException(expectedMessage);
             }
         };
@@ -524,6 +1021,87 @@ class ApiGatewayHandlerTest {
         }
     }
 
+    private static Handler handlerWithETag(String version) {
+        return new Handler() {
+            @Override
+            protected Optional<String> getETag(RequestBody input, RequestInfo requestInfo) {
+                return Optional.of(version);
+            }
+        };
+    }
+
+    private static Handler handlerWithResponseCache(ResponseCache responseCache, AtomicInteger processedInputs,
+                                                    String scope) {
+        var handler = new Handler(environmentWithETagFromBody()) {
+            @Override
+            protected RequestBody processInput(RequestBody input, RequestInfo requestInfo, Context context)
+                throws ApiGatewayException {
+                processedInputs.incrementAndGet();
+                return super.processInput(input, requestInfo, context);
+            }
+
+            @Override
+            protected Optional<Duration> getResponseCacheTimeToLive(RequestInfo requestInfo) {
+                return Optional.of(Duration.ofMinutes(1));
+            }
+
+            @Override
+            protected String getResponseCacheScope(RequestBody input, RequestInfo requestInfo) {
+                return scope;
+            }
+        };
+        handler.setResponseCache(responseCache);
+        return handler;
+    }
+
+    private static Handler handlerWithCborObjectMapper() {
+        return new Handler() {
+            @Override
+            protected List<MediaType> listSupportedMediaTypes() {
+                return List.of(MediaType.JSON_UTF_8, MediaTypes.APPLICATION_CBOR);
+            }
+
+            @Override
+            protected Map<MediaType, ObjectMapper> getObjectMappers() {
+                return Map.of(MediaTypes.APPLICATION_CBOR, RestConfig.cborObjectMapper);
+            }
+        };
+    }
+
+    private static String cacheKeyOfRequestWithoutParameters() {
+        return ResponseCache.createKey(null, Map.of(), MediaType.JSON_UTF_8.toString(), UNSCOPED);
+    }
+
+    private static Environment environmentWithOffloadThreshold(String threshold) {
+        var environment = mock(Environment.class);
+        when(environment.readEnv(ApiGatewayHandler.ALLOWED_ORIGIN_ENV)).thenReturn("*");
+        when(environment.readEnvOpt(ApiGatewayHandler.RESPONSE_OFFLOAD_THRESHOLD_ENV))
+            .thenReturn(Optional.of(threshold));
+        return environment;
+    }
+
+    private static Environment environmentWithETagFromBody() {
+        var environment = mock(Environment.class);
+        when(environment.readEnv(ApiGatewayHandler.ALLOWED_ORIGIN_ENV)).thenReturn("*");
+        when(environment.readEnvOpt(ApiGatewayHandler.RESPONSE_ETAG_FROM_BODY_ENV)).thenReturn(Optional.of("true"));
+        return environment;
+    }
+
+    private InputStream getRequestWithHeaders(Map<String, String> headers) throws JsonProcessingException {
+        ObjectNode request = defaultRestObjectMapper.createObjectNode();
+        request.set("body", createBody());
+        request.set("headers", createHeaders(headers));
+        request.put("httpMethod", ApiGatewayHandler.GET_METHOD);
+        return jsonNodeToInputStream(request);
+    }
+
+    private static Environment environmentWithCompressionThreshold() {
+        var environment = mock(Environment.class);
+        when(environment.readEnv(ApiGatewayHandler.ALLOWED_ORIGIN_ENV)).thenReturn("*");
+        when(environment.readEnvOpt(ApiGatewayHandler.RESPONSE_COMPRESSION_THRESHOLD_ENV)).thenReturn(Optional.of("0"));
+        return environment;
+    }
+
     private InputStream anyRequest() throws JsonProcessingException {
         return requestWithHeaders();
     }
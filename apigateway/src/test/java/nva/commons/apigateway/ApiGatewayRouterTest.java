@@ -0,0 +1,163 @@
+package nva.commons.apigateway;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.google.common.net.HttpHeaders;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Map;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.apigateway.testutils.Handler;
+import nva.commons.apigateway.testutils.RequestBody;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+class ApiGatewayRouterTest {
+
+    private static final String ALLOWED_ORIGIN = "https://example.org";
+    private Context context;
+    private Handler publicationHandler;
+    private Handler fileHandler;
+    private ApiGatewayRouter router;
+    private ByteArrayOutputStream metricsOutput;
+
+    @BeforeEach
+    public void setup() {
+        context = new FakeContext();
+        metricsOutput = new ByteArrayOutputStream();
+        publicationHandler = new Handler() {
+            @Override
+            protected InvocationMetrics createInvocationMetrics(Context context) {
+                return new EmfInvocationMetrics(randomString(), randomString(),
+                                                new PrintStream(metricsOutput, true, StandardCharsets.UTF_8),
+                                                Clock.systemUTC());
+            }
+        };
+        fileHandler = new Handler();
+        var environment = mock(Environment.class);
+        when(environment.readEnv(ApiGatewayHandler.ALLOWED_ORIGIN_ENV)).thenReturn(ALLOWED_ORIGIN);
+        router = new ApiGatewayRouter(environment) {
+            {
+                addRoute("GET", "/publication/{identifier}", publicationHandler);
+                addRoute("PUT", "/publication/{identifier}", publicationHandler);
+                addRoute("GET", "/publication/{identifier}/files/{proxy+}", fileHandler);
+            }
+        };
+    }
+
+    @Test
+    void handleRequestShouldDispatchRequestToHandlerOfMatchingRoute() throws IOException {
+        var body = new RequestBody(randomString(), randomString());
+
+        var response = sendRequest("GET", "/publication/123/files/some/file.pdf", body, RequestBody.class);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThat(response.getBodyObject(RequestBody.class), is(equalTo(body)));
+        assertThat(fileHandler.getProxy(), is(equalTo("some/file.pdf")));
+        assertThat(publicationHandler.getBody(), is(nullValue()));
+    }
+
+    @Test
+    void handleRequestShouldAddPathParametersOfRouteToRequest() throws IOException {
+        sendRequest("PUT", "/publication/123", new RequestBody(randomString(), randomString()), RequestBody.class);
+
+        assertThat(publicationHandler.getPath(), is(equalTo("/publication/123")));
+        assertThat(publicationHandler.getPathParameters(), hasEntry("identifier", "123"));
+    }
+
+    @Test
+    void handleRequestShouldReturnNotFoundWhenNoRouteMatchesPath() throws IOException {
+        var response = sendRequest("GET", "/customer/123", null, Problem.class);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_FOUND)));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, ALLOWED_ORIGIN));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.CONTENT_TYPE,
+                                                   MediaTypes.APPLICATION_PROBLEM_JSON.toString()));
+        var problem = response.getBodyObject(Problem.class);
+        assertThat(problem.getParameters().get(ApiGatewayHandler.REQUEST_ID), is(equalTo(context.getAwsRequestId())));
+    }
+
+    @Test
+    void handleRequestShouldReturnMethodNotAllowedWithAllowedMethodsWhenOnlyPathMatches() throws IOException {
+        var response = sendRequest("DELETE", "/publication/123", null, Problem.class);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_METHOD)));
+        assertThat(response.getHeaders().get(HttpHeaders.ALLOW).split(", "),
+                   arrayContainingInAnyOrder("GET", "PUT"));
+    }
+
+    @Test
+    void handleRequestShouldReturnBadRequestWhenRequestIsNotJsonObject() throws IOException {
+        var output = new ByteArrayOutputStream();
+        var input = new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8));
+
+        router.handleRequest(input, output, context);
+
+        var response = GatewayResponse.fromOutputStream(output, Problem.class);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    }
+
+    @Test
+    void handleRequestShouldReturnBadRequestWhenRequestIsMalformed() throws IOException {
+        var output = new ByteArrayOutputStream();
+        var input = new ByteArrayInputStream("{\"path\":".getBytes(StandardCharsets.UTF_8));
+
+        router.handleRequest(input, output, context);
+
+        var response = GatewayResponse.fromOutputStream(output, Problem.class);
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.CONTENT_TYPE,
+                                                   MediaTypes.APPLICATION_PROBLEM_JSON.toString()));
+    }
+
+    @Test
+    void handleRequestShouldRecordReadingOfRequestInMetricsOfHandler() throws IOException {
+        sendRequest("PUT", "/publication/123", new RequestBody(randomString(), randomString()), RequestBody.class);
+
+        var metrics = dtoObjectMapper.readTree(metricsOutput.toString(StandardCharsets.UTF_8));
+        assertThat(metrics.get(EmfInvocationMetrics.INPUT_BYTES_METRIC).asLong(), is(greaterThan(0L)));
+        assertThat(metrics.has("ReadRequestLatency"), is(true));
+    }
+
+    @Test
+    void primeShouldPrimeHandlerOfEveryRoute() throws IOException, ApiGatewayException {
+        router.prime();
+
+        assertThat(publicationHandler.getBody(), is(nullValue()));
+    }
+
+    private <T> GatewayResponse<T> sendRequest(String httpMethod, String path, RequestBody body,
+                                               Class<T> responseType) throws IOException {
+        var output = new ByteArrayOutputStream();
+        router.handleRequest(request(httpMethod, path, body), output, context);
+        return GatewayResponse.fromOutputStream(output, responseType);
+    }
+
+    private static InputStream request(String httpMethod, String path, RequestBody body) throws IOException {
+        return new HandlerRequestBuilder<RequestBody>(RestConfig.defaultRestObjectMapper)
+                   .withHttpMethod(httpMethod)
+                   .withOtherProperties(Map.of(RequestInfoConstants.PATH_FIELD, path))
+                   .withBody(body)
+                   .build();
+    }
+}
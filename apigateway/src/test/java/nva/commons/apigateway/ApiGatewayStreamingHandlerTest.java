@@ -0,0 +1,260 @@
+package nva.commons.apigateway;
+
+import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.net.HttpHeaders;
+import com.google.common.net.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.apigateway.exceptions.NotFoundException;
+import nva.commons.core.ioutils.IoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ApiGatewayStreamingHandlerTest {
+
+    private static final int NUMBER_OF_ITEMS = 250;
+    private static final Path FUNCTION_URL_EVENT = Path.of("apiGatewayMessages", "functionUrlEvent.json");
+    private Context context;
+
+    @BeforeEach
+    public void setup() {
+        context = new FakeContext();
+    }
+
+    @Test
+    void handleRequestShouldWritePreludeAndItemsAsJsonArray() throws IOException {
+        var response = sendRequest(handlerStreaming(items()), Map.of());
+
+        assertThat(response.prelude.get(ApiGatewayStreamingHandler.STATUS_CODE_FIELD).asInt(),
+                   is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThat(response.headers(), hasEntry(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString()));
+        assertThat(defaultRestObjectMapper.readValue(response.body, new TypeReference<List<Map<String, Integer>>>() {
+        }), is(equalTo(items().collect(Collectors.toList()))));
+    }
+
+    @Test
+    void handleRequestShouldWriteItemsAsNewlineDelimitedJsonWhenClientAcceptsIt() throws IOException {
+        var response = sendRequest(handlerStreaming(items()),
+                                   Map.of(HttpHeaders.ACCEPT, MediaTypes.APPLICATION_NDJSON.toString()));
+        var lines = response.body.split("\n");
+
+        assertThat(response.headers(), hasEntry(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_NDJSON.toString()));
+        assertThat(lines.length, is(equalTo(NUMBER_OF_ITEMS)));
+        assertThat(defaultRestObjectMapper.readTree(lines[NUMBER_OF_ITEMS - 1]).get("index").asInt(),
+                   is(equalTo(NUMBER_OF_ITEMS - 1)));
+    }
+
+    @Test
+    void handleRequestShouldWriteEmptyJsonArrayWhenThereAreNoItems() throws IOException {
+        var response = sendRequest(handlerStreaming(Stream.empty()), Map.of());
+
+        assertThat(response.body, is(equalTo("[]")));
+    }
+
+    @Test
+    void handleRequestShouldWriteProblemWhenProcessingFailsBeforeStreaming() throws IOException {
+        var handler = new ApiGatewayStreamingHandler<Void, Map<String, Integer>>(Void.class) {
+            @Override
+            protected Stream<Map<String, Integer>> processInput(Void input, RequestInfo requestInfo, Context context)
+                throws ApiGatewayException {
+                throw new NotFoundException("Not found");
+            }
+        };
+        var response = sendRequest(handler, Map.of());
+
+        assertThat(response.prelude.get(ApiGatewayStreamingHandler.STATUS_CODE_FIELD).asInt(),
+                   is(equalTo(HttpURLConnection.HTTP_NOT_FOUND)));
+        assertThat(response.headers(),
+                   hasEntry(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_PROBLEM_JSON.toString()));
+        assertThat(defaultRestObjectMapper.readTree(response.body).get("detail").asText(), is(equalTo("Not found")));
+    }
+
+    @Test
+    void handleRequestShouldLeaveBodyIncompleteAndCloseStreamWhenStreamingFails() throws IOException {
+        var closed = new AtomicBoolean();
+        var failingItems = Stream.concat(items().limit(3), Stream.<Map<String, Integer>>generate(() -> {
+            throw new IllegalStateException("Failure while streaming");
+        })).onClose(() -> closed.set(true));
+        var response = sendRequest(handlerStreaming(failingItems), Map.of());
+
+        assertThat(response.prelude.get(ApiGatewayStreamingHandler.STATUS_CODE_FIELD).asInt(),
+                   is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThrows(JsonProcessingException.class, () -> defaultRestObjectMapper.readTree(response.body));
+        assertThat(closed.get(), is(true));
+    }
+
+    @Test
+    void handleRequestShouldEndNewlineDelimitedBodyWithErrorRecordWhenStreamingFails() throws IOException {
+        var failingItems = Stream.concat(items().limit(3), Stream.<Map<String, Integer>>generate(() -> {
+            throw new IllegalStateException("Failure while streaming");
+        }));
+        var response = sendRequest(handlerStreaming(failingItems),
+                                   Map.of(HttpHeaders.ACCEPT, MediaTypes.APPLICATION_NDJSON.toString()));
+        var lines = response.body.split("\n");
+
+        assertThat(lines.length, is(equalTo(4)));
+        assertThat(defaultRestObjectMapper.readTree(lines[2]).get("index").asInt(), is(equalTo(2)));
+        var error = defaultRestObjectMapper.readTree(lines[3]).get(ApiGatewayStreamingHandler.ERROR_RECORD_FIELD);
+        assertThat(error.get("status").asInt(), is(equalTo(HttpURLConnection.HTTP_INTERNAL_ERROR)));
+        assertThat(error.get(ApiGatewayHandler.REQUEST_ID).asText(), is(equalTo(context.getAwsRequestId())));
+    }
+
+    @Test
+    void handleRequestShouldWriteErrorRecordOnItsOwnLineWhenWritingAnItemFails() throws IOException {
+        var response = sendRequest(handlerStreaming(Stream.of(Map.of("index", 0), new FailingItem())),
+                                   Map.of(HttpHeaders.ACCEPT, MediaTypes.APPLICATION_NDJSON.toString()));
+        var lines = response.body.split("\n");
+
+        assertThat(lines.length, is(equalTo(3)));
+        assertThrows(JsonProcessingException.class, () -> defaultRestObjectMapper.readTree(lines[1]));
+        assertThat(defaultRestObjectMapper.readTree(lines[2]).has(ApiGatewayStreamingHandler.ERROR_RECORD_FIELD),
+                   is(true));
+    }
+
+    @Test
+    void handleRequestShouldRecordTheSentStatusCodeWhenStreamingFails() throws IOException {
+        var failingItems = Stream.concat(items().limit(3), Stream.<Map<String, Integer>>generate(() -> {
+            throw new IllegalStateException("Failure while streaming");
+        }));
+        var recordedStatusCode = new AtomicInteger();
+        var handler = new ApiGatewayStreamingHandler<Void, Map<String, Integer>>(Void.class) {
+            @Override
+            protected Stream<Map<String, Integer>> processInput(Void input, RequestInfo requestInfo,
+                                                                Context context) {
+                return failingItems;
+            }
+
+            @Override
+            protected InvocationMetrics createInvocationMetrics(Context context) {
+                return new InvocationMetrics() {
+                    @Override
+                    public void setStatusCode(int statusCode) {
+                        recordedStatusCode.set(statusCode);
+                    }
+                };
+            }
+        };
+        sendRequest(handler, Map.of());
+
+        assertThat(recordedStatusCode.get(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    }
+
+    @Test
+    void handleRequestShouldReadPathMethodAndCookiesOfFunctionUrlEvent() throws IOException {
+        var requestInfo = new AtomicReference<RequestInfo>();
+        var handler = new ApiGatewayStreamingHandler<Void, Map<String, Integer>>(Void.class) {
+            @Override
+            protected Stream<Map<String, Integer>> processInput(Void input, RequestInfo info, Context context) {
+                requestInfo.set(info);
+                return items();
+            }
+        };
+        var output = new ByteArrayOutputStream();
+        handler.handleRequest(IoUtils.inputStreamFromResources(FUNCTION_URL_EVENT), output, context);
+        var response = new StreamedResponse(output.toByteArray());
+
+        assertThat(requestInfo.get().getPath(), is(equalTo("/my/path")));
+        assertThat(requestInfo.get().getHttpMethod(), is(equalTo(ApiGatewayHandler.GET_METHOD)));
+        assertThat(requestInfo.get().getHeaders(), hasEntry("cookie", "cookie1; cookie2"));
+        assertThat(requestInfo.get().getQueryParameters(), hasEntry("parameter2", "value"));
+        assertThat(response.headers(), hasEntry(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_NDJSON.toString()));
+    }
+
+    private static Stream<Map<String, Integer>> items() {
+        return IntStream.range(0, NUMBER_OF_ITEMS).mapToObj(index -> Map.of("index", index));
+    }
+
+    private static <T> ApiGatewayStreamingHandler<Void, T> handlerStreaming(Stream<T> items) {
+        return new ApiGatewayStreamingHandler<>(Void.class) {
+            @Override
+            protected Stream<T> processInput(Void input, RequestInfo requestInfo, Context context) {
+                return items;
+            }
+        };
+    }
+
+    private StreamedResponse sendRequest(ApiGatewayStreamingHandler<Void, ?> handler, Map<String, String> headers)
+        throws IOException {
+        var output = new ByteArrayOutputStream();
+        handler.handleRequest(request(headers), output, context);
+        return new StreamedResponse(output.toByteArray());
+    }
+
+    private static InputStream request(Map<String, String> headers) throws JsonProcessingException {
+        return new HandlerRequestBuilder<Void>(defaultRestObjectMapper)
+                   .withHttpMethod(ApiGatewayHandler.GET_METHOD)
+                   .withHeaders(headers)
+                   .build();
+    }
+
+    @SuppressWarnings("unused")
+    private static final class FailingItem {
+
+        public int getFirst() {
+            return 1;
+        }
+
+        public int getSecond() {
+            throw new IllegalStateException("Failure while writing an item");
+        }
+    }
+
+    private static final class StreamedResponse {
+
+        private final JsonNode prelude;
+        private final String body;
+
+        private StreamedResponse(byte[] response) throws IOException {
+            var delimiterStart = findPreludeDelimiter(response);
+            this.prelude = defaultRestObjectMapper.readTree(Arrays.copyOfRange(response, 0, delimiterStart));
+            this.body = new String(response, delimiterStart + ApiGatewayStreamingHandler.PRELUDE_DELIMITER_LENGTH,
+                                   response.length - delimiterStart
+                                   - ApiGatewayStreamingHandler.PRELUDE_DELIMITER_LENGTH,
+                                   StandardCharsets.UTF_8);
+        }
+
+        private Map<String, String> headers() {
+            return defaultRestObjectMapper.convertValue(prelude.get(ApiGatewayStreamingHandler.HEADERS_FIELD),
+                                                        new TypeReference<>() {
+                                                        });
+        }
+
+        private static int findPreludeDelimiter(byte[] response) {
+            return IntStream.range(0, response.length)
+                       .filter(index -> isPreludeDelimiter(response, index))
+                       .findFirst()
+                       .orElseThrow();
+        }
+
+        private static boolean isPreludeDelimiter(byte[] response, int start) {
+            return start + ApiGatewayStreamingHandler.PRELUDE_DELIMITER_LENGTH <= response.length
+                   && IntStream.range(start, start + ApiGatewayStreamingHandler.PRELUDE_DELIMITER_LENGTH)
+                          .allMatch(index -> response[index] == 0);
+        }
+    }
+}
@@ -9,12 +9,20 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Base64;
 import nva.commons.apigateway.exceptions.ApiIoException;
 import nva.commons.apigateway.testutils.RequestBody;
 
@@ -31,6 +39,7 @@ public class ApiMessageParserTest {
     private static final Path BODY_NON_JSON_STRING = Path.of(API_GATEWAY_MESSAGES_FOLDER, "bodyIsNonJsonString.json");
     private static final Path BODY_JSON_STRING = Path.of(API_GATEWAY_MESSAGES_FOLDER, "bodyIsAJsonString.json");
     private static final Path BODY_JSON_ELEMENT = Path.of(API_GATEWAY_MESSAGES_FOLDER, "bodyIsAJsonElement.json");
+    private static final Path AWS_SAMPLE_PROXY_EVENT = Path.of(API_GATEWAY_MESSAGES_FOLDER, "awsSampleProxyEvent.json");
 
     @DisplayName("getRequestInfo throws ApiIoException when parser throws an exception")
     @Test
@@ -104,6 +113,75 @@ public class ApiMessageParserTest {
         assertThat(body, is(equalTo(expected)));
     }
 
+    @Test
+    public void getBodyElementFromJsonReturnsRequestObjectFromAlreadyParsedRequest() throws IOException {
+        ApiMessageParser<RequestBody> parser = new ApiMessageParser<>();
+        JsonNode request = parser.parseRequest(IoUtils.inputStreamFromResources(BODY_JSON_STRING));
+        RequestBody body = parser.getBodyElementFromJson(request, RequestBody.class);
+        RequestBody expected = new RequestBody("value1", "value2");
+        assertThat(body, is(equalTo(expected)));
+    }
+
+    @Test
+    public void getRequestInfoReturnsRequestInfoFromTheSameParsedRequestAsTheBody()
+        throws IOException, ApiIoException {
+        ApiMessageParser<RequestBody> parser = new ApiMessageParser<>();
+        JsonNode request = parser.parseRequest(IoUtils.inputStreamFromResources(AWS_SAMPLE_PROXY_EVENT));
+        RequestInfo requestInfo = parser.getRequestInfo(request);
+        assertThat(requestInfo.getPath(), is(equalTo(request.get("path").asText())));
+    }
+
+    @Test
+    public void getRequestInfoThrowsApiIoExceptionWhenParsedRequestCannotBeMapped() throws IOException {
+        ObjectReader requestInfoReader = mock(ObjectReader.class);
+        when(requestInfoReader.readValue(any(JsonNode.class)))
+            .thenThrow(new JsonMappingException(null, SOME_EXCEPTION_MESSAGE));
+        ObjectMapper mapper = mock(ObjectMapper.class);
+        when(mapper.readerFor(RequestInfo.class)).thenReturn(requestInfoReader);
+        ApiMessageParser<String> parser = messageParser(mapper);
+        JsonNode request = new ApiMessageParser<String>().parseRequest(IoUtils.inputStreamFromResources(MISSING_BODY));
+        ApiIoException exception = assertThrows(ApiIoException.class, () -> parser.getRequestInfo(request));
+        assertThat(exception.getMessage(), containsString(ApiMessageParser.COULD_NOT_PARSE_REQUEST_INFO));
+    }
+
+    @Test
+    public void getBodyElementFromJsonReturnsDecodedStreamOfKnownLengthWhenBodyIsBase64Encoded() throws IOException {
+        var content = new byte[]{0, 1, 2, (byte) 255, 4};
+        var request = RestConfig.defaultRestObjectMapper.createObjectNode()
+                          .put("body", Base64.getEncoder().encodeToString(content))
+                          .put(GatewayResponse.IS_BASE64_ENCODED_FIELD, true);
+        RequestBodyInputStream body = new ApiMessageParser<RequestBodyInputStream>()
+                                          .getBodyElementFromJson(request, RequestBodyInputStream.class);
+
+        assertThat(body.getLength(), is(equalTo((long) content.length)));
+        assertThat(body.readAllBytes(), is(equalTo(content)));
+    }
+
+    @Test
+    public void getBodyElementFromJsonReturnsUtf8StreamWhenInputClassIsInputStreamAndBodyIsText() throws IOException {
+        var request = RestConfig.defaultRestObjectMapper.createObjectNode().put("body", NON_JSON_STRING_BODY);
+        InputStream body = new ApiMessageParser<InputStream>().getBodyElementFromJson(request, InputStream.class);
+
+        assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8), is(equalTo(NON_JSON_STRING_BODY)));
+    }
+
+    @Test
+    public void getBodyElementFromBinaryReusesTheReaderOfTheBinaryFormat() throws IOException {
+        var expected = new RequestBody("value1", "value2");
+        var content = RestConfig.cborObjectMapper.writeValueAsBytes(expected);
+        var request = RestConfig.defaultRestObjectMapper.createObjectNode()
+                          .put("body", Base64.getEncoder().encodeToString(content))
+                          .put(GatewayResponse.IS_BASE64_ENCODED_FIELD, true);
+        ObjectMapper binaryMapper = spy(RestConfig.cborObjectMapper);
+        ApiMessageParser<RequestBody> parser = new ApiMessageParser<>();
+
+        parser.getBodyElementFromBinary(request, binaryMapper, RequestBody.class);
+        RequestBody body = parser.getBodyElementFromBinary(request, binaryMapper, RequestBody.class);
+
+        assertThat(body, is(equalTo(expected)));
+        verify(binaryMapper, times(1)).readerFor(RequestBody.class);
+    }
+
     private <T> ApiMessageParser<T> messageParser(ObjectMapper mapper) {
         return new ApiMessageParser<>(mapper);
     }
@@ -0,0 +1,72 @@
+package nva.commons.apigateway;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class ContentEncodingTest {
+
+    private static final String CONTENT = "Some content that is compressed";
+
+    public static Stream<Arguments> acceptEncodingHeaderProvider() {
+        return Stream.of(
+            Arguments.of("gzip", Optional.of(ContentEncoding.GZIP)),
+            Arguments.of("deflate", Optional.of(ContentEncoding.DEFLATE)),
+            Arguments.of("gzip, deflate, br", Optional.of(ContentEncoding.GZIP)),
+            Arguments.of("deflate, gzip", Optional.of(ContentEncoding.GZIP)),
+            Arguments.of("GZIP", Optional.of(ContentEncoding.GZIP)),
+            Arguments.of("gzip;q=0.5, deflate", Optional.of(ContentEncoding.DEFLATE)),
+            Arguments.of("gzip;q=0, deflate;q=0", Optional.empty()),
+            Arguments.of("gzip;q=invalid, deflate;q=0.1", Optional.of(ContentEncoding.DEFLATE)),
+            Arguments.of("*", Optional.of(ContentEncoding.GZIP)),
+            Arguments.of("gzip;q=0, *;q=0.3", Optional.of(ContentEncoding.DEFLATE)),
+            Arguments.of("br, identity", Optional.empty()),
+            Arguments.of("", Optional.empty())
+        );
+    }
+
+    @ParameterizedTest(name = "should select {1} for Accept-Encoding: {0}")
+    @MethodSource("acceptEncodingHeaderProvider")
+    void shouldSelectPreferredSupportedEncoding(String acceptEncodingHeader, Optional<ContentEncoding> expected) {
+        assertThat(ContentEncoding.negotiate(acceptEncodingHeader), is(equalTo(expected)));
+    }
+
+    @Test
+    void shouldCompressContentSoThatItCanBeDecompressedWithGzip() throws IOException {
+        var compressed = compress(ContentEncoding.GZIP);
+        assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(compressed))), is(equalTo(CONTENT)));
+    }
+
+    @Test
+    void shouldCompressContentSoThatItCanBeDecompressedWithInflater() throws IOException {
+        var compressed = compress(ContentEncoding.DEFLATE);
+        assertThat(decompress(new InflaterInputStream(new ByteArrayInputStream(compressed))), is(equalTo(CONTENT)));
+    }
+
+    private static byte[] compress(ContentEncoding encoding) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        try (var compressingStream = encoding.compress(outputStream)) {
+            compressingStream.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static String decompress(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
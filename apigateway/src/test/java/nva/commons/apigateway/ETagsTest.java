@@ -0,0 +1,42 @@
+package nva.commons.apigateway;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ETagsTest {
+
+    @Test
+    void shouldQuoteVersionsThatAreNotETags() {
+        assertThat(ETags.fromVersion("42"), is(equalTo("\"42\"")));
+        assertThat(ETags.fromVersion("\"42\""), is(equalTo("\"42\"")));
+        assertThat(ETags.fromVersion("W/\"42\""), is(equalTo("W/\"42\"")));
+    }
+
+    @Test
+    void shouldCreateSameETagForSameBodyAndDifferentETagsForDifferentBodies() {
+        var body = randomString().getBytes(StandardCharsets.UTF_8);
+        var otherBody = randomString().getBytes(StandardCharsets.UTF_8);
+
+        assertThat(ETags.fromBody(body), is(equalTo(ETags.fromBody(body.clone()))));
+        assertThat(ETags.fromBody(body), is(not(equalTo(ETags.fromBody(otherBody)))));
+    }
+
+    @Test
+    void shouldMakeETagsWeakOnlyOnce() {
+        assertThat(ETags.weak("\"42\""), is(equalTo("W/\"42\"")));
+        assertThat(ETags.weak("W/\"42\""), is(equalTo("W/\"42\"")));
+    }
+
+    @Test
+    void shouldMatchIfNoneMatchHeaderUsingWeakComparison() {
+        assertThat(ETags.matches("\"1\", W/\"42\"", "\"42\""), is(true));
+        assertThat(ETags.matches("\"42\"", "W/\"42\""), is(true));
+        assertThat(ETags.matches(ETags.ANY_ETAG, "\"42\""), is(true));
+        assertThat(ETags.matches("\"1\", \"2\"", "\"42\""), is(false));
+    }
+}
@@ -0,0 +1,93 @@
+package nva.commons.apigateway;
+
+import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import nva.commons.apigateway.InvocationMetrics.Phase;
+import org.junit.jupiter.api.Test;
+
+class EmfInvocationMetricsTest {
+
+    private static final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+    private static final byte[] INPUT = new byte[]{1, 2, 3};
+    private static final byte[] OUTPUT = new byte[]{1, 2, 3, 4, 5};
+
+    @Test
+    void shouldPublishLatenciesSizesAndDimensionsAsSingleEmfLogLine() throws IOException {
+        var namespace = randomString();
+        var handlerName = randomString();
+        var logOutput = new ByteArrayOutputStream();
+        var metrics = new EmfInvocationMetrics(namespace, handlerName,
+                                               new PrintStream(logOutput, true, StandardCharsets.UTF_8),
+                                               Clock.fixed(NOW, ZoneOffset.UTC));
+
+        metrics.countInput(new ByteArrayInputStream(INPUT)).readAllBytes();
+        metrics.phaseCompleted(Phase.READ_REQUEST);
+        metrics.phaseCompleted(Phase.PROCESS_INPUT);
+        metrics.countOutput(new ByteArrayOutputStream()).write(OUTPUT);
+        metrics.setStatusCode(HttpURLConnection.HTTP_OK);
+        metrics.invocationCompleted();
+
+        var logLines = logOutput.toString(StandardCharsets.UTF_8).strip().split(System.lineSeparator());
+        assertThat(logLines.length, is(equalTo(1)));
+        var logLine = dtoObjectMapper.readTree(logLines[0]);
+        var directive = logLine.at("/_aws/CloudWatchMetrics/0");
+
+        assertThat(logLine.at("/_aws/Timestamp").asLong(), is(equalTo(NOW.toEpochMilli())));
+        assertThat(directive.get("Namespace").asText(), is(equalTo(namespace)));
+        assertThat(textValues(directive.at("/Dimensions/0")),
+                   containsInAnyOrder(EmfInvocationMetrics.HANDLER_DIMENSION,
+                                      EmfInvocationMetrics.STATUS_CODE_DIMENSION));
+        assertThat(textValues(directive.get("Metrics").findValues("Name")),
+                   containsInAnyOrder("ReadRequestLatency", "ProcessInputLatency",
+                                      EmfInvocationMetrics.TOTAL_LATENCY_METRIC,
+                                      EmfInvocationMetrics.INPUT_BYTES_METRIC,
+                                      EmfInvocationMetrics.OUTPUT_BYTES_METRIC));
+        assertThat(logLine.get(EmfInvocationMetrics.HANDLER_DIMENSION).asText(), is(equalTo(handlerName)));
+        assertThat(logLine.get(EmfInvocationMetrics.STATUS_CODE_DIMENSION).asText(), is(equalTo("200")));
+        assertThat(logLine.get("ReadRequestLatency").asDouble(), is(greaterThanOrEqualTo(0.0)));
+        assertThat(logLine.get(EmfInvocationMetrics.INPUT_BYTES_METRIC).asInt(), is(equalTo(INPUT.length)));
+        assertThat(logLine.get(EmfInvocationMetrics.OUTPUT_BYTES_METRIC).asInt(), is(equalTo(OUTPUT.length)));
+    }
+
+    @Test
+    void shouldCountRequestReadBeforeInvocationInReadLatencyAndInputBytes() throws IOException {
+        var logOutput = new ByteArrayOutputStream();
+        var metrics = new EmfInvocationMetrics(randomString(), randomString(),
+                                               new PrintStream(logOutput, true, StandardCharsets.UTF_8),
+                                               Clock.fixed(NOW, ZoneOffset.UTC));
+        var readMillis = 5;
+
+        metrics.requestReadBeforeInvocation(readMillis * 1_000_000L, INPUT.length);
+        metrics.phaseCompleted(Phase.READ_REQUEST);
+        metrics.invocationCompleted();
+
+        var logLine = dtoObjectMapper.readTree(logOutput.toString(StandardCharsets.UTF_8));
+        assertThat(logLine.get("ReadRequestLatency").asDouble(), is(greaterThanOrEqualTo((double) readMillis)));
+        assertThat(logLine.get(EmfInvocationMetrics.TOTAL_LATENCY_METRIC).asDouble(),
+                   is(greaterThanOrEqualTo((double) readMillis)));
+        assertThat(logLine.get(EmfInvocationMetrics.INPUT_BYTES_METRIC).asInt(), is(equalTo(INPUT.length)));
+    }
+
+    private static List<String> textValues(Iterable<JsonNode> nodes) {
+        var values = new ArrayList<String>();
+        nodes.forEach(node -> values.add(node.asText()));
+        return values;
+    }
+}
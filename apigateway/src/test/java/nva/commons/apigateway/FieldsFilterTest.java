@@ -0,0 +1,72 @@
+package nva.commons.apigateway;
+
+import static nva.commons.apigateway.RestConfig.defaultRestObjectMapper;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FieldsFilterTest {
+
+    private static final Map<String, Object> RESOURCE = Map.of(
+        "id", "123",
+        "title", "Title",
+        "entityDescription", Map.of(
+            "mainTitle", "Main title",
+            "abstract", "Abstract",
+            "contributors", List.of(Map.of("name", "First", "role", "Creator"),
+                                    Map.of("name", "Second", "role", "Editor"))));
+
+    @Test
+    void shouldWriteOnlyRequestedProperties() throws IOException {
+        assertThat(filtered(RESOURCE, "id,title"), is(equalTo(json("{'id':'123','title':'Title'}"))));
+    }
+
+    @Test
+    void shouldWriteRequestedNestedPropertiesOfObjectsAndArrays() throws IOException {
+        var expected = json("{'entityDescription':{'mainTitle':'Main title',"
+                            + "'contributors':[{'name':'First'},{'name':'Second'}]}}");
+
+        assertThat(filtered(RESOURCE, "entityDescription.mainTitle, entityDescription.contributors.name"),
+                   is(equalTo(expected)));
+    }
+
+    @Test
+    void shouldWriteWholePropertyWhenPropertyIsAlsoRequestedWithoutNestedProperties() throws IOException {
+        var filtered = filtered(RESOURCE, "entityDescription.mainTitle,entityDescription");
+
+        assertThat(filtered.get("entityDescription"), is(equalTo(json(RESOURCE).get("entityDescription"))));
+    }
+
+    @Test
+    void shouldFilterEveryResourceInList() throws IOException {
+        var filtered = filtered(List.of(RESOURCE, Map.of("title", "Other")), "id");
+
+        assertThat(filtered, is(equalTo(json("[{'id':'123'},{}]"))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", ",", "."})
+    void parseShouldReturnEmptyWhenFieldsetHasNoProperties(String fields) {
+        assertThat(FieldsFilter.parse(fields).isPresent(), is(false));
+    }
+
+    private static JsonNode filtered(Object resource, String fields) throws IOException {
+        var writer = new GatewayResponseWriter(defaultRestObjectMapper)
+                         .withBodyFilter(FieldsFilter.parse(fields).orElseThrow());
+        return defaultRestObjectMapper.readTree(new String(writer.serialize(resource), StandardCharsets.UTF_8));
+    }
+
+    private static JsonNode json(Object value) throws IOException {
+        return value instanceof String
+                   ? defaultRestObjectMapper.readTree(((String) value).replace('\'', '"'))
+                   : defaultRestObjectMapper.valueToTree(value);
+    }
+}
@@ -109,6 +109,14 @@ public class GatewayResponseTest {
         assertFalse(bodyAsInstance.isEmpty());
     }
 
+    @Test
+    void shouldCreateResponseWithBodyThatIsNotBase64EncodedByDefault() {
+        var response = new GatewayResponse<RequestBody>(SOME_VALUE, Map.of(), HttpURLConnection.HTTP_OK);
+
+        assertThat(response.isBase64Encoded(), is(false));
+        assertThat(response.getBody(), is(equalTo(SOME_VALUE)));
+    }
+
     private GatewayResponse<RequestBody> sampleGatewayResponse()
         throws GatewayResponseSerializingException {
         return new GatewayResponse<>(sampleRequestBody(),
@@ -0,0 +1,182 @@
+package nva.commons.apigateway;
+
+import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.net.HttpHeaders;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import nva.commons.apigateway.testutils.RequestBody;
+import org.junit.jupiter.api.Test;
+
+class GatewayResponseWriterTest {
+
+    private static final String TEXT_WITH_CHARACTERS_THAT_MUST_BE_ESCAPED = "\"quoted\" \\ back\\slash\n\t\u0001";
+    private static final String TEXT_WITH_SURROGATE_PAIRS = "emoji \uD83D\uDE00 and musical symbol \uD834\uDD1E";
+    private static final int MANY_TIMES_THE_BUFFER_SIZE_OF_THE_GENERATOR = 10_000;
+
+    @Test
+    void shouldWriteResponseThatIsReadableAsGatewayResponse() throws IOException {
+        var body = new RequestBody();
+        body.setField1(TEXT_WITH_CHARACTERS_THAT_MUST_BE_ESCAPED);
+        body.setField2(randomString());
+        var headers = Map.of(randomString(), randomString());
+
+        var response = writeResponse(body, headers);
+
+        assertThat(dtoObjectMapper.readValue(response.getBody(), RequestBody.class), is(equalTo(body)));
+        assertThat(response.getHeaders(), is(equalTo(headers)));
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    }
+
+    @Test
+    void shouldWriteStringBodyAsIs() throws IOException {
+        var response = writeResponse(TEXT_WITH_CHARACTERS_THAT_MUST_BE_ESCAPED, Map.of());
+
+        assertThat(response.getBody(), is(equalTo(TEXT_WITH_CHARACTERS_THAT_MUST_BE_ESCAPED)));
+    }
+
+    @Test
+    void shouldWriteSameBodyAsSerializingTheBodyToString() throws IOException {
+        var body = Map.of("values", List.of(TEXT_WITH_CHARACTERS_THAT_MUST_BE_ESCAPED, TEXT_WITH_SURROGATE_PAIRS),
+                          "header", Map.of("key", randomString()));
+
+        var response = writeResponse(body, Map.of());
+
+        assertThat(response.getBody(), is(equalTo(compactJson(body))));
+    }
+
+    @Test
+    void shouldWriteSurrogatePairsThatAreSplitBetweenWrites() throws IOException {
+        var longText = TEXT_WITH_SURROGATE_PAIRS.repeat(MANY_TIMES_THE_BUFFER_SIZE_OF_THE_GENERATOR);
+        var shiftedText = "x" + longText + "\uD83D";
+
+        assertThat(writeResponse(List.of(longText), Map.of()).getBody(),
+                   is(equalTo(compactJson(List.of(longText)))));
+        assertThat(writeResponse(List.of(shiftedText), Map.of()).getBody(),
+                   is(equalTo(compactJson(List.of(shiftedText)))));
+    }
+
+    @Test
+    void shouldWriteNullBodyAsJsonNull() throws IOException {
+        var response = writeResponse(null, Map.of(randomString(), randomString()));
+
+        assertThat(response.getBody(), is(equalTo("null")));
+        assertThat(response.getHeaders().size(), is(equalTo(1)));
+    }
+
+    @Test
+    void shouldWriteHeadersOfResponse() throws IOException {
+        var headerValue = randomString();
+        var response = writeResponse(randomString(), Map.of("header", headerValue));
+
+        assertThat(response.getHeaders(), hasEntry("header", headerValue));
+    }
+
+    @Test
+    void shouldWriteIndentedBodyWhenPrettyPrintingIsRequested() throws IOException {
+        var body = Map.of("key", randomString());
+        var outputStream = new ByteArrayOutputStream();
+        new GatewayResponseWriter(dtoObjectMapper)
+            .writePrettyPrinted(outputStream, body, Map.of(), HttpURLConnection.HTTP_OK);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        assertThat(response.getBody(), is(equalTo(dtoObjectMapper.writeValueAsString(body))));
+    }
+
+    @Test
+    void shouldCompressAndBase64EncodeBody() throws IOException {
+        var body = Map.of("values", List.of(TEXT_WITH_CHARACTERS_THAT_MUST_BE_ESCAPED, TEXT_WITH_SURROGATE_PAIRS));
+        var serializedBody = compactJson(body);
+        var outputStream = new ByteArrayOutputStream();
+        var writer = new GatewayResponseWriter(dtoObjectMapper);
+        writer.writeCompressed(outputStream, writer.serialize(body), Map.of(), HttpURLConnection.HTTP_OK,
+                               ContentEncoding.GZIP);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        var compressedBody = Base64.getDecoder().decode(response.getBody());
+        var decompressedBody = new GZIPInputStream(new ByteArrayInputStream(compressedBody)).readAllBytes();
+
+        assertThat(response.isBase64Encoded(), is(true));
+        assertThat(response.getHeaders(), hasEntry(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        assertThat(dtoObjectMapper.readTree(decompressedBody), is(equalTo(dtoObjectMapper.readTree(serializedBody))));
+    }
+
+    @Test
+    void shouldWriteSerializedBodyAsIs() throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        var writer = new GatewayResponseWriter(dtoObjectMapper);
+        writer.writeSerialized(outputStream, writer.serialize(TEXT_WITH_SURROGATE_PAIRS), Map.of(),
+                               HttpURLConnection.HTTP_OK);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+
+        assertThat(response.isBase64Encoded(), is(false));
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING), is(false));
+        assertThat(response.getBody(), is(equalTo(TEXT_WITH_SURROGATE_PAIRS)));
+    }
+
+    @Test
+    void shouldWriteBodyOfBodyTypeAsWriterWithoutBodyType() throws IOException {
+        var body = new RequestBody(TEXT_WITH_CHARACTERS_THAT_MUST_BE_ESCAPED, randomString());
+        var outputStream = new ByteArrayOutputStream();
+        writerWithBodyType(RequestBody.class).write(outputStream, body, Map.of(), HttpURLConnection.HTTP_OK);
+
+        var response = GatewayResponse.fromOutputStream(outputStream, String.class);
+        assertThat(response.getBody(), is(equalTo(compactJson(body))));
+    }
+
+    @Test
+    void shouldWriteAllPropertiesOfBodiesThatAreSubclassesOfBodyType() throws IOException {
+        var body = new ExtendedRequestBody(randomString());
+        var writer = writerWithBodyType(RequestBody.class);
+
+        var serializedBody = new String(writer.serialize(body), StandardCharsets.UTF_8);
+
+        assertThat(serializedBody, is(equalTo(compactJson(body))));
+        assertThat(serializedBody, containsString(body.getExtraField()));
+    }
+
+    private static GatewayResponseWriter writerWithBodyType(Class<?> bodyType) {
+        return new GatewayResponseWriter(dtoObjectMapper)
+                   .withBodyType(dtoObjectMapper.getTypeFactory().constructType(bodyType));
+    }
+
+    private static String compactJson(Object body) throws JsonProcessingException {
+        return dtoObjectMapper.writer().without(SerializationFeature.INDENT_OUTPUT).writeValueAsString(body);
+    }
+
+    private static GatewayResponse<String> writeResponse(Object body, Map<String, String> headers)
+        throws IOException, JsonProcessingException {
+        var outputStream = new ByteArrayOutputStream();
+        new GatewayResponseWriter(dtoObjectMapper).write(outputStream, body, headers, HttpURLConnection.HTTP_OK);
+        return GatewayResponse.fromOutputStream(outputStream, String.class);
+    }
+
+    private static final class ExtendedRequestBody extends RequestBody {
+
+        private final String extraField;
+
+        private ExtendedRequestBody(String extraField) {
+            super();
+            this.extraField = extraField;
+        }
+
+        public String getExtraField() {
+            return extraField;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package nva.commons.apigateway;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RequestBodyInputStreamTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 4, 1000, 65_537})
+    void fromBase64ShouldDecodeBodyOfAnyLength(int length) throws IOException {
+        var content = new byte[length];
+        for (var index = 0; index < length; index++) {
+            content[index] = (byte) (index * 31);
+        }
+        try (var body = RequestBodyInputStream.fromBase64(Base64.getEncoder().encodeToString(content))) {
+            assertThat(body.getLength(), is(equalTo((long) length)));
+            assertThat(body.readAllBytes(), is(equalTo(content)));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    void fromBase64ShouldDecodeBodyWithoutPadding(int length) throws IOException {
+        var content = "abc".substring(0, length).getBytes(StandardCharsets.UTF_8);
+        var body = RequestBodyInputStream.fromBase64(Base64.getEncoder().withoutPadding().encodeToString(content));
+
+        assertThat(body.getLength(), is(equalTo((long) length)));
+        assertThat(body.readAllBytes(), is(equalTo(content)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "\u00e6\u00f8\u00e5"})
+    void fromTextShouldEncodeBodyAsUtf8(String text) throws IOException {
+        var body = RequestBodyInputStream.fromText(text);
+
+        assertThat(body.getLength(), is(equalTo((long) text.getBytes(StandardCharsets.UTF_8).length)));
+        assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8), is(equalTo(text)));
+    }
+}
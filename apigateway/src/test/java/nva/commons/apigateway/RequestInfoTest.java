@@ -21,6 +21,16 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -28,6 +38,9 @@ import com.google.common.net.HttpHeaders;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,13 +49,16 @@ import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import no.unit.nva.auth.CognitoAccessTokenVerifier;
 import no.unit.nva.auth.CognitoUserInfo;
+import no.unit.nva.auth.CognitoUserInfoCache;
 import no.unit.nva.stubs.FakeAuthServer;
 import no.unit.nva.stubs.WiremockHttpClient;
 import no.unit.nva.testutils.HandlerRequestBuilder;
 import no.unit.nva.testutils.RandomDataGenerator;
 import nva.commons.apigateway.exceptions.ApiIoException;
 import nva.commons.apigateway.exceptions.UnauthorizedException;
+import nva.commons.core.Environment;
 import nva.commons.core.ioutils.IoUtils;
 import nva.commons.core.paths.UriWrapper;
 import nva.commons.logutils.LogUtils;
@@ -580,6 +596,140 @@ class RequestInfoTest {
                    containsString(ERROR_FETCHING_COGNITO_INFO.replace(LOG_STRING_INTERPOLATION, EMPTY_STRING)));
     }
 
+    @Test
+    void shouldFetchUserInfoFromCognitoOnlyOnceWhenSeveralClaimsAreRequested() throws Exception {
+        var usersCustomer = randomUri();
+        var accessRight = randomString();
+        var cognitoUserEntry = CognitoUserInfo.builder()
+                                   .withCurrentCustomer(usersCustomer)
+                                   .withUserName(randomString())
+                                   .withAccessRights(Set.of(accessRight + AT + usersCustomer))
+                                   .build();
+        cognito.setUserBase(Map.of(userAccessToken, cognitoUserEntry));
+        httpClient = spy(httpClient);
+        var requestInfo = createRequestInfoWithAccessTokenThatHasOpenIdScope();
+
+        requestInfo.getUserName();
+        requestInfo.getCurrentCustomer();
+        requestInfo.getFeideId();
+        assertThat(requestInfo.userIsAuthorized(accessRight), is(true));
+
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    void shouldReuseFailureWhenFetchingUserInfoFromCognitoHasFailed() throws Exception {
+        cognito.setUserBase(Map.of(randomString(), CognitoUserInfo.builder().build()));
+        httpClient = spy(httpClient);
+        var requestInfo = createRequestInfoWithAccessTokenThatHasOpenIdScope();
+
+        assertThrows(UnauthorizedException.class, requestInfo::getUserName);
+        assertThat(requestInfo.getFeideId(), is(Optional.empty()));
+        assertThat(requestInfo.userIsAuthorized(randomString()), is(false));
+
+        var cognitoEndpointAndE2eEndpoint = 2;
+        verify(httpClient, times(cognitoEndpointAndE2eEndpoint)).send(any(), any());
+    }
+
+    @Test
+    void shouldReuseUserInfoFromCognitoAcrossRequestsWithTheSameAccessToken() throws Exception {
+        var accessToken = JWT.create()
+                              .withExpiresAt(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                              .sign(Algorithm.HMAC256(randomString()));
+        var expectedUserName = randomString();
+        cognito.setUserBase(Map.of(accessToken, CognitoUserInfo.builder().withUserName(expectedUserName).build()));
+        httpClient = spy(httpClient);
+        var sharedCache = CognitoUserInfoCache.defaultCache();
+
+        var firstRequest = createRequestInfoWithAccessToken(accessToken, sharedCache);
+        var secondRequest = createRequestInfoWithAccessToken(accessToken, sharedCache);
+
+        assertThat(firstRequest.getUserName(), is(equalTo(expectedUserName)));
+        assertThat(secondRequest.getUserName(), is(equalTo(expectedUserName)));
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    void shouldReadUserInfoFromVerifiedAccessTokenWithoutCallingCognito() throws Exception {
+        var accessToken = randomString();
+        var expectedUserName = randomString();
+        var tokenVerifier = mock(CognitoAccessTokenVerifier.class);
+        when(tokenVerifier.verify(bearerToken(accessToken)))
+            .thenReturn(Optional.of(CognitoUserInfo.builder().withUserName(expectedUserName).build()));
+        httpClient = spy(httpClient);
+        var requestInfo = new RequestInfo(httpClient, tokenVerifier);
+        requestInfo.setHeaders(Map.of(HttpHeaders.AUTHORIZATION, bearerToken(accessToken)));
+
+        assertThat(requestInfo.getUserName(), is(equalTo(expectedUserName)));
+        verify(httpClient, never()).send(any(), any());
+    }
+
+    @Test
+    void shouldFetchUserInfoFromCognitoWhenVerifiedAccessTokenHasNoCustomAttributes() throws UnauthorizedException {
+        var accessToken = randomString();
+        var expectedUserName = randomString();
+        cognito.setUserBase(Map.of(accessToken, CognitoUserInfo.builder().withUserName(expectedUserName).build()));
+        var tokenVerifier = mock(CognitoAccessTokenVerifier.class);
+        when(tokenVerifier.verify(bearerToken(accessToken))).thenReturn(Optional.empty());
+        var cognitoServerUri = UriWrapper.fromUri(cognito.getServerUri()).addChild(OAUTH_USER_INFO).getUri();
+        var requestInfo = new RequestInfo(httpClient, () -> cognitoServerUri, tokenVerifier);
+        requestInfo.setHeaders(Map.of(HttpHeaders.AUTHORIZATION, bearerToken(accessToken)));
+
+        assertThat(requestInfo.getUserName(), is(equalTo(expectedUserName)));
+    }
+
+    @Test
+    void shouldThrowUnauthorizedExceptionWhenAccessTokenCannotBeVerified() {
+        var tokenVerifier = mock(CognitoAccessTokenVerifier.class);
+        when(tokenVerifier.verify(any())).thenThrow(new JWTVerificationException(randomString()));
+        var logger = LogUtils.getTestingAppenderForRootLogger();
+        var requestInfo = new RequestInfo(httpClient, tokenVerifier);
+        requestInfo.setHeaders(Map.of(HttpHeaders.AUTHORIZATION, bearerToken(randomString())));
+
+        assertThrows(UnauthorizedException.class, requestInfo::getUserName);
+        assertThat(logger.getMessages(), containsString("Could not verify access token"));
+    }
+
+    @Test
+    void shouldCreateTokenVerifierOnlyWhenUserPoolIssuerAndAppClientsAreConfigured() {
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(RequestInfoConstants.COGNITO_USER_POOL_ISSUER_ENV))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(randomUri().toString()));
+        when(environment.readEnvOpt(RequestInfoConstants.COGNITO_APP_CLIENT_IDS_ENV))
+            .thenReturn(Optional.of(randomString() + ", " + randomString()))
+            .thenReturn(Optional.of(" , "))
+            .thenReturn(Optional.of(randomString()));
+
+        assertThat(RequestInfoConstants.createTokenVerifier(httpClient, environment).isPresent(), is(false));
+        assertThat(RequestInfoConstants.createTokenVerifier(httpClient, environment).isPresent(), is(false));
+        assertThat(RequestInfoConstants.createTokenVerifier(httpClient, environment).isPresent(), is(true));
+    }
+
+    @Test
+    void shouldUseDefaultUserInfoCacheSizeAndLogWarningWhenConfiguredSizeIsNotNumeric() {
+        var logger = LogUtils.getTestingAppenderForRootLogger();
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(RequestInfoConstants.USER_INFO_CACHE_SIZE_ENV))
+            .thenReturn(Optional.of("1k"))
+            .thenReturn(Optional.of(" 50 "))
+            .thenReturn(Optional.empty());
+
+        assertThat(RequestInfoConstants.readUserInfoCacheSize(environment),
+                   is(equalTo(CognitoUserInfoCache.DEFAULT_MAX_SIZE)));
+        assertThat(logger.getMessages(), containsString(RequestInfoConstants.USER_INFO_CACHE_SIZE_ENV + ": 1k"));
+        assertThat(RequestInfoConstants.readUserInfoCacheSize(environment), is(equalTo(50)));
+        assertThat(RequestInfoConstants.readUserInfoCacheSize(environment),
+                   is(equalTo(CognitoUserInfoCache.DEFAULT_MAX_SIZE)));
+    }
+
+    private RequestInfo createRequestInfoWithAccessToken(String accessToken, CognitoUserInfoCache cache) {
+        var cognitoServerUri = UriWrapper.fromUri(cognito.getServerUri()).addChild(OAUTH_USER_INFO).getUri();
+        var requestInfo = new RequestInfo(httpClient, () -> cognitoServerUri, failingUri(), cache);
+        requestInfo.setHeaders(Map.of(HttpHeaders.AUTHORIZATION, bearerToken(accessToken)));
+        return requestInfo;
+    }
+
     private String randomAccessRight(URI usersCustomer) {
         return new AccessRightEntry(randomString(), usersCustomer).toString();
     }
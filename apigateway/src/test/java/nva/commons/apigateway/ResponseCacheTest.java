@@ -0,0 +1,74 @@
+package nva.commons.apigateway;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import nva.commons.apigateway.testutils.MutableClock;
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final byte[] BODY = "{\"field\":\"value\"}".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_BYTES = 1024;
+
+    @Test
+    void createKeyShouldNotDependOnOrderOfQueryParameters() {
+        var key = ResponseCache.createKey("/path", Map.of("a", "1", "b", "2"), "application/json", "");
+        var keyWithOtherOrder = ResponseCache.createKey("/path", Map.of("b", "2", "a", "1"), "application/json", "");
+
+        assertThat(key, is(equalTo(keyWithOtherOrder)));
+    }
+
+    @Test
+    void createKeyShouldNotConfuseDelimitersInValuesWithOtherRequests() {
+        var key = ResponseCache.createKey("/path", Map.of("a", "1", "b", "2"), "application/json", "");
+        var keyWithEncodedDelimiters = ResponseCache.createKey("/path", Map.of("a", "1&b=2"), "application/json", "");
+        var keyWithScopeInMediaType = ResponseCache.createKey("/path", Map.of(), "application/json\nscope", "");
+        var keyWithScope = ResponseCache.createKey("/path", Map.of(), "application/json", "scope");
+
+        assertThat(keyWithEncodedDelimiters, is(not(equalTo(key))));
+        assertThat(keyWithScopeInMediaType, is(not(equalTo(keyWithScope))));
+    }
+
+    @Test
+    void getShouldReturnStoredResponseUntilItExpires() {
+        var clock = new MutableClock();
+        var cache = new ResponseCache(MAX_BYTES, clock);
+        cache.put("key", BODY, Map.of(), 200, TIME_TO_LIVE);
+
+        assertThat(cache.get("key").orElseThrow().getSerializedBody(), is(equalTo(BODY)));
+        clock.advance(TIME_TO_LIVE);
+        assertThat(cache.get("key").isPresent(), is(false));
+        assertThat(cache.getHitCount(), is(equalTo(1L)));
+        assertThat(cache.getMissCount(), is(equalTo(1L)));
+        assertThat(cache.getUsedBytes(), is(equalTo(0L)));
+    }
+
+    @Test
+    void putShouldEvictLeastRecentlyUsedResponsesWhenCacheIsFull() {
+        // Keys are counted with two bytes per character, so the cache holds two of these responses.
+        var cache = new ResponseCache(2L * (BODY.length + 2 * "first".length()), new MutableClock());
+        cache.put("first", BODY, Map.of(), 200, TIME_TO_LIVE);
+        cache.put("other", BODY, Map.of(), 200, TIME_TO_LIVE);
+        cache.get("first");
+        cache.put("third", BODY, Map.of(), 200, TIME_TO_LIVE);
+
+        assertThat(cache.get("first").isPresent(), is(true));
+        assertThat(cache.get("other").isPresent(), is(false));
+        assertThat(cache.get("third").isPresent(), is(true));
+    }
+
+    @Test
+    void putShouldNotStoreResponsesLargerThanTheCache() {
+        var cache = new ResponseCache(BODY.length - 1, new MutableClock());
+        cache.put("key", BODY, Map.of(), 200, TIME_TO_LIVE);
+
+        assertThat(cache.get("key").isPresent(), is(false));
+        assertThat(cache.getUsedBytes(), is(equalTo(0L)));
+    }
+}
@@ -0,0 +1,98 @@
+package nva.commons.apigateway;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RouteTrieTest {
+
+    private static final String GET = "GET";
+    private static final String PUT = "PUT";
+    private RouteTrie<String> trie;
+
+    @BeforeEach
+    public void setup() {
+        trie = new RouteTrie<>();
+        trie.add(GET, "/publication", "list");
+        trie.add(GET, "/publication/{identifier}", "fetch");
+        trie.add(PUT, "/publication/{identifier}", "update");
+        trie.add(GET, "/publication/search", "search");
+        trie.add(GET, "/publication/{identifier}/files/{proxy+}", "file");
+    }
+
+    @Test
+    void findShouldReturnRouteOfLiteralPath() {
+        assertThat(routeOf(GET, "/publication"), is(Optional.of("list")));
+    }
+
+    @Test
+    void findShouldReturnPathParametersOfMatchingTemplate() {
+        var match = trie.find("/publication/123").orElseThrow();
+
+        assertThat(match.getRoute(PUT), is(Optional.of("update")));
+        assertThat(match.getPathParameters(), hasEntry("identifier", "123"));
+    }
+
+    @Test
+    void findShouldPreferLiteralSegmentsOverPathParameters() {
+        assertThat(routeOf(GET, "/publication/search"), is(Optional.of("search")));
+    }
+
+    @Test
+    void findShouldFallBackToPathParameterWhenLiteralBranchDoesNotMatchRestOfPath() {
+        trie.add(GET, "/publication/search/{term}", "searchTerm");
+        trie.add(GET, "/publication/{identifier}/owner", "owner");
+
+        var match = trie.find("/publication/search/owner").orElseThrow();
+
+        assertThat(match.getRoute(GET), is(Optional.of("searchTerm")));
+        assertThat(routeOf(GET, "/publication/search/x/y"), is(Optional.empty()));
+    }
+
+    @Test
+    void findShouldMatchRestOfPathWithGreedyPathParameter() {
+        var match = trie.find("/publication/123/files/some/file.pdf").orElseThrow();
+
+        assertThat(match.getRoute(GET), is(Optional.of("file")));
+        assertThat(match.getPathParameters(), hasEntry("identifier", "123"));
+        assertThat(match.getPathParameters(), hasEntry("proxy", "some/file.pdf"));
+    }
+
+    @Test
+    void findShouldReturnAllHttpMethodsOfMatchingTemplate() {
+        var match = trie.find("/publication/123").orElseThrow();
+
+        assertThat(match.getRoute("DELETE"), is(Optional.empty()));
+        assertThat(match.getHttpMethods(), containsInAnyOrder(GET, PUT));
+    }
+
+    @Test
+    void findShouldReturnEmptyWhenNoTemplateMatchesPath() {
+        assertThat(trie.find("/customer/123").isPresent(), is(false));
+        assertThat(trie.find("/").isPresent(), is(false));
+    }
+
+    @Test
+    void findShouldIgnoreCaseOfHttpMethodAndTrailingSlashes() {
+        assertThat(routeOf("get", "/publication/"), is(Optional.of("list")));
+    }
+
+    @Test
+    void addShouldThrowWhenRouteIsDuplicated() {
+        assertThrows(IllegalArgumentException.class, () -> trie.add(GET, "/publication/{identifier}", "other"));
+    }
+
+    @Test
+    void addShouldThrowWhenPathParametersInSamePositionHaveDifferentNames() {
+        assertThrows(IllegalArgumentException.class, () -> trie.add("DELETE", "/publication/{id}", "delete"));
+    }
+
+    private Optional<String> routeOf(String httpMethod, String path) {
+        return trie.find(path).flatMap(match -> match.getRoute(httpMethod));
+    }
+}
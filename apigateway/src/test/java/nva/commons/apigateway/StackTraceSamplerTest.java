@@ -0,0 +1,107 @@
+package nva.commons.apigateway;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import nva.commons.apigateway.testutils.MutableClock;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.Test;
+
+class StackTraceSamplerTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    @Test
+    void shouldLogStackTraceOfFingerprintOncePerWindow() {
+        var clock = new MutableClock();
+        var sampler = new StackTraceSampler(WINDOW, clock);
+        var exceptions = exceptionsFromSamePlace(3);
+
+        assertThat(sampler.sample(exceptions.get(0)).isStackTraceLogged(), is(true));
+        var repeated = sampler.sample(exceptions.get(1));
+        clock.advance(WINDOW);
+        var afterWindow = sampler.sample(exceptions.get(2));
+
+        assertThat(repeated.isStackTraceLogged(), is(false));
+        assertThat(repeated.getOccurrences(), is(equalTo(2L)));
+        assertThat(afterWindow.isStackTraceLogged(), is(true));
+        assertThat(afterWindow.getWindowStart(), is(equalTo(clock.instant())));
+    }
+
+    @Test
+    void shouldLogEveryStackTraceWhenWindowIsZero() {
+        var sampler = new StackTraceSampler(Duration.ZERO, new MutableClock());
+        var exceptions = exceptionsFromSamePlace(2);
+
+        sampler.sample(exceptions.get(0));
+
+        assertThat(sampler.sample(exceptions.get(1)).isStackTraceLogged(), is(true));
+    }
+
+    @Test
+    void fingerprintShouldDependOnPlaceAndCausesButNotOnMessage() {
+        var exceptions = exceptionsFromSamePlace(2);
+        var fingerprint = StackTraceSampler.fingerprint(exceptions.get(0));
+
+        assertThat(StackTraceSampler.fingerprint(exceptions.get(1)), is(equalTo(fingerprint)));
+        assertThat(StackTraceSampler.fingerprint(new IllegalStateException()), is(not(equalTo(fingerprint))));
+        assertThat(StackTraceSampler.fingerprint(exceptionWithCause(new IllegalArgumentException())),
+                   is(not(equalTo(StackTraceSampler.fingerprint(exceptionWithCause(new ArithmeticException()))))));
+    }
+
+    @Test
+    void fingerprintShouldEndWhenCausesFormCycle() {
+        var first = new IllegalStateException();
+        var second = new IllegalArgumentException(first);
+        first.initCause(second);
+
+        assertThat(StackTraceSampler.fingerprint(first), containsString(IllegalArgumentException.class.getName()));
+    }
+
+    @Test
+    void shouldUseDefaultWindowWhenWindowInEnvironmentIsNotANumber() {
+        var sampler = StackTraceSampler.fromEnvironment(environmentWithWindow("one minute"));
+        var exceptions = exceptionsFromSamePlace(2);
+
+        sampler.sample(exceptions.get(0));
+
+        assertThat(sampler.sample(exceptions.get(1)).isStackTraceLogged(), is(false));
+    }
+
+    @Test
+    void shouldUseWindowInEnvironment() {
+        var sampler = StackTraceSampler.fromEnvironment(environmentWithWindow("0"));
+        var exceptions = exceptionsFromSamePlace(2);
+
+        sampler.sample(exceptions.get(0));
+
+        assertThat(sampler.sample(exceptions.get(1)).isStackTraceLogged(), is(true));
+    }
+
+    private static Environment environmentWithWindow(String seconds) {
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(StackTraceSampler.STACK_TRACE_SAMPLING_WINDOW_SECONDS_ENV))
+            .thenReturn(Optional.of(seconds));
+        return environment;
+    }
+
+    private static List<Exception> exceptionsFromSamePlace(int count) {
+        var exceptions = new ArrayList<Exception>();
+        for (int i = 0; i < count; i++) {
+            exceptions.add(new IllegalStateException("message " + i));
+        }
+        return exceptions;
+    }
+
+    private static IllegalStateException exceptionWithCause(Exception cause) {
+        return new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,25 @@
+package nva.commons.apigateway.exceptions;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.net.HttpURLConnection;
+import org.junit.jupiter.api.Test;
+
+class PreconditionFailedExceptionTest {
+
+    private static final String SOME_MESSAGE = "Some message";
+
+    @Test
+    void preconditionFailedExceptionShowsSuppliedMessage() {
+        var exception = new PreconditionFailedException(SOME_MESSAGE);
+        assertThat(exception.getMessage(), containsString(SOME_MESSAGE));
+    }
+
+    @Test
+    void preconditionFailedExceptionReturnsPreconditionFailedStatusCode() {
+        var exception = new PreconditionFailedException(SOME_MESSAGE);
+        assertThat(exception.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_PRECON_FAILED)));
+    }
+}
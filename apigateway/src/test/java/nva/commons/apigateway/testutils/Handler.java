@@ -16,6 +16,7 @@ public class Handler extends ApiGatewayHandler<RequestBody, RequestBody> {
 
     private Map<String, String> headers;
     private String proxy;
+    private Map<String, String> pathParameters;
     private String path;
     private RequestBody body;
 
@@ -23,6 +24,10 @@ public class Handler extends ApiGatewayHandler<RequestBody, RequestBody> {
         super(RequestBody.class);
     }
 
+    public Handler(Environment environment) {
+        super(RequestBody.class, environment);
+    }
+
     /**
      * Constructor that overrides default serialization.
      *
@@ -37,6 +42,7 @@ public class Handler extends ApiGatewayHandler<RequestBody, RequestBody> {
         throws ApiGatewayException {
         this.headers = requestInfo.getHeaders();
         this.proxy = requestInfo.getPathParameters().get(PROXY_TAG);
+        this.pathParameters = requestInfo.getPathParameters();
         this.path = requestInfo.getPath();
         this.body = input;
         this.addAdditionalHeaders(() -> additionalHeaders(body));
@@ -60,6 +66,10 @@ public class Handler extends ApiGatewayHandler<RequestBody, RequestBody> {
         return proxy;
     }
 
+    public Map<String, String> getPathParameters() {
+        return pathParameters;
+    }
+
     public String getPath() {
         return path;
     }
@@ -0,0 +1,75 @@
+package no.unit.nva.auth;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Verifies access tokens locally against the public keys of the user pool that issued them, and reads the user info
+ * directly from the claims of the verified token. This is an alternative to calling the userinfo endpoint of the user
+ * pool for every request.
+ *
+ * <p>Only access tokens issued to the configured app clients are accepted, so that ID tokens and tokens of other app
+ * clients of the same user pool are rejected. Access tokens only carry the custom attributes of the user, such as
+ * {@value CognitoUserInfo#SELECTED_CUSTOMER_CLAIM}, when a pre token generation trigger of the user pool adds them.
+ * Tokens without custom attributes are verified, but their user info must still be fetched from the userinfo
+ * endpoint.
+ */
+public class CognitoAccessTokenVerifier {
+
+    public static final String TOKEN_USE_CLAIM = "token_use";
+    public static final String ACCESS_TOKEN_USE = "access";
+    public static final String CLIENT_ID_CLAIM = "client_id";
+    public static final String CUSTOM_ATTRIBUTE_PREFIX = "custom:";
+    public static final String UNKNOWN_CLIENT_MESSAGE = "The token was not issued to a configured app client";
+    private final JWTVerifier verifier;
+    private final Set<String> appClientIds;
+
+    /**
+     * Creates a verifier of the access tokens that a user pool issues to some of its app clients.
+     *
+     * @param keyProvider  the public keys of the user pool.
+     * @param issuer       the issuer of the user pool.
+     * @param appClientIds the ids of the app clients whose access tokens are accepted.
+     */
+    public CognitoAccessTokenVerifier(RSAKeyProvider keyProvider, String issuer, Set<String> appClientIds) {
+        this.verifier = JWT.require(Algorithm.RSA256(keyProvider))
+                            .withIssuer(issuer)
+                            .withClaim(TOKEN_USE_CLAIM, ACCESS_TOKEN_USE)
+                            .build();
+        this.appClientIds = Set.copyOf(appClientIds);
+    }
+
+    public static CognitoAccessTokenVerifier forIssuer(HttpClient httpClient, String issuer,
+                                                       Set<String> appClientIds) {
+        return new CognitoAccessTokenVerifier(JwksKeyProvider.forIssuer(httpClient, issuer), issuer, appClientIds);
+    }
+
+    /**
+     * Verifies the signature, the issuer, the token use, the app client and the expiration time of the bearer token
+     * in the Authorization header.
+     *
+     * @param authorizationHeader the Authorization header of the request.
+     * @return the user info contained in the claims of the token, or empty when the token does not carry the custom
+     *     attributes of the user and the user info must be fetched from the userinfo endpoint.
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException when the token is not valid.
+     */
+    public Optional<CognitoUserInfo> verify(String authorizationHeader) {
+        var token = verifier.verify(CognitoUserInfoCache.removeBearerPrefix(authorizationHeader));
+        if (!appClientIds.contains(token.getClaim(CLIENT_ID_CLAIM).asString())) {
+            throw new InvalidClaimException(UNKNOWN_CLIENT_MESSAGE);
+        }
+        if (token.getClaims().keySet().stream().noneMatch(claim -> claim.startsWith(CUSTOM_ATTRIBUTE_PREFIX))) {
+            return Optional.empty();
+        }
+        var claims = new String(Base64.getUrlDecoder().decode(token.getPayload()), StandardCharsets.UTF_8);
+        return Optional.of(CognitoUserInfo.fromString(claims));
+    }
+}
@@ -0,0 +1,153 @@
+package no.unit.nva.auth;
+
+import static nva.commons.core.attempt.Try.attempt;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of {@link CognitoUserInfo} entries that can be shared between invocations of a warm Lambda container.
+ * Entries are keyed by a hash of the Authorization header, so no access tokens are kept in memory. An entry expires at
+ * the {@code exp} claim of the access token, and the least recently used entries are evicted when the cache is full.
+ * User info for tokens without a readable expiration time is never cached.
+ */
+public class CognitoUserInfoCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    public static final String BEARER_PREFIX = "Bearer ";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private final Map<String, CachedUserInfo> entries;
+    private final Clock clock;
+
+    public CognitoUserInfoCache(int maxSize, Clock clock) {
+        this.clock = clock;
+        this.entries = new LruMap<>(maxSize);
+    }
+
+    public static CognitoUserInfoCache defaultCache() {
+        return new CognitoUserInfoCache(DEFAULT_MAX_SIZE, Clock.systemUTC());
+    }
+
+    /**
+     * Returns the cached user info for the Authorization header, or fetches and caches it when it is missing or
+     * expired. Failures are not cached.
+     *
+     * @param authorizationHeader the Authorization header of the request.
+     * @param fetchUserInfo       function fetching the user info from Cognito.
+     * @return the user info of the token owner.
+     */
+    public CognitoUserInfo fetch(String authorizationHeader, Supplier<CognitoUserInfo> fetchUserInfo) {
+        var key = hash(authorizationHeader);
+        return cachedValue(key).orElseGet(() -> fetchAndCache(key, authorizationHeader, fetchUserInfo));
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Optional<CognitoUserInfo> cachedValue(String key) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (Objects.isNull(entry)) {
+                return Optional.empty();
+            }
+            if (entry.isExpiredAt(clock.instant())) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry.getUserInfo());
+        }
+    }
+
+    private void store(String key, CachedUserInfo entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private CognitoUserInfo fetchAndCache(String key, String authorizationHeader,
+                                          Supplier<CognitoUserInfo> fetchUserInfo) {
+        var userInfo = fetchUserInfo.get();
+        tokenExpiration(authorizationHeader)
+            .filter(expiresAt -> expiresAt.isAfter(clock.instant()))
+            .ifPresent(expiresAt -> store(key, new CachedUserInfo(userInfo, expiresAt)));
+        return userInfo;
+    }
+
+    private static Optional<Instant> tokenExpiration(String authorizationHeader) {
+        return attempt(() -> removeBearerPrefix(authorizationHeader))
+                   .map(JWT::decode)
+                   .toOptional()
+                   .map(DecodedJWT::getExpiresAt)
+                   .map(Date::toInstant);
+    }
+
+    /* default */ static String removeBearerPrefix(String authorizationHeader) {
+        return authorizationHeader.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())
+                   ? authorizationHeader.substring(BEARER_PREFIX.length())
+                   : authorizationHeader;
+    }
+
+    private static String hash(String authorizationHeader) {
+        var digest = newMessageDigest().digest(authorizationHeader.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedUserInfo {
+
+        private final CognitoUserInfo userInfo;
+        private final Instant expiresAt;
+
+        private CachedUserInfo(CognitoUserInfo userInfo, Instant expiresAt) {
+            this.userInfo = userInfo;
+            this.expiresAt = expiresAt;
+        }
+
+        public CognitoUserInfo getUserInfo() {
+            return userInfo;
+        }
+
+        public boolean isExpiredAt(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+        private static final float LOAD_FACTOR = 0.75f;
+        private static final boolean ACCESS_ORDER = true;
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, LOAD_FACTOR, ACCESS_ORDER);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package no.unit.nva.auth;
+
+import static nva.commons.core.attempt.Try.attempt;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.fasterxml.jackson.jr.ob.JSON;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.security.KeyFactory;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides the public keys of a user pool from its JSON Web Key Set (JWKS) endpoint, for verifying tokens without
+ * calling the user pool for every request.
+ *
+ * <p>The keys are cached. When they are older than the refresh interval, they are refreshed asynchronously while the
+ * old keys are still in use. A token signed with an unknown key id triggers a synchronous refetch, at most once per
+ * {@link JwksKeyProvider#MINIMUM_REFETCH_INTERVAL}, whether the previous refetch succeeded or not, so that key
+ * rotations are picked up immediately but tokens with made-up key ids cannot flood the endpoint. Concurrent requests
+ * with the same unknown key id share one refetch, and each fetch times out after
+ * {@link JwksKeyProvider#REQUEST_TIMEOUT}, so that a slow endpoint does not stall the requests waiting for the refetch.
+ */
+public class JwksKeyProvider implements RSAKeyProvider {
+
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofHours(1);
+    public static final Duration MINIMUM_REFETCH_INTERVAL = Duration.ofSeconds(30);
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    public static final String JWKS_PATH = "/.well-known/jwks.json";
+    public static final String COULD_NOT_FETCH_JWKS = "Could not fetch JWKS from: ";
+    public static final String KEYS_FIELD = "keys";
+    public static final String KEY_ID_FIELD = "kid";
+    public static final String KEY_TYPE_FIELD = "kty";
+    public static final String MODULUS_FIELD = "n";
+    public static final String EXPONENT_FIELD = "e";
+    public static final String RSA = "RSA";
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyProvider.class);
+    private final HttpClient httpClient;
+    private final URI jwksUri;
+    private final Clock clock;
+    private final Duration refreshInterval;
+    private final AtomicReference<KeySet> keySet;
+    private final AtomicBoolean refreshInProgress;
+    private final Object refetchLock = new Object();
+    private Instant lastRefetchAttempt = Instant.MIN;
+
+    public JwksKeyProvider(HttpClient httpClient, URI jwksUri, Clock clock, Duration refreshInterval) {
+        this.httpClient = httpClient;
+        this.jwksUri = jwksUri;
+        this.clock = clock;
+        this.refreshInterval = refreshInterval;
+        this.keySet = new AtomicReference<>(KeySet.EMPTY);
+        this.refreshInProgress = new AtomicBoolean(false);
+    }
+
+    public static JwksKeyProvider forIssuer(HttpClient httpClient, String issuer) {
+        return new JwksKeyProvider(httpClient, URI.create(issuer + JWKS_PATH), Clock.systemUTC(),
+                                   DEFAULT_REFRESH_INTERVAL);
+    }
+
+    @Override
+    public RSAPublicKey getPublicKeyById(String keyId) {
+        var currentKeys = keySet.get();
+        if (currentKeys.isLoaded() && currentKeys.isOlderThan(refreshInterval, clock.instant())) {
+            refreshInBackground();
+        }
+        var key = currentKeys.getKey(keyId);
+        return Objects.nonNull(key) ? key : refetchForUnknownKeyId(keyId);
+    }
+
+    @JacocoGenerated
+    @Override
+    public RSAPrivateKey getPrivateKey() {
+        return null;
+    }
+
+    @JacocoGenerated
+    @Override
+    public String getPrivateKeyId() {
+        return null;
+    }
+
+    private RSAPublicKey refetchForUnknownKeyId(String keyId) {
+        synchronized (refetchLock) {
+            var currentKeys = keySet.get();
+            var now = clock.instant();
+            if (Objects.nonNull(currentKeys.getKey(keyId))
+                || !currentKeys.isOlderThan(MINIMUM_REFETCH_INTERVAL, now)
+                || !lastRefetchAttempt.plus(MINIMUM_REFETCH_INTERVAL).isBefore(now)) {
+                return currentKeys.getKey(keyId);
+            }
+            lastRefetchAttempt = now;
+            attempt(() -> httpClient.send(jwksRequest(), BodyHandlers.ofString()))
+                .map(this::updateKeys)
+                .orElse(fail -> logFailure(fail.getException()));
+            return keySet.get().getKey(keyId);
+        }
+    }
+
+    private void refreshInBackground() {
+        if (refreshInProgress.compareAndSet(false, true)) {
+            httpClient.sendAsync(jwksRequest(), BodyHandlers.ofString())
+                .thenApply(this::updateKeys)
+                .exceptionally(this::logFailure)
+                .whenComplete((keys, exception) -> refreshInProgress.set(false));
+        }
+    }
+
+    private KeySet updateKeys(HttpResponse<String> response) {
+        if (HttpURLConnection.HTTP_OK != response.statusCode()) {
+            throw new IllegalStateException(COULD_NOT_FETCH_JWKS + jwksUri);
+        }
+        var newKeys = new KeySet(parseKeys(response.body()), clock.instant());
+        keySet.set(newKeys);
+        return newKeys;
+    }
+
+    private KeySet logFailure(Throwable exception) {
+        logger.warn(COULD_NOT_FETCH_JWKS + jwksUri, exception);
+        return keySet.get();
+    }
+
+    private HttpRequest jwksRequest() {
+        return HttpRequest.newBuilder(jwksUri).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, RSAPublicKey> parseKeys(String jwks) {
+        var json = attempt(() -> JSON.std.mapFrom(jwks)).orElseThrow();
+        var keys = (Collection<Map<String, Object>>) json.get(KEYS_FIELD);
+        return keys.stream()
+                   .filter(key -> RSA.equals(key.get(KEY_TYPE_FIELD)))
+                   .collect(Collectors.toMap(key -> (String) key.get(KEY_ID_FIELD), JwksKeyProvider::toPublicKey));
+    }
+
+    private static RSAPublicKey toPublicKey(Map<String, Object> key) {
+        var modulus = toPositiveInteger((String) key.get(MODULUS_FIELD));
+        var exponent = toPositiveInteger((String) key.get(EXPONENT_FIELD));
+        return attempt(() -> KeyFactory.getInstance(RSA).generatePublic(new RSAPublicKeySpec(modulus, exponent)))
+                   .map(publicKey -> (RSAPublicKey) publicKey)
+                   .orElseThrow();
+    }
+
+    private static BigInteger toPositiveInteger(String base64UrlValue) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64UrlValue));
+    }
+
+    private static final class KeySet {
+
+        private static final KeySet EMPTY = new KeySet(Map.of(), Instant.MIN);
+        private final Map<String, RSAPublicKey> keys;
+        private final Instant fetchedAt;
+
+        private KeySet(Map<String, RSAPublicKey> keys, Instant fetchedAt) {
+            this.keys = Map.copyOf(keys);
+            this.fetchedAt = fetchedAt;
+        }
+
+        public RSAPublicKey getKey(String keyId) {
+            return Objects.isNull(keyId) ? null : keys.get(keyId);
+        }
+
+        public boolean isLoaded() {
+            return !Instant.MIN.equals(fetchedAt);
+        }
+
+        public boolean isOlderThan(Duration age, Instant now) {
+            return fetchedAt.plus(age).isBefore(now);
+        }
+    }
+}
@@ -66,11 +66,26 @@ public class AuthorizedBackendUriRetriever implements RawContentRetriever {
                    .toOptional();
     }
 
+    @Override
+    public Optional<byte[]> getRawBinaryContent(URI uri, String mediaType) {
+        return attempt(this::getAuthorizedBackendClient)
+                   .map(authorizedBackendClient -> getBinaryHttpResponse(authorizedBackendClient, uri, mediaType))
+                   .map(this::getRawContentFromHttpResponse)
+                   .toOptional();
+    }
+
+    @Override
+    public Optional<HttpResponse<byte[]>> fetchBinaryResponse(URI uri, String mediaType) {
+        return attempt(this::getAuthorizedBackendClient)
+                   .map(authorizedBackendClient -> getBinaryHttpResponse(authorizedBackendClient, uri, mediaType))
+                   .toOptional();
+    }
+
     private URI getCognitoTokenUrl() {
         return UriWrapper.fromHost(backendClientAuthUrl).getUri();
     }
 
-    private String getRawContentFromHttpResponse(HttpResponse<String> response) {
+    private <T> T getRawContentFromHttpResponse(HttpResponse<T> response) {
         if (response.statusCode() != HttpsURLConnection.HTTP_OK) {
             logger.error(FAILED_TO_RETRIEVE_URI, response);
             throw new RuntimeException(API_RESPONDED_WITH_ERROR_CODE + response.statusCode());
@@ -94,7 +109,16 @@ public class AuthorizedBackendUriRetriever implements RawContentRetriever {
     private HttpResponse<String> getHttpResponse(AuthorizedBackendClient backendClient,
                                                  URI customerId,
                                                  String mediaType) throws IOException, InterruptedException {
-        var request = HttpRequest.newBuilder(customerId).headers(ACCEPT, mediaType).GET();
-        return backendClient.send(request, BodyHandlers.ofString(StandardCharsets.UTF_8));
+        return backendClient.send(createRequest(customerId, mediaType), BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private HttpResponse<byte[]> getBinaryHttpResponse(AuthorizedBackendClient backendClient,
+                                                       URI uri,
+                                                       String mediaType) throws IOException, InterruptedException {
+        return backendClient.send(createRequest(uri, mediaType), BodyHandlers.ofByteArray());
+    }
+
+    private static HttpRequest.Builder createRequest(URI uri, String mediaType) {
+        return HttpRequest.newBuilder(uri).headers(ACCEPT, mediaType).GET();
     }
 }
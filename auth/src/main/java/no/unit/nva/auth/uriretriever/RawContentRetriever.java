@@ -9,4 +9,25 @@ public interface RawContentRetriever {
     Optional<String> getRawContent(URI uri, String mediaType);
 
     Optional<HttpResponse<String>> fetchResponse(URI uri, String mediaType);
-}
\ No newline at end of file
+
+    /**
+     * Fetches content in a binary format, such as CBOR, without decoding it as text. The content can be decoded with
+     * an object mapper for the format, e.g. {@code cborObjectMapper.readValue(content, MyClass.class)}.
+     *
+     * @param uri       the URI of the content.
+     * @param mediaType the media type of the binary format, e.g. "application/cbor".
+     * @return the content, or empty if fetching it fails.
+     */
+    default Optional<byte[]> getRawBinaryContent(URI uri, String mediaType) {
+        return fetchBinaryResponse(uri, mediaType).map(HttpResponse::body);
+    }
+
+    /**
+     * Fetches a response with a body in a binary format, such as CBOR, without decoding the body as text.
+     *
+     * @param uri       the URI of the content.
+     * @param mediaType the media type of the binary format, e.g. "application/cbor".
+     * @return the response, or empty if fetching it fails.
+     */
+    Optional<HttpResponse<byte[]>> fetchBinaryResponse(URI uri, String mediaType);
+}
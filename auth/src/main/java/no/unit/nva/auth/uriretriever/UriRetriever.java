@@ -39,6 +39,12 @@ public class UriRetriever implements RawContentRetriever {
                    .toOptional();
     }
 
+    @Override
+    public Optional<HttpResponse<byte[]>> fetchBinaryResponse(URI uri, String mediaType) {
+        return attempt(() -> httpClient.send(createHttpRequest(uri, mediaType), BodyHandlers.ofByteArray()))
+                   .toOptional();
+    }
+
     private static HttpClient newHttpClient() {
         return HttpClient.newHttpClient();
     }
@@ -0,0 +1,129 @@
+package no.unit.nva.auth;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import java.net.http.HttpClient;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CognitoAccessTokenVerifierTest {
+
+    private KeyPair keyPair;
+    private String keyId;
+    private String issuer;
+    private String appClientId;
+    private CognitoAccessTokenVerifier verifier;
+
+    @BeforeEach
+    void setup() throws Exception {
+        keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        keyId = randomString();
+        issuer = randomUri().toString();
+        var keyProvider = mock(RSAKeyProvider.class);
+        when(keyProvider.getPublicKeyById(keyId)).thenReturn((RSAPublicKey) keyPair.getPublic());
+        appClientId = randomString();
+        verifier = new CognitoAccessTokenVerifier(keyProvider, issuer, Set.of(appClientId));
+    }
+
+    @Test
+    void shouldReturnUserInfoFromClaimsOfVerifiedToken() {
+        var expectedCustomer = randomUri();
+        var expectedUserName = randomString();
+        var token = tokenBuilder(issuer, Instant.now().plus(Duration.ofHours(1)))
+                        .withClaim(CognitoUserInfo.SELECTED_CUSTOMER_CLAIM, expectedCustomer.toString())
+                        .withClaim(CognitoUserInfo.USER_NAME_CLAIM, expectedUserName)
+                        .sign(Algorithm.RSA256(null, (RSAPrivateKey) keyPair.getPrivate()));
+
+        var userInfo = verifier.verify("Bearer " + token).orElseThrow();
+
+        assertThat(userInfo.getCurrentCustomer(), is(equalTo(expectedCustomer)));
+        assertThat(userInfo.getUserName(), is(equalTo(expectedUserName)));
+    }
+
+    @Test
+    void shouldReturnEmptyUserInfoWhenVerifiedTokenHasNoCustomAttributes() {
+        var token = tokenBuilder(issuer, Instant.now().plus(Duration.ofHours(1)))
+                        .sign(Algorithm.RSA256(null, (RSAPrivateKey) keyPair.getPrivate()));
+
+        assertThat(verifier.verify("Bearer " + token), is(equalTo(Optional.empty())));
+    }
+
+    @Test
+    void shouldThrowWhenTokenIsNotAnAccessToken() {
+        var token = tokenBuilder(issuer, Instant.now().plus(Duration.ofHours(1)))
+                        .withClaim(CognitoAccessTokenVerifier.TOKEN_USE_CLAIM, "id")
+                        .sign(Algorithm.RSA256(null, (RSAPrivateKey) keyPair.getPrivate()));
+
+        assertThrows(JWTVerificationException.class, () -> verifier.verify("Bearer " + token));
+    }
+
+    @Test
+    void shouldThrowWhenTokenIsIssuedToAnotherAppClient() {
+        var token = tokenBuilder(issuer, Instant.now().plus(Duration.ofHours(1)))
+                        .withClaim(CognitoAccessTokenVerifier.CLIENT_ID_CLAIM, randomString())
+                        .sign(Algorithm.RSA256(null, (RSAPrivateKey) keyPair.getPrivate()));
+
+        assertThrows(JWTVerificationException.class, () -> verifier.verify("Bearer " + token));
+    }
+
+    @Test
+    void shouldThrowWhenTokenIsSignedWithAnotherKey() throws Exception {
+        var otherKey = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPrivate();
+        var token = tokenBuilder(issuer, Instant.now().plus(Duration.ofHours(1)))
+                        .sign(Algorithm.RSA256(null, (RSAPrivateKey) otherKey));
+
+        assertThrows(JWTVerificationException.class, () -> verifier.verify("Bearer " + token));
+    }
+
+    @Test
+    void shouldThrowWhenTokenIsIssuedByAnotherIssuer() {
+        var token = tokenBuilder(randomUri().toString(), Instant.now().plus(Duration.ofHours(1)))
+                        .sign(Algorithm.RSA256(null, (RSAPrivateKey) keyPair.getPrivate()));
+
+        assertThrows(JWTVerificationException.class, () -> verifier.verify("Bearer " + token));
+    }
+
+    @Test
+    void shouldThrowWhenTokenHasExpired() {
+        var token = tokenBuilder(issuer, Instant.now().minus(Duration.ofHours(1)))
+                        .sign(Algorithm.RSA256(null, (RSAPrivateKey) keyPair.getPrivate()));
+
+        assertThrows(JWTVerificationException.class, () -> verifier.verify("Bearer " + token));
+    }
+
+    @Test
+    void shouldCreateVerifierForIssuer() {
+        var verifierForIssuer = CognitoAccessTokenVerifier.forIssuer(HttpClient.newHttpClient(), issuer,
+                                                                     Set.of(appClientId));
+        assertThrows(JWTVerificationException.class, () -> verifierForIssuer.verify(randomString()));
+    }
+
+    private com.auth0.jwt.JWTCreator.Builder tokenBuilder(String tokenIssuer, Instant expiresAt) {
+        return JWT.create()
+                   .withKeyId(keyId)
+                   .withIssuer(tokenIssuer)
+                   .withClaim(CognitoAccessTokenVerifier.TOKEN_USE_CLAIM,
+                              CognitoAccessTokenVerifier.ACCESS_TOKEN_USE)
+                   .withClaim(CognitoAccessTokenVerifier.CLIENT_ID_CLAIM, appClientId)
+                   .withExpiresAt(Date.from(expiresAt));
+    }
+}
@@ -0,0 +1,120 @@
+package no.unit.nva.auth;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CognitoUserInfoCacheTest {
+
+    private static final Instant NOW = Instant.parse("2023-06-01T10:15:30.00Z");
+    private static final Instant TOKEN_EXPIRES_AT = NOW.plus(Duration.ofHours(1));
+    private Clock clock;
+    private Supplier<CognitoUserInfo> fetchUserInfo;
+    private CognitoUserInfo userInfo;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        userInfo = CognitoUserInfo.builder().withCurrentCustomer(randomUri()).build();
+        fetchUserInfo = mock(Supplier.class);
+        when(fetchUserInfo.get()).thenReturn(userInfo);
+    }
+
+    @Test
+    void shouldFetchUserInfoOnlyOnceWhenTokenHasNotExpired() {
+        var cache = new CognitoUserInfoCache(10, clock);
+        var authorizationHeader = bearerToken(TOKEN_EXPIRES_AT);
+
+        cache.fetch(authorizationHeader, fetchUserInfo);
+        var cachedUserInfo = cache.fetch(authorizationHeader, fetchUserInfo);
+
+        assertThat(cachedUserInfo, is(equalTo(userInfo)));
+        verify(fetchUserInfo, times(1)).get();
+    }
+
+    @Test
+    void shouldFetchUserInfoAgainWhenTokenHasExpired() {
+        var cache = new CognitoUserInfoCache(10, clock);
+        var authorizationHeader = bearerToken(TOKEN_EXPIRES_AT);
+
+        cache.fetch(authorizationHeader, fetchUserInfo);
+        when(clock.instant()).thenReturn(TOKEN_EXPIRES_AT);
+        cache.fetch(authorizationHeader, fetchUserInfo);
+
+        verify(fetchUserInfo, times(2)).get();
+    }
+
+    @Test
+    void shouldNotCacheUserInfoWhenTokenIsNotAJwt() {
+        var cache = new CognitoUserInfoCache(10, clock);
+        var authorizationHeader = "Bearer " + randomString();
+
+        cache.fetch(authorizationHeader, fetchUserInfo);
+        cache.fetch(authorizationHeader, fetchUserInfo);
+
+        verify(fetchUserInfo, times(2)).get();
+        assertThat(cache.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWhenCacheIsFull() {
+        var cache = new CognitoUserInfoCache(2, clock);
+        var first = bearerToken(TOKEN_EXPIRES_AT);
+        var second = bearerToken(TOKEN_EXPIRES_AT.plusSeconds(1));
+        var third = bearerToken(TOKEN_EXPIRES_AT.plusSeconds(2));
+
+        cache.fetch(first, fetchUserInfo);
+        cache.fetch(second, fetchUserInfo);
+        cache.fetch(first, fetchUserInfo);
+        cache.fetch(third, fetchUserInfo);
+        cache.fetch(first, fetchUserInfo);
+        cache.fetch(second, fetchUserInfo);
+
+        var firstSecondThirdAndEvictedSecond = 4;
+        verify(fetchUserInfo, times(firstSecondThirdAndEvictedSecond)).get();
+        assertThat(cache.size(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldNotCacheFailures() {
+        var cache = new CognitoUserInfoCache(10, clock);
+        var authorizationHeader = bearerToken(TOKEN_EXPIRES_AT);
+        when(fetchUserInfo.get()).thenThrow(new RuntimeException()).thenReturn(userInfo);
+
+        assertThrows(RuntimeException.class, () -> cache.fetch(authorizationHeader, fetchUserInfo));
+        var fetchedUserInfo = cache.fetch(authorizationHeader, fetchUserInfo);
+
+        assertThat(fetchedUserInfo, is(equalTo(userInfo)));
+    }
+
+    @Test
+    void shouldReturnDefaultCacheThatIsEmpty() {
+        assertThat(CognitoUserInfoCache.defaultCache().size(), is(equalTo(0)));
+    }
+
+    private static String bearerToken(Instant expiresAt) {
+        var token = JWT.create()
+                        .withSubject(randomString())
+                        .withExpiresAt(Date.from(expiresAt))
+                        .sign(Algorithm.HMAC256(randomString()));
+        return "Bearer " + token;
+    }
+}
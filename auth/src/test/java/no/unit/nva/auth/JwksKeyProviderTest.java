@@ -0,0 +1,174 @@
+package no.unit.nva.auth;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JwksKeyProviderTest {
+
+    private static final Instant NOW = Instant.parse("2023-06-01T10:15:30.00Z");
+    private static final Duration REFRESH_INTERVAL = Duration.ofHours(1);
+    private static final String JWKS_TEMPLATE = "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"%s\",\"n\":\"%s\",\"e\":\"%s\"},"
+                                                + "{\"kty\":\"EC\",\"kid\":\"%s\",\"x\":\"ignored\"}]}";
+    private HttpClient httpClient;
+    private HttpResponse<String> response;
+    private Clock clock;
+    private RSAPublicKey publicKey;
+    private String keyId;
+    private JwksKeyProvider keyProvider;
+
+    public static RSAPublicKey randomPublicKey() throws NoSuchAlgorithmException {
+        return (RSAPublicKey) KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+    }
+
+    public static String jwks(String keyId, RSAPublicKey publicKey) {
+        var encoder = Base64.getUrlEncoder().withoutPadding();
+        return String.format(JWKS_TEMPLATE, keyId,
+                             encoder.encodeToString(publicKey.getModulus().toByteArray()),
+                             encoder.encodeToString(publicKey.getPublicExponent().toByteArray()),
+                             randomString());
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() throws Exception {
+        publicKey = randomPublicKey();
+        keyId = randomString();
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(HttpURLConnection.HTTP_OK);
+        when(response.body()).thenReturn(jwks(keyId, publicKey));
+        httpClient = mock(HttpClient.class);
+        when(httpClient.send(any(), any())).thenAnswer(invocation -> response);
+        when(httpClient.sendAsync(any(), any())).thenAnswer(invocation -> CompletableFuture.completedFuture(response));
+        keyProvider = new JwksKeyProvider(httpClient, randomUri(), clock, REFRESH_INTERVAL);
+    }
+
+    @Test
+    void shouldReturnPublicKeyFromJwksAndFetchKeysOnlyOnce() throws Exception {
+        var firstKey = keyProvider.getPublicKeyById(keyId);
+        var secondKey = keyProvider.getPublicKeyById(keyId);
+
+        assertThat(firstKey, is(equalTo(publicKey)));
+        assertThat(secondKey, is(equalTo(publicKey)));
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    void shouldNotRefetchKeysForUnknownKeyIdWhenKeysWereFetchedRecently() throws Exception {
+        keyProvider.getPublicKeyById(keyId);
+        var unknownKey = keyProvider.getPublicKeyById(randomString());
+
+        assertThat(unknownKey, is(nullValue()));
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    void shouldFetchKeysOnlyOnceWhenConcurrentRequestsHaveSameUnknownKeyId() throws Exception {
+        when(httpClient.send(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return response;
+        });
+        var executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> keyProvider.getPublicKeyById(keyId));
+        }
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    void shouldRefetchKeysForUnknownKeyIdWhenKeysHaveBeenRotated() throws Exception {
+        keyProvider.getPublicKeyById(keyId);
+        var rotatedKeyId = randomString();
+        var rotatedKey = randomPublicKey();
+        when(response.body()).thenReturn(jwks(rotatedKeyId, rotatedKey));
+        when(clock.instant()).thenReturn(NOW.plus(JwksKeyProvider.MINIMUM_REFETCH_INTERVAL).plusSeconds(1));
+
+        assertThat(keyProvider.getPublicKeyById(rotatedKeyId), is(equalTo(rotatedKey)));
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void shouldRefreshKeysInBackgroundWhenKeysAreOlderThanRefreshInterval() throws Exception {
+        keyProvider.getPublicKeyById(keyId);
+        when(clock.instant()).thenReturn(NOW.plus(REFRESH_INTERVAL).plusSeconds(1));
+
+        assertThat(keyProvider.getPublicKeyById(keyId), is(equalTo(publicKey)));
+        verify(httpClient, times(1)).sendAsync(any(), any());
+    }
+
+    @Test
+    void shouldKeepServingCachedKeysWhenBackgroundRefreshFails() throws Exception {
+        keyProvider.getPublicKeyById(keyId);
+        when(clock.instant()).thenReturn(NOW.plus(REFRESH_INTERVAL).plusSeconds(1));
+        when(response.statusCode()).thenReturn(HttpURLConnection.HTTP_UNAVAILABLE);
+
+        keyProvider.getPublicKeyById(keyId);
+        assertThat(keyProvider.getPublicKeyById(keyId), is(equalTo(publicKey)));
+    }
+
+    @Test
+    void shouldReturnNullWhenKeysCannotBeFetched() throws Exception {
+        when(response.statusCode()).thenReturn(HttpURLConnection.HTTP_UNAVAILABLE);
+
+        assertThat(keyProvider.getPublicKeyById(keyId), is(nullValue()));
+        verify(httpClient, never()).sendAsync(any(), any());
+    }
+
+    @Test
+    void shouldNotRefetchKeysForUnknownKeyIdWhenRecentRefetchFailed() throws Exception {
+        when(response.statusCode()).thenReturn(HttpURLConnection.HTTP_UNAVAILABLE);
+        keyProvider.getPublicKeyById(randomString());
+        keyProvider.getPublicKeyById(randomString());
+        verify(httpClient, times(1)).send(any(), any());
+
+        when(clock.instant()).thenReturn(NOW.plus(JwksKeyProvider.MINIMUM_REFETCH_INTERVAL).plusSeconds(1));
+        when(response.statusCode()).thenReturn(HttpURLConnection.HTTP_OK);
+
+        assertThat(keyProvider.getPublicKeyById(keyId), is(equalTo(publicKey)));
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void shouldFetchKeysWithRequestTimeout() throws Exception {
+        keyProvider.getPublicKeyById(keyId);
+
+        verify(httpClient).send(argThat(request -> request.timeout().equals(Optional.of(
+            JwksKeyProvider.REQUEST_TIMEOUT))), any());
+    }
+
+    @Test
+    void shouldReturnNullWhenKeyIdIsMissing() {
+        assertThat(keyProvider.getPublicKeyById(null), is(nullValue()));
+    }
+}
@@ -0,0 +1,90 @@
+package no.unit.nva.auth.uriretriever;
+
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static no.unit.nva.auth.AuthorizedBackendClient.AUTHORIZATION_HEADER;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import no.unit.nva.stubs.FakeSecretsManagerClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AuthorizedBackendUriRetrieverTest {
+
+    private static final URI CONTENT_URI = URI.create("https://example.org/resource");
+    private static final String CBOR = "application/cbor";
+    private static final String TOKEN_PATH = "/oauth2/token";
+    private static final byte[] BINARY_CONTENT = {(byte) 0xBF, 0x00, (byte) 0xFF, 0x61};
+
+    private String accessToken;
+    private HttpResponse<byte[]> binaryResponse;
+    private AuthorizedBackendUriRetriever uriRetriever;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() throws IOException, InterruptedException {
+        accessToken = randomString();
+        HttpResponse<String> tokenResponse = mock(HttpResponse.class);
+        when(tokenResponse.body()).thenReturn("{\"access_token\": \"" + accessToken + "\"}");
+        binaryResponse = mock(HttpResponse.class);
+        when(binaryResponse.statusCode()).thenReturn(HTTP_OK);
+        when(binaryResponse.body()).thenReturn(BINARY_CONTENT);
+
+        var httpClient = mock(HttpClient.class);
+        when(httpClient.send(any(), any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            return TOKEN_PATH.equals(request.uri().getPath()) ? tokenResponse : authorized(request);
+        });
+
+        var secretName = randomString();
+        var credentials = new BackendClientCredentials(randomString(), randomString());
+        var secretsManagerClient = new FakeSecretsManagerClient()
+                                       .putPlainTextSecret(secretName, credentials.toString());
+        uriRetriever = new AuthorizedBackendUriRetriever(httpClient, secretsManagerClient, "auth.example.org",
+                                                         secretName);
+    }
+
+    @Test
+    void shouldFetchBinaryResponseWithTheBackendAccessToken() {
+        var response = uriRetriever.fetchBinaryResponse(CONTENT_URI, CBOR);
+
+        assertThat(response.orElseThrow().body(), is(equalTo(BINARY_CONTENT)));
+    }
+
+    @Test
+    void shouldReturnTheUndecodedBodyOfTheBinaryResponse() {
+        var content = uriRetriever.getRawBinaryContent(CONTENT_URI, CBOR);
+
+        assertThat(content.orElseThrow(), is(equalTo(BINARY_CONTENT)));
+    }
+
+    @Test
+    void shouldReturnEmptyBinaryContentWhenApiRespondsWithError() {
+        when(binaryResponse.statusCode()).thenReturn(HTTP_INTERNAL_ERROR);
+
+        var content = uriRetriever.getRawBinaryContent(CONTENT_URI, CBOR);
+
+        assertThat(content.isEmpty(), is(true));
+    }
+
+    private HttpResponse<byte[]> authorized(HttpRequest request) {
+        var isAuthorized = request.headers().firstValue(AUTHORIZATION_HEADER)
+                               .map(("Bearer " + accessToken)::equals)
+                               .orElse(false);
+        var acceptsCbor = request.headers().firstValue(UriRetriever.ACCEPT).map(CBOR::equals).orElse(false);
+        if (isAuthorized && acceptsCbor) {
+            return binaryResponse;
+        }
+        throw new IllegalStateException("Unexpected request: " + request);
+    }
+}
@@ -0,0 +1,67 @@
+package no.unit.nva.auth.uriretriever;
+
+import static no.unit.nva.auth.uriretriever.UriRetriever.ACCEPT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UriRetrieverTest {
+
+    private static final URI CONTENT_URI = URI.create("https://example.org/resource");
+    private static final String CBOR = "application/cbor";
+    private static final byte[] BINARY_CONTENT = {(byte) 0xBF, 0x00, (byte) 0xFF, 0x61};
+
+    private HttpClient httpClient;
+    private UriRetriever uriRetriever;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        HttpResponse<byte[]> binaryResponse = mock(HttpResponse.class);
+        when(binaryResponse.body()).thenReturn(BINARY_CONTENT);
+        when(httpClient.<byte[]>send(argThat(request -> acceptsMediaType(request.headers().firstValue(ACCEPT))),
+                                     any()))
+            .thenReturn(binaryResponse);
+        uriRetriever = new UriRetriever(httpClient);
+    }
+
+    @Test
+    void shouldFetchBinaryResponseWithTheRequestedMediaType() {
+        var response = uriRetriever.fetchBinaryResponse(CONTENT_URI, CBOR);
+
+        assertThat(response.orElseThrow().body(), is(equalTo(BINARY_CONTENT)));
+    }
+
+    @Test
+    void shouldReturnTheUndecodedBodyOfTheBinaryResponse() {
+        var content = uriRetriever.getRawBinaryContent(CONTENT_URI, CBOR);
+
+        assertThat(content.orElseThrow(), is(equalTo(BINARY_CONTENT)));
+    }
+
+    @Test
+    void shouldReturnEmptyWhenFetchingBinaryContentFails() throws IOException, InterruptedException {
+        doThrow(new IOException("Connection refused")).when(httpClient).send(any(), any());
+
+        var content = uriRetriever.getRawBinaryContent(CONTENT_URI, CBOR);
+
+        assertThat(content.isEmpty(), is(true));
+    }
+
+    private static boolean acceptsMediaType(Optional<String> accept) {
+        return accept.map(CBOR::equals).orElse(false);
+    }
+}
@@ -2,12 +2,13 @@ package nva.commons.core.exceptions;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.stream.Stream;
+import java.util.regex.Pattern;
 import nva.commons.core.StringUtils;
-import nva.commons.core.SingletonCollector;
 
 public final class ExceptionUtils {
 
+    private static final Pattern WHITESPACES = Pattern.compile(StringUtils.WHITESPACES);
+
     private ExceptionUtils() {
     }
 
@@ -20,10 +21,6 @@ public final class ExceptionUtils {
     public static String stackTraceInSingleLine(Exception e) {
         StringWriter sw = new StringWriter();
         e.printStackTrace(new PrintWriter(sw));
-        String exceptionString = sw.toString();
-        return Stream.of(exceptionString)
-            .map(StringUtils::removeMultipleWhiteSpaces)
-            .map(StringUtils::replaceWhiteSpacesWithSpace)
-            .collect(SingletonCollector.collect());
+        return WHITESPACES.matcher(sw.toString().trim()).replaceAll(StringUtils.SPACE);
     }
 }
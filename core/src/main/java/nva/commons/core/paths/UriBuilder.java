@@ -0,0 +1,195 @@
+package nva.commons.core.paths;
+
+import static java.util.Objects.nonNull;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Mutable builder of URIs, for generating many links, such as the links of a paginated response. Unlike
+ * {@link UriWrapper}, which creates a new {@link URI} for every path element and query parameter that is added, the
+ * builder accumulates the path and the query as percent-encoded text, and parses them into a {@link URI} only once in
+ * {@link UriBuilder#build()}.
+ *
+ * <p>Path elements are encoded as path segments, so a slash inside a path element is used as a path delimiter. Names
+ * and values of query parameters are encoded as query components, so that "&amp;", "=", "+" and "#" in a value are
+ * not mistaken for delimiters.
+ */
+@SuppressWarnings("PMD.AvoidStringBufferField") // The builder is short-lived, like the buffers of its URI
+public final class UriBuilder {
+
+    private static final String SCHEME_DELIMITER = "://";
+    private static final char PATH_DELIMITER = '/';
+    private static final char QUERY_DELIMITER = '?';
+    private static final char PARAMETER_DELIMITER = '&';
+    private static final char VALUE_DELIMITER = '=';
+    private static final char PERCENT = '%';
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final int ASCII_CHARACTERS = 128;
+    private static final int INITIAL_CAPACITY = 128;
+    private static final String UNRESERVED =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-._~";
+    /* default */ static final boolean[] PATH_SEGMENT_CHARACTERS = allowedCharacters(UNRESERVED + "!$&'()*+,;=:@");
+    /* default */ static final boolean[] QUERY_COMPONENT_CHARACTERS = allowedCharacters(UNRESERVED + "!$'()*,;:@/?");
+    private final String schemeAndAuthority;
+    private final StringBuilder path;
+    private final StringBuilder query;
+
+    private UriBuilder(String schemeAndAuthority, CharSequence path, CharSequence query) {
+        this.schemeAndAuthority = schemeAndAuthority;
+        this.path = new StringBuilder(INITIAL_CAPACITY).append(path);
+        this.query = new StringBuilder(INITIAL_CAPACITY).append(query);
+    }
+
+    /**
+     * Starts a builder with the scheme, authority, path and query of a URI. The fragment of the URI is dropped.
+     *
+     * @param uri the URI to start from.
+     * @return the builder.
+     */
+    public static UriBuilder fromUri(URI uri) {
+        var schemeAndAuthority = nonNull(uri.getScheme())
+                                     ? uri.getScheme() + SCHEME_DELIMITER + nullToEmpty(uri.getRawAuthority())
+                                     : nullToEmpty(uri.getRawAuthority());
+        return new UriBuilder(schemeAndAuthority, nullToEmpty(uri.getRawPath()), nullToEmpty(uri.getRawQuery()));
+    }
+
+    /**
+     * Starts a builder with an HTTPS URI of a host.
+     *
+     * @param host the host, e.g. api.example.org.
+     * @return the builder.
+     */
+    public static UriBuilder fromHost(String host) {
+        return new UriBuilder(UriWrapper.HTTPS + SCHEME_DELIMITER + host, "", "");
+    }
+
+    /**
+     * Copies the builder, e.g. for building several links that share a prefix.
+     *
+     * @return a builder with the same URI as this builder.
+     */
+    public UriBuilder copy() {
+        return new UriBuilder(schemeAndAuthority, path, query);
+    }
+
+    /**
+     * Appends path elements to the path. Path elements may contain several segments delimited by "/", and empty
+     * segments are ignored.
+     *
+     * @param pathElements the path elements.
+     * @return this builder.
+     */
+    public UriBuilder addChild(String... pathElements) {
+        for (var pathElement : pathElements) {
+            int start = 0;
+            while (start <= pathElement.length()) {
+                int end = pathElement.indexOf(PATH_DELIMITER, start);
+                end = end < 0 ? pathElement.length() : end;
+                if (end > start) {
+                    appendPathSegment(pathElement.substring(start, end));
+                }
+                start = end + 1;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends a query parameter to the query.
+     *
+     * @param name  the name of the query parameter.
+     * @param value the value of the query parameter.
+     * @return this builder.
+     */
+    public UriBuilder addQueryParameter(String name, String value) {
+        if (query.length() > 0) {
+            query.append(PARAMETER_DELIMITER);
+        }
+        appendEncoded(query, QUERY_COMPONENT_CHARACTERS, name);
+        query.append(VALUE_DELIMITER);
+        appendEncoded(query, QUERY_COMPONENT_CHARACTERS, value);
+        return this;
+    }
+
+    /**
+     * Appends query parameters to the query, in the iteration order of the map.
+     *
+     * @param parameters the query parameters.
+     * @return this builder.
+     */
+    public UriBuilder addQueryParameters(Map<String, String> parameters) {
+        for (var parameter : parameters.entrySet()) {
+            addQueryParameter(parameter.getKey(), parameter.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Builds the URI.
+     *
+     * @return the URI.
+     */
+    public URI build() {
+        var uri = new StringBuilder(schemeAndAuthority.length() + path.length() + query.length() + 1)
+                      .append(schemeAndAuthority)
+                      .append(path);
+        if (query.length() > 0) {
+            uri.append(QUERY_DELIMITER).append(query);
+        }
+        return URI.create(uri.toString());
+    }
+
+    @Override
+    public String toString() {
+        return build().toString();
+    }
+
+    /**
+     * Appends a value to a URI with the characters that are not allowed in its component percent-encoded as UTF-8.
+     *
+     * @param target  the URI that is being built.
+     * @param allowed the ASCII characters that are allowed in the component, indexed by character.
+     * @param value   the value.
+     */
+    /* default */ static void appendEncoded(StringBuilder target, boolean[] allowed, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character < ASCII_CHARACTERS && allowed[character]) {
+                target.append(character);
+            } else {
+                appendPercentEncoded(target, allowed, value.substring(i));
+                return;
+            }
+        }
+    }
+
+    private void appendPathSegment(String segment) {
+        if (path.length() == 0 || path.charAt(path.length() - 1) != PATH_DELIMITER) {
+            path.append(PATH_DELIMITER);
+        }
+        appendEncoded(path, PATH_SEGMENT_CHARACTERS, segment);
+    }
+
+    private static void appendPercentEncoded(StringBuilder target, boolean[] allowed, String value) {
+        for (byte octet : value.getBytes(StandardCharsets.UTF_8)) {
+            if (octet >= 0 && allowed[octet]) {
+                target.append((char) octet);
+            } else {
+                target.append(PERCENT).append(HEX_DIGITS[(octet >> 4) & 0xF]).append(HEX_DIGITS[octet & 0xF]);
+            }
+        }
+    }
+
+    private static boolean[] allowedCharacters(String characters) {
+        var allowed = new boolean[ASCII_CHARACTERS];
+        for (int i = 0; i < characters.length(); i++) {
+            allowed[characters.charAt(i)] = true;
+        }
+        return allowed;
+    }
+
+    private static String nullToEmpty(String value) {
+        return nonNull(value) ? value : "";
+    }
+}
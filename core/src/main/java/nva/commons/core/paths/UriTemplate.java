@@ -0,0 +1,116 @@
+package nva.commons.core.paths;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled URI template with placeholders in braces, such as
+ * {@code https://api.example.org/publication/{identifier}?size={size}}. The template is parsed once, so that expanding
+ * it only appends the literal parts and the percent-encoded values. Placeholders in the path are encoded as path
+ * segments, and placeholders in the query are encoded as query components.
+ */
+public final class UriTemplate {
+
+    public static final String MISSING_VALUE_ERROR = "Missing value for placeholder: ";
+    public static final String UNCLOSED_PLACEHOLDER_ERROR = "Unclosed placeholder in URI template: ";
+    private static final char PLACEHOLDER_START = '{';
+    private static final char PLACEHOLDER_END = '}';
+    private static final char QUERY_DELIMITER = '?';
+    private static final int ESTIMATED_VALUE_LENGTH = 16;
+    private final String template;
+    private final List<String> literals;
+    private final List<String> placeholders;
+    private final List<boolean[]> allowedCharacters;
+    private final int literalLength;
+
+    private UriTemplate(String template, List<String> literals, List<String> placeholders,
+                        List<boolean[]> allowedCharacters) {
+        this.template = template;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.allowedCharacters = allowedCharacters;
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Compiles a URI template. The literal parts of the template must be valid in a URI.
+     *
+     * @param template the template.
+     * @return the compiled template.
+     * @throws IllegalArgumentException when a placeholder is not closed.
+     */
+    public static UriTemplate compile(String template) {
+        var literals = new ArrayList<String>();
+        var placeholders = new ArrayList<String>();
+        var allowedCharacters = new ArrayList<boolean[]>();
+        int literalStart = 0;
+        int placeholderStart = template.indexOf(PLACEHOLDER_START);
+        while (placeholderStart >= 0) {
+            int placeholderEnd = template.indexOf(PLACEHOLDER_END, placeholderStart);
+            if (placeholderEnd < 0) {
+                throw new IllegalArgumentException(UNCLOSED_PLACEHOLDER_ERROR + template);
+            }
+            literals.add(template.substring(literalStart, placeholderStart));
+            placeholders.add(template.substring(placeholderStart + 1, placeholderEnd));
+            allowedCharacters.add(isInQuery(template, placeholderStart)
+                                      ? UriBuilder.QUERY_COMPONENT_CHARACTERS
+                                      : UriBuilder.PATH_SEGMENT_CHARACTERS);
+            literalStart = placeholderEnd + 1;
+            placeholderStart = template.indexOf(PLACEHOLDER_START, literalStart);
+        }
+        literals.add(template.substring(literalStart));
+        return new UriTemplate(template, List.copyOf(literals), List.copyOf(placeholders),
+                               List.copyOf(allowedCharacters));
+    }
+
+    /**
+     * Expands the template with values for its placeholders.
+     *
+     * @param values the values, by the names of the placeholders.
+     * @return the URI.
+     * @throws IllegalArgumentException when there is no value for a placeholder.
+     */
+    public URI expand(Map<String, String> values) {
+        var orderedValues = new String[placeholders.size()];
+        for (int i = 0; i < orderedValues.length; i++) {
+            orderedValues[i] = values.get(placeholders.get(i));
+        }
+        return expand(orderedValues);
+    }
+
+    /**
+     * Expands the template with values for its placeholders, in the order the placeholders appear in the template.
+     *
+     * @param values the values.
+     * @return the URI.
+     * @throws IllegalArgumentException when there is no value for a placeholder.
+     */
+    public URI expand(String... values) {
+        var uri = new StringBuilder(literalLength + ESTIMATED_VALUE_LENGTH * placeholders.size());
+        for (int i = 0; i < placeholders.size(); i++) {
+            if (i >= values.length || values[i] == null) {
+                throw new IllegalArgumentException(MISSING_VALUE_ERROR + placeholders.get(i));
+            }
+            uri.append(literals.get(i));
+            UriBuilder.appendEncoded(uri, allowedCharacters.get(i), values[i]);
+        }
+        uri.append(literals.get(placeholders.size()));
+        return URI.create(uri.toString());
+    }
+
+    public List<String> getPlaceholders() {
+        return placeholders;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private static boolean isInQuery(String template, int index) {
+        int queryStart = template.indexOf(QUERY_DELIMITER);
+        return queryStart >= 0 && queryStart < index;
+    }
+}
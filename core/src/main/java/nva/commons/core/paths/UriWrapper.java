@@ -4,6 +4,7 @@ import static java.util.Objects.isNull;
 import static nva.commons.core.attempt.Try.attempt;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import nva.commons.core.JacocoGenerated;
@@ -144,28 +145,38 @@ public class UriWrapper {
     }
 
     public UriWrapper addQueryParameter(String param, String value) {
-        var queryString = StringUtils.isBlank(uri.getQuery())
-                              ? param + "=" + value
-                              : uri.getQuery() + "&" + param + "=" + value;
+        return addQueryParameters(Collections.singletonMap(param, value));
+    }
+
+    /**
+     * Appends query parameters to the URI. The query is built first, so that the URI is created only once regardless
+     * of the number of parameters. Use {@link UriBuilder} for building URIs with encoded query parameters.
+     *
+     * @param parameters the query parameters.
+     * @return a UriWrapper with the query parameters appended to the query.
+     */
+    public UriWrapper addQueryParameters(Map<String, String> parameters) {
+        if (parameters.isEmpty()) {
+            return new UriWrapper(getUri());
+        }
+        var queryString = new StringBuilder(StringUtils.isBlank(uri.getQuery()) ? "" : uri.getQuery());
+        for (Map.Entry<String, String> e : parameters.entrySet()) {
+            if (queryString.length() > 0) {
+                queryString.append('&');
+            }
+            queryString.append(e.getKey()).append('=').append(e.getValue());
+        }
         URI newUri = attempt(() -> new URI(uri.getScheme(),
                                            uri.getUserInfo(),
                                            uri.getHost(),
                                            uri.getPort(),
                                            uri.getPath(),
-                                           queryString,
+                                           queryString.toString(),
                                            EMPTY_FRAGMENT))
             .orElseThrow();
         return new UriWrapper(newUri);
     }
 
-    public UriWrapper addQueryParameters(Map<String, String> parameters) {
-        UriWrapper uriWrapper = new UriWrapper(getUri());
-        for (Map.Entry<String, String> e : parameters.entrySet()) {
-            uriWrapper = uriWrapper.addQueryParameter(e.getKey(), e.getValue());
-        }
-        return uriWrapper;
-    }
-
     @Override
     public String toString() {
         return this.getUri().toString();
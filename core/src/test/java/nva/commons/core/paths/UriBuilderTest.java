@@ -0,0 +1,59 @@
+package nva.commons.core.paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import org.junit.jupiter.api.Test;
+
+class UriBuilderTest {
+
+    private static final String HOST = "https://www.example.org";
+
+    @Test
+    void shouldAppendPathSegmentsWithoutDuplicatingPathDelimiters() {
+        var uri = UriBuilder.fromUri(URI.create(HOST + "/base/")).addChild("/level1/", "level2//file.json").build();
+
+        assertThat(uri, is(equalTo(URI.create(HOST + "/base/level1/level2/file.json"))));
+    }
+
+    @Test
+    void shouldEncodeDelimitersInQueryParameterValues() {
+        var uri = UriBuilder.fromHost("www.example.org")
+                      .addQueryParameter("query", "a&b=c+d #e")
+                      .build();
+
+        assertThat(uri.getRawQuery(), is(equalTo("query=a%26b%3Dc%2Bd%20%23e")));
+        assertThat(uri.getQuery(), is(equalTo("query=a&b=c+d #e")));
+    }
+
+    @Test
+    void shouldEncodeNonAsciiCharactersAsUtf8() {
+        var uri = UriBuilder.fromHost("www.example.org").addChild("\u00e6\u00f8\u00e5 x").build();
+
+        assertThat(uri.getRawPath(), is(equalTo("/%C3%A6%C3%B8%C3%A5%20x")));
+    }
+
+    @Test
+    void shouldKeepExistingQueryAndAppendParametersInOrder() {
+        var parameters = new LinkedHashMap<String, String>();
+        parameters.put("b", "2");
+        parameters.put("a", "1");
+
+        var uri = UriBuilder.fromUri(URI.create(HOST + "/search?q=x%20y#fragment"))
+                      .addQueryParameters(parameters)
+                      .build();
+
+        assertThat(uri, is(equalTo(URI.create(HOST + "/search?q=x%20y&b=2&a=1"))));
+    }
+
+    @Test
+    void copyShouldNotShareStateWithOriginal() {
+        var base = UriBuilder.fromUri(URI.create(HOST)).addQueryParameter("size", "10");
+        var next = base.copy().addQueryParameter("offset", "10");
+
+        assertThat(base.build(), is(equalTo(URI.create(HOST + "?size=10"))));
+        assertThat(next.build(), is(equalTo(URI.create(HOST + "?size=10&offset=10"))));
+    }
+}
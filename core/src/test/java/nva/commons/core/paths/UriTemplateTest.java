@@ -0,0 +1,43 @@
+package nva.commons.core.paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class UriTemplateTest {
+
+    private static final UriTemplate TEMPLATE =
+        UriTemplate.compile("https://www.example.org/publication/{identifier}/files?name={name}&size={size}");
+
+    @Test
+    void shouldEncodePathAndQueryPlaceholdersForTheirComponent() {
+        var uri = TEMPLATE.expand(Map.of("identifier", "a/b", "name", "a/b&c", "size", "10"));
+
+        var expected = URI.create("https://www.example.org/publication/a%2Fb/files?name=a/b%26c&size=10");
+        assertThat(uri, is(equalTo(expected)));
+    }
+
+    @Test
+    void shouldExpandValuesInOrderOfPlaceholders() {
+        var uri = TEMPLATE.expand("123", "file", "5");
+
+        assertThat(uri, is(equalTo(URI.create("https://www.example.org/publication/123/files?name=file&size=5"))));
+        assertThat(TEMPLATE.getPlaceholders(), is(equalTo(List.of("identifier", "name", "size"))));
+    }
+
+    @Test
+    void shouldThrowWhenValueIsMissing() {
+        assertThrows(IllegalArgumentException.class, () -> TEMPLATE.expand(Map.of("identifier", "123")));
+        assertThrows(IllegalArgumentException.class, () -> TEMPLATE.expand("123"));
+    }
+
+    @Test
+    void shouldThrowWhenPlaceholderIsNotClosed() {
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile("https://www.example.org/{id"));
+    }
+}
@@ -11,11 +11,14 @@ import java.nio.ByteBuffer;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import nva.commons.core.JacocoGenerated;
 import nva.commons.core.ioutils.IoUtils;
@@ -24,6 +27,7 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsRequest;
@@ -41,6 +45,8 @@ public class FakeS3Client implements S3Client {
 
     public static final boolean LIST_ALL = true;
     private static final int START_FROM_BEGINNING = 0;
+    private static final int DEFAULT_MAX_KEYS = 1000;
+    private static final String PATH_DELIMITER = "/";
     private final Map<String, ByteBuffer> filesAndContent;
 
     public FakeS3Client(String... filesInBucket) {
@@ -93,8 +99,20 @@ public class FakeS3Client implements S3Client {
                 .isTruncated(nonNull(nextStartListingPoint)).build();
     }
 
+    /**
+     * Lists objects. Requests with a delimiter, a start-after key or a prefix that ends with a slash are answered in
+     * key order like S3 does, with the last listed key as continuation token. Other requests are answered in insertion
+     * order, see {@link FakeS3Client#listObjects(ListObjectsRequest)}.
+     *
+     * @param v2Request the request
+     * @return the response.
+     */
     @Override
     public ListObjectsV2Response listObjectsV2(ListObjectsV2Request v2Request){
+        if (nonNull(v2Request.delimiter()) || nonNull(v2Request.startAfter())
+            || nonNull(v2Request.prefix()) && v2Request.prefix().endsWith(PATH_DELIMITER)) {
+            return listObjectsV2InKeyOrder(v2Request);
+        }
         var oldRequest = ListObjectsRequest.builder()
                 .bucket(v2Request.bucket())
                 .marker(v2Request.continuationToken())
@@ -132,6 +150,56 @@ public class FakeS3Client implements S3Client {
 
     }
 
+    private ListObjectsV2Response listObjectsV2InKeyOrder(ListObjectsV2Request request) {
+        var prefix = Optional.ofNullable(request.prefix()).orElse("");
+        var startAfter = Optional.ofNullable(request.continuationToken()).orElse(request.startAfter());
+        var maxKeys = Optional.ofNullable(request.maxKeys()).orElse(DEFAULT_MAX_KEYS);
+        var listedCommonPrefix = Optional.ofNullable(startAfter)
+                                     .flatMap(key -> commonPrefix(key, prefix, request.delimiter()));
+        var keys = new TreeSet<>(filesAndContent.keySet()).stream()
+                       .filter(key -> key.startsWith(prefix))
+                       .filter(key -> isNull(startAfter) || key.compareTo(startAfter) > 0)
+                       .filter(key -> listedCommonPrefix.map(listed -> !key.startsWith(listed)).orElse(true))
+                       .collect(Collectors.toList());
+        var contents = new ArrayList<S3Object>();
+        var commonPrefixes = new LinkedHashSet<String>();
+        String lastKey = null;
+        for (var key : keys) {
+            if (contents.size() + commonPrefixes.size() >= maxKeys) {
+                return listObjectsV2Response(contents, commonPrefixes, lastKey);
+            }
+            var commonPrefix = commonPrefix(key, prefix, request.delimiter());
+            if (commonPrefix.isPresent()) {
+                commonPrefixes.add(commonPrefix.get());
+            } else {
+                contents.add(S3Object.builder().key(key).build());
+            }
+            lastKey = key;
+        }
+        return listObjectsV2Response(contents, commonPrefixes, null);
+    }
+
+    // S3 lists each common prefix once, also when its keys continue on the next page
+    private static Optional<String> commonPrefix(String key, String prefix, String delimiter) {
+        var delimiterIndex = nonNull(delimiter) && key.startsWith(prefix) ? key.indexOf(delimiter, prefix.length()) : -1;
+        return delimiterIndex >= 0
+                   ? Optional.of(key.substring(0, delimiterIndex + delimiter.length()))
+                   : Optional.empty();
+    }
+
+    private static ListObjectsV2Response listObjectsV2Response(List<S3Object> contents,
+                                                               Collection<String> commonPrefixes,
+                                                               String nextContinuationToken) {
+        return ListObjectsV2Response.builder()
+                   .contents(contents)
+                   .commonPrefixes(commonPrefixes.stream()
+                                       .map(prefix -> CommonPrefix.builder().prefix(prefix).build())
+                                       .collect(Collectors.toList()))
+                   .nextContinuationToken(nextContinuationToken)
+                   .isTruncated(nonNull(nextContinuationToken))
+                   .build();
+    }
+
     private String calculateNestStartListingPoint(List<String> fileKeys,
       int excludedEndIndex) {
         return excludedEndIndex >= fileKeys.size()
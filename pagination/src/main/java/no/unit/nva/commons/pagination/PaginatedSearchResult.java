@@ -1,15 +1,21 @@
 package no.unit.nva.commons.pagination;
 
 import static com.fasterxml.jackson.annotation.JsonInclude.Include.ALWAYS;
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import nva.commons.apigateway.exceptions.UnprocessableContentException;
-import nva.commons.core.paths.UriWrapper;
+import nva.commons.core.paths.UriBuilder;
 
 @JsonInclude(ALWAYS)
 public final class PaginatedSearchResult<T> {
@@ -17,40 +23,61 @@ public final class PaginatedSearchResult<T> {
     private static final String CONTEXT_FIELD_NAME = "@context";
     private static final String ID_FIELD_NAME = "id";
     private static final String TOTAL_HITS_FIELD_NAME = "totalHits";
+    private static final String TOTAL_HITS_RELATION_FIELD_NAME = "totalHitsRelation";
     private static final String NEXT_RESULTS_FIELD_NAME = "nextResults";
     private static final String PREVIOUS_RESULTS_FIELD_NAME = "previousResults";
     private static final String HITS_FIELD_NAME = "hits";
 
+    private static final String TOTAL_HITS_NOT_COUNTED_MESSAGE = "The total number of hits of the page is not counted";
+    private static final String HITS_ALREADY_STREAMED_MESSAGE
+        = "The hits of a streaming page have already been written, and can only be read once";
     private static final String PAGINATED_SEARCH_RESULT_CONTEXT
         = "https://bibsysdev.github.io/src/search/paginated-search-result.json";
 
     public static final String OFFSET_QUERY_PARAM_NAME = "offset";
     public static final String SIZE_QUERY_PARAM_NAME = "size";
+    public static final String CURSOR_QUERY_PARAM_NAME = "cursor";
+    public static final String TOTAL_HITS_QUERY_PARAM_NAME = "totalHits";
+    public static final String EXACT_TOTAL_HITS = "exact";
 
     @JsonProperty(CONTEXT_FIELD_NAME)
     private final URI context = URI.create(PAGINATED_SEARCH_RESULT_CONTEXT);
     @JsonProperty(ID_FIELD_NAME)
     private final URI id;
     @JsonProperty(TOTAL_HITS_FIELD_NAME)
-    private final int totalHits;
+    @JsonInclude(NON_NULL)
+    private final Integer totalHits;
+    @JsonProperty(TOTAL_HITS_RELATION_FIELD_NAME)
+    @JsonInclude(NON_NULL)
+    private final String totalHitsRelation;
     @JsonProperty(NEXT_RESULTS_FIELD_NAME)
     private final URI nextResults;
     @JsonProperty(PREVIOUS_RESULTS_FIELD_NAME)
     private final URI previousResults;
     @JsonProperty(HITS_FIELD_NAME)
-    private final List<T> hits;
+    private List<T> hits;
+    private final Iterator<T> hitIterator;
+    private boolean hitsStreamed;
 
     @JsonCreator
     private PaginatedSearchResult(@JsonProperty(ID_FIELD_NAME) URI id,
-                                 @JsonProperty(TOTAL_HITS_FIELD_NAME) int totalHits,
+                                 @JsonProperty(TOTAL_HITS_FIELD_NAME) Integer totalHits,
+                                 @JsonProperty(TOTAL_HITS_RELATION_FIELD_NAME) String totalHitsRelation,
                                  @JsonProperty(NEXT_RESULTS_FIELD_NAME) URI nextResults,
                                  @JsonProperty(PREVIOUS_RESULTS_FIELD_NAME) URI previousResults,
                                  @JsonProperty(HITS_FIELD_NAME) List<T> hits) {
+        this(id, totalHits, totalHitsRelation, nextResults, previousResults, hits, null);
+    }
+
+    private PaginatedSearchResult(URI id, Integer totalHits, String totalHitsRelation, URI nextResults,
+                                  URI previousResults, List<T> hits, Iterator<T> hitIterator) {
         this.id = id;
         this.totalHits = totalHits;
+        this.totalHitsRelation = totalHitsRelation;
         this.nextResults = nextResults;
         this.previousResults = previousResults;
         this.hits = hits;
+        this.hitIterator = hitIterator;
     }
 
     public static <T> PaginatedSearchResult<T> create(URI baseUri,
@@ -78,8 +105,110 @@ public final class PaginatedSearchResult<T> {
 
         return new PaginatedSearchResult<>(selfUri,
                                            totalHits,
+                                           null,
+                                           nextResults,
+                                           previousResults,
+                                           hits);
+    }
+
+    /**
+     * Creates a page of a result set whose hits are written as they are read from the iterator when the page is
+     * serialized, e.g. from {@link java.util.stream.Stream#iterator()} over the hits of a backend response, so that the
+     * page is not held in memory a second time. Since the number of hits is not known in advance, the page is assumed
+     * to be full when there may be more hits.
+     *
+     * <p>When the total is a lower bound, it is written with {@code "totalHitsRelation": "gte"}, unless the client asks
+     * for the exact total with the query parameter {@value TOTAL_HITS_QUERY_PARAM_NAME}={@value EXACT_TOTAL_HITS}.
+     *
+     * <p>The hits are read once, so the page can only be serialized once, and {@link PaginatedSearchResult#getHits()}
+     * must be called before the page is serialized if the hits are also needed as a list.
+     *
+     * @param baseUri         the URI of the search, without pagination query parameters.
+     * @param queryOffset     the offset of this page.
+     * @param querySize       the number of hits requested per page.
+     * @param totalHits       the total number of hits, which may be a lower bound.
+     * @param hits            the hits of this page, which are read once.
+     * @param queryParameters the other query parameters of the search.
+     * @param <T>             the type of the hits.
+     * @return the page.
+     * @throws UnprocessableContentException when the offset is negative or the size is not positive.
+     */
+    public static <T> PaginatedSearchResult<T> createStreaming(URI baseUri,
+                                                               int queryOffset,
+                                                               int querySize,
+                                                               TotalHits totalHits,
+                                                               Iterator<T> hits,
+                                                               Map<String, String> queryParameters)
+        throws UnprocessableContentException {
+
+        validateOffsetAndSize(queryOffset, querySize);
+
+        var total = totalHits.resolve(EXACT_TOTAL_HITS.equals(queryParameters.get(TOTAL_HITS_QUERY_PARAM_NAME)));
+        var selfUri = generateSelfUri(baseUri, queryOffset, querySize, queryParameters);
+        var nextResults = total.isLowerBound() || queryOffset + querySize < total.getValue()
+                              ? generateSelfUri(baseUri, queryOffset + querySize, querySize, queryParameters)
+                              : null;
+        var previousResults = calculatePreviousResults(queryOffset, total.getValue(), querySize, baseUri,
+                                                       queryParameters);
+
+        return new PaginatedSearchResult<>(selfUri,
+                                           total.getValue(),
+                                           total.getRelation(),
                                            nextResults,
                                            previousResults,
+                                           null,
+                                           hits);
+    }
+
+    public static <T> PaginatedSearchResult<T> createWithCursor(URI baseUri,
+                                                                String cursor,
+                                                                int querySize,
+                                                                List<T> hits,
+                                                                Object nextPosition)
+        throws UnprocessableContentException {
+        return createWithCursor(baseUri, cursor, querySize, null, hits, nextPosition, Collections.emptyMap());
+    }
+
+    /**
+     * Creates a page of a result set that is paginated with a cursor instead of an offset, such as the
+     * {@code search_after} of OpenSearch or the last evaluated key of DynamoDB. Fetching a page with a cursor costs the
+     * same regardless of how deep into the result set the page is. The result set can only be traversed forwards, so
+     * there are no previous results.
+     *
+     * @param baseUri         the URI of the search, without pagination query parameters.
+     * @param cursor          the cursor of this page, or null for the first page.
+     * @param querySize       the number of hits requested per page.
+     * @param totalHits       the total number of hits, or null when it is not counted.
+     * @param hits            the hits of this page.
+     * @param nextPosition    the sort values of the last hit of this page, encoded by {@link SearchCursor} into the
+     *                        cursor of the next page, or null when this is the last page.
+     * @param queryParameters the other query parameters of the search.
+     * @param <T>             the type of the hits.
+     * @return the page.
+     * @throws UnprocessableContentException when the size is not positive.
+     */
+    public static <T> PaginatedSearchResult<T> createWithCursor(URI baseUri,
+                                                                String cursor,
+                                                                int querySize,
+                                                                Integer totalHits,
+                                                                List<T> hits,
+                                                                Object nextPosition,
+                                                                Map<String, String> queryParameters)
+        throws UnprocessableContentException {
+
+        validateOffsetAndSize(0, querySize);
+
+        var selfUri = generateCursorUri(baseUri, cursor, querySize, queryParameters);
+        var nextResults = isLastCursorPage(querySize, hits.size(), nextPosition)
+                              ? null
+                              : generateCursorUri(baseUri, SearchCursor.encode(nextPosition), querySize,
+                                                  queryParameters);
+
+        return new PaginatedSearchResult<>(selfUri,
+                                           totalHits,
+                                           null,
+                                           nextResults,
+                                           null,
                                            hits);
     }
 
@@ -91,8 +220,38 @@ public final class PaginatedSearchResult<T> {
         return id;
     }
 
+    /**
+     * The total number of hits of the search.
+     *
+     * @return the total number of hits.
+     * @throws IllegalStateException when the total is not counted, which only happens for pages created by
+     *     {@link PaginatedSearchResult#createWithCursor}. Use {@link PaginatedSearchResult#getCountedTotalHits()} for
+     *     such pages.
+     */
+    @JsonIgnore
     public int getTotalHits() {
-        return totalHits;
+        return getCountedTotalHits().orElseThrow(() -> new IllegalStateException(TOTAL_HITS_NOT_COUNTED_MESSAGE));
+    }
+
+    /**
+     * The total number of hits of the search, which may not be counted for pages created by
+     * {@link PaginatedSearchResult#createWithCursor}.
+     *
+     * @return the total number of hits, or empty when the total is not counted.
+     */
+    @JsonIgnore
+    public Optional<Integer> getCountedTotalHits() {
+        return Optional.ofNullable(totalHits);
+    }
+
+    /**
+     * The relation of the total number of hits to the actual number of hits.
+     *
+     * @return {@value TotalHits#LOWER_BOUND_RELATION} or {@value TotalHits#EXACT_RELATION} for a page created by
+     *     {@link PaginatedSearchResult#createStreaming}, or null for other pages, whose totals are exact.
+     */
+    public String getTotalHitsRelation() {
+        return totalHitsRelation;
     }
 
     public URI getNextResults() {
@@ -103,10 +262,40 @@ public final class PaginatedSearchResult<T> {
         return previousResults;
     }
 
+    /**
+     * The hits of the page. The hits of a page created by {@link PaginatedSearchResult#createStreaming} are read from
+     * the iterator into a list by the first call.
+     *
+     * @return the hits.
+     * @throws IllegalStateException when the hits of a streaming page have already been written by serializing it.
+     */
     public List<T> getHits() {
+        if (Objects.isNull(hits) && Objects.nonNull(hitIterator)) {
+            failIfHitsAreStreamed();
+            var readHits = new ArrayList<T>();
+            hitIterator.forEachRemaining(readHits::add);
+            hits = readHits;
+        }
         return hits;
     }
 
+    @JsonProperty(HITS_FIELD_NAME)
+    @SuppressWarnings("PMD.UnusedPrivateMethod") // Used by Jackson for writing the hits as they are read
+    private Iterator<T> serializedHits() {
+        if (Objects.nonNull(hits)) {
+            return hits.iterator();
+        }
+        failIfHitsAreStreamed();
+        hitsStreamed = true;
+        return hitIterator;
+    }
+
+    private void failIfHitsAreStreamed() {
+        if (hitsStreamed) {
+            throw new IllegalStateException(HITS_ALREADY_STREAMED_MESSAGE);
+        }
+    }
+
     private static URI calculateNextResults(int queryOffset,
                                             int querySize,
                                             int totalHits,
@@ -150,11 +339,24 @@ public final class PaginatedSearchResult<T> {
     }
 
     private static URI generateSelfUri(URI baseUri, int queryOffset, int querySize, Map<String, String> queryParams) {
-        return UriWrapper.fromUri(baseUri)
+        return UriBuilder.fromUri(baseUri)
             .addQueryParameters(queryParams)
             .addQueryParameter(OFFSET_QUERY_PARAM_NAME, Integer.toString(queryOffset))
             .addQueryParameter(SIZE_QUERY_PARAM_NAME, Integer.toString(querySize))
-            .getUri();
+            .build();
+    }
+
+    private static boolean isLastCursorPage(int querySize, int numberOfHits, Object nextPosition) {
+        return Objects.isNull(nextPosition) || numberOfHits < querySize;
+    }
+
+    private static URI generateCursorUri(URI baseUri, String cursor, int querySize,
+                                         Map<String, String> queryParams) {
+        var uri = UriBuilder.fromUri(baseUri).addQueryParameters(queryParams);
+        if (Objects.nonNull(cursor)) {
+            uri.addQueryParameter(CURSOR_QUERY_PARAM_NAME, cursor);
+        }
+        return uri.addQueryParameter(SIZE_QUERY_PARAM_NAME, Integer.toString(querySize)).build();
     }
 
     private static void validateOffsetAndSize(int offset, int size) throws UnprocessableContentException {
@@ -0,0 +1,73 @@
+package no.unit.nva.commons.pagination;
+
+import static no.unit.nva.commons.json.JsonUtils.singleLineObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import nva.commons.apigateway.exceptions.UnprocessableContentException;
+
+/**
+ * Encodes the position of a page in a result set as an opaque cursor, for keyset pagination. The position is the sort
+ * values of the last hit of the previous page, such as the {@code sort} values that OpenSearch expects in
+ * {@code search_after}, or the last evaluated key of a DynamoDB query. The position is written as single line JSON by
+ * {@link no.unit.nva.commons.json.JsonUtils#singleLineObjectMapper}, so that values such as instants are written as
+ * they are in the rest of the API, and encoded as base64url without padding, so that the cursor can be used in a query
+ * parameter as it is.
+ */
+public final class SearchCursor {
+
+    public static final String INVALID_CURSOR_MESSAGE = "Unable to process invalid cursor";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private SearchCursor() {
+    }
+
+    /**
+     * Encodes the position of a page.
+     *
+     * @param position the sort values of the last hit of the previous page, e.g. a list or a map.
+     * @return the cursor.
+     */
+    public static String encode(Object position) {
+        try {
+            return ENCODER.encodeToString(singleLineObjectMapper.writeValueAsBytes(position));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes a cursor that was encoded by {@link SearchCursor#encode(Object)}.
+     *
+     * @param cursor the cursor, e.g. from the query parameters of a request.
+     * @return the position of the page.
+     * @throws UnprocessableContentException when the cursor is not valid.
+     */
+    public static JsonNode decode(String cursor) throws UnprocessableContentException {
+        try {
+            return singleLineObjectMapper.readTree(DECODER.decode(cursor));
+        } catch (IllegalArgumentException | IOException e) {
+            throw new UnprocessableContentException(INVALID_CURSOR_MESSAGE);
+        }
+    }
+
+    /**
+     * Decodes a cursor that was encoded by {@link SearchCursor#encode(Object)}.
+     *
+     * @param cursor        the cursor, e.g. from the query parameters of a request.
+     * @param positionClass the class of the position.
+     * @param <C>           the type of the position.
+     * @return the position of the page.
+     * @throws UnprocessableContentException when the cursor is not valid.
+     */
+    public static <C> C decode(String cursor, Class<C> positionClass) throws UnprocessableContentException {
+        try {
+            return singleLineObjectMapper.treeToValue(decode(cursor), positionClass);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new UnprocessableContentException(INVALID_CURSOR_MESSAGE);
+        }
+    }
+}
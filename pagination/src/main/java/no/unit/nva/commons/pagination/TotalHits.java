@@ -0,0 +1,70 @@
+package no.unit.nva.commons.pagination;
+
+import java.util.function.IntSupplier;
+
+/**
+ * The total number of hits of a search, which may be a lower bound when counting every hit is expensive, such as the
+ * {@code gte} totals of OpenSearch when {@code track_total_hits} is limited. The exact count of a lower bound is only
+ * computed when the client asks for it with the query parameter
+ * {@value PaginatedSearchResult#TOTAL_HITS_QUERY_PARAM_NAME}={@value PaginatedSearchResult#EXACT_TOTAL_HITS}.
+ */
+public final class TotalHits {
+
+    public static final String EXACT_RELATION = "eq";
+    public static final String LOWER_BOUND_RELATION = "gte";
+    private final int value;
+    private final IntSupplier exactCount;
+
+    private TotalHits(int value, IntSupplier exactCount) {
+        this.value = value;
+        this.exactCount = exactCount;
+    }
+
+    /**
+     * A total that is exact.
+     *
+     * @param totalHits the total number of hits.
+     * @return the total.
+     */
+    public static TotalHits exact(int totalHits) {
+        return new TotalHits(totalHits, null);
+    }
+
+    /**
+     * A total that may be larger than the number of hits counted so far.
+     *
+     * @param lowerBound the number of hits counted so far.
+     * @param exactCount counts every hit, when the client asks for the exact total.
+     * @return the total.
+     */
+    public static TotalHits atLeast(int lowerBound, IntSupplier exactCount) {
+        return new TotalHits(lowerBound, exactCount);
+    }
+
+    /**
+     * The total to return to the client.
+     *
+     * @param exactRequested whether the client asked for the exact total.
+     * @return the exact total, or the lower bound when the client did not ask for the exact total.
+     */
+    public TotalHits resolve(boolean exactRequested) {
+        return exactRequested && isLowerBound() ? exact(exactCount.getAsInt()) : this;
+    }
+
+    /**
+     * The relation of the total to the actual number of hits, as in the total hits of OpenSearch.
+     *
+     * @return {@value LOWER_BOUND_RELATION} for a lower bound, or {@value EXACT_RELATION} for an exact total.
+     */
+    public String getRelation() {
+        return isLowerBound() ? LOWER_BOUND_RELATION : EXACT_RELATION;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public boolean isLowerBound() {
+        return exactCount != null;
+    }
+}
@@ -4,16 +4,22 @@ import static no.unit.nva.hamcrest.DoesNotHaveEmptyValues.doesNotHaveEmptyValues
 import static no.unit.nva.testutils.RandomDataGenerator.randomString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.collection.IsEmptyIterable.emptyIterable;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.net.URI;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import nva.commons.apigateway.exceptions.UnprocessableContentException;
 import nva.commons.core.paths.UriWrapper;
 import org.junit.jupiter.api.Test;
@@ -30,7 +36,8 @@ class PaginatedSearchResultTest {
     void shouldPopulateContextIdTotalHitsAndHitsAlways() throws UnprocessableContentException {
         var result = PaginatedSearchResult.create(BASE_URI, 0, 5, 0, Collections.emptyList());
 
-        assertThat(result, doesNotHaveEmptyValuesIgnoringFields(Set.of("nextResults", "previousResults", "hits")));
+        assertThat(result, doesNotHaveEmptyValuesIgnoringFields(Set.of("nextResults", "previousResults", "hits",
+                                                                         "totalHitsRelation")));
         assertThat(result.getHits(), emptyIterable());
     }
 
@@ -132,6 +139,151 @@ class PaginatedSearchResultTest {
                                                         Collections.emptyMap()));
     }
 
+    @Test
+    void shouldPopulateNextResultsWithCursorOfLastHitWhenPageIsFull() throws UnprocessableContentException {
+        var hits = generateRandomHits(2);
+        var lastSortValues = List.of(1_700_000_000_000L, hits.get(1));
+        var result = PaginatedSearchResult.createWithCursor(BASE_URI, null, 2, hits, lastSortValues);
+
+        var cursor = SearchCursor.encode(lastSortValues);
+        assertThat(result.getNextResults(), is(equalTo(URI.create("https://localhost?cursor=" + cursor + "&size=2"))));
+        assertThat(SearchCursor.decode(cursor, List.class), is(equalTo(lastSortValues)));
+        assertThat(result.getId(), is(equalTo(URI.create("https://localhost?size=2"))));
+        assertThat(result.getPreviousResults(), nullValue());
+        assertThat(result.getCountedTotalHits().isEmpty(), is(true));
+        assertThrows(IllegalStateException.class, result::getTotalHits);
+    }
+
+    @Test
+    void shouldNotWriteTotalHitsOfCursorPageWhenTotalIsNotCounted() throws Exception {
+        var result = PaginatedSearchResult.createWithCursor(BASE_URI, null, 5, generateRandomHits(4),
+                                                            List.of(randomString()));
+
+        var json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(result));
+
+        assertThat(json.has("totalHits"), is(false));
+        assertThat(json.get("hits").size(), is(equalTo(4)));
+    }
+
+    @Test
+    void shouldDecodeCursorWithInstantsAsTheyWereEncoded() throws UnprocessableContentException {
+        var position = new CursorPosition(Instant.parse("2024-05-01T12:30:00.123Z"), randomString());
+
+        var cursor = SearchCursor.encode(position);
+
+        assertThat(SearchCursor.decode(cursor, CursorPosition.class), is(equalTo(position)));
+        assertThat(SearchCursor.decode(cursor).get("modified").textValue(), is(equalTo("2024-05-01T12:30:00.123Z")));
+    }
+
+    @Test
+    void shouldKeepCursorAndQueryParamsInIdOfCursorPage() throws UnprocessableContentException {
+        var cursor = SearchCursor.encode(List.of(randomString()));
+        var queryParams = Map.of(QUERY_PARAM_FIELD_NAME, QUERY_PARAM_FIELD_VALUE);
+        var result = PaginatedSearchResult.createWithCursor(BASE_URI, cursor, 5, 50, generateRandomHits(5),
+                                                            List.of(randomString()), queryParams);
+
+        var expectedId = URI.create("https://localhost?key=value&cursor=" + cursor + "&size=5");
+        assertThat(result.getId(), is(equalTo(expectedId)));
+        assertThat(result.getTotalHits(), is(equalTo(50)));
+        assertThat(result.getCountedTotalHits(), is(equalTo(Optional.of(50))));
+    }
+
+    @Test
+    void shouldNotPopulateNextResultsWhenCursorPageIsNotFull() throws UnprocessableContentException {
+        var result = PaginatedSearchResult.createWithCursor(BASE_URI, null, 5, generateRandomHits(4),
+                                                            List.of(randomString()));
+
+        assertThat(result.getNextResults(), nullValue());
+    }
+
+    @Test
+    void shouldThrowUnprocessableContentExceptionOnInvalidCursor() {
+        assertThrows(UnprocessableContentException.class, () -> SearchCursor.decode("not a cursor"));
+    }
+
+    @Test
+    void shouldWriteStreamedHitsAndLowerBoundTotalWithoutCountingExactTotal() throws Exception {
+        var exactTotalCounted = new AtomicBoolean();
+        var hits = generateRandomHits(2);
+        var totalHits = TotalHits.atLeast(10_000, () -> {
+            exactTotalCounted.set(true);
+            return 12_345;
+        });
+        var result = PaginatedSearchResult.createStreaming(BASE_URI, 0, 2, totalHits, hits.stream().iterator(),
+                                                           Collections.emptyMap());
+
+        var json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(result));
+
+        assertThat(json.get("hits").get(1).textValue(), is(equalTo(hits.get(1))));
+        assertThat(json.get("totalHits").intValue(), is(equalTo(10_000)));
+        assertThat(json.get("totalHitsRelation").textValue(), is(equalTo(TotalHits.LOWER_BOUND_RELATION)));
+        assertThat(result.getNextResults(), is(equalTo(URI.create("https://localhost?offset=2&size=2"))));
+        assertThat(exactTotalCounted.get(), is(false));
+    }
+
+    @Test
+    void shouldCountExactTotalOfStreamedHitsWhenClientAsksForIt() throws UnprocessableContentException {
+        var queryParams = Map.of(PaginatedSearchResult.TOTAL_HITS_QUERY_PARAM_NAME,
+                                 PaginatedSearchResult.EXACT_TOTAL_HITS);
+        var hits = generateRandomHits(2);
+        var result = PaginatedSearchResult.createStreaming(BASE_URI, 4, 2, TotalHits.atLeast(5, () -> 6),
+                                                           hits.iterator(), queryParams);
+
+        assertThat(result.getTotalHits(), is(equalTo(6)));
+        assertThat(result.getTotalHitsRelation(), is(equalTo(TotalHits.EXACT_RELATION)));
+        assertThat(result.getNextResults(), nullValue());
+        assertThat(result.getHits(), is(equalTo(hits)));
+    }
+
+    @Test
+    void shouldNotWriteTotalHitsRelationForPagesWithExactTotals() throws Exception {
+        var result = PaginatedSearchResult.create(BASE_URI, 0, 5, 1, List.of(randomString()));
+
+        var json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(result));
+
+        assertThat(json.has("totalHitsRelation"), is(false));
+        assertThat(json.get("hits").size(), is(equalTo(1)));
+    }
+
+    @Test
+    void shouldWriteExactTotalHitsRelationForStreamingPageWithExactTotal() throws Exception {
+        var result = PaginatedSearchResult.createStreaming(BASE_URI, 0, 5, TotalHits.exact(1),
+                                                           List.of(randomString()).iterator(),
+                                                           Collections.emptyMap());
+
+        var json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(result));
+
+        assertThat(json.get("totalHitsRelation").textValue(), is(equalTo(TotalHits.EXACT_RELATION)));
+    }
+
+    @Test
+    void shouldThrowWhenStreamingPageIsSerializedTwice() throws Exception {
+        var result = PaginatedSearchResult.createStreaming(BASE_URI, 0, 2, TotalHits.exact(2),
+                                                           generateRandomHits(2).iterator(),
+                                                           Collections.emptyMap());
+        var objectMapper = new ObjectMapper();
+        objectMapper.writeValueAsString(result);
+
+        var exception = assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(result));
+
+        assertThat(exception.getCause(), is(instanceOf(IllegalStateException.class)));
+        assertThrows(IllegalStateException.class, result::getHits);
+    }
+
+    @Test
+    void shouldSerializeStreamingPageAgainAfterItsHitsAreRead() throws Exception {
+        var hits = generateRandomHits(2);
+        var result = PaginatedSearchResult.createStreaming(BASE_URI, 0, 2, TotalHits.exact(2), hits.iterator(),
+                                                           Collections.emptyMap());
+        result.getHits();
+        var objectMapper = new ObjectMapper();
+        objectMapper.writeValueAsString(result);
+
+        var json = objectMapper.readTree(objectMapper.writeValueAsString(result));
+
+        assertThat(json.get("hits").get(1).textValue(), is(equalTo(hits.get(1))));
+    }
+
     private URI getUri(Map<String, String> queryParams, String offset, String size) {
         return UriWrapper.fromUri("https://localhost")
             .addQueryParameters(queryParams)
@@ -147,4 +299,8 @@ class PaginatedSearchResultTest {
         }
         return hits;
     }
+
+    private record CursorPosition(Instant modified, String identifier) {
+
+    }
 }
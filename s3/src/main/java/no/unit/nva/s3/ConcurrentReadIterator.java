@@ -0,0 +1,95 @@
+package no.unit.nva.s3;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import nva.commons.core.paths.UnixPath;
+
+/**
+ * Reads files concurrently while keeping at most {@code concurrency} reads in flight. A new read starts whenever a
+ * result is consumed, so that a slow consumer does not cause the files to pile up in memory.
+ *
+ * <p>In ordered mode, the files are returned in the order of the listing, while the following files are read in the
+ * background. In unordered mode, the files are returned as soon as they have been read.
+ */
+final class ConcurrentReadIterator implements Iterator<S3FileContent>, AutoCloseable {
+
+    private final Iterator<UnixPath> files;
+    private final Function<UnixPath, S3FileContent> reader;
+    private final Executor executor;
+    private final int concurrency;
+    private final boolean ordered;
+    private final Deque<CompletableFuture<S3FileContent>> inFlight;
+    private final BlockingQueue<S3FileContent> completed;
+    private int pending;
+
+    /**
+     * Creates an iterator that starts reading when it is first consumed.
+     *
+     * @param files       the files to read.
+     * @param reader      reads a file, capturing a failure in its result instead of throwing.
+     * @param executor    the executor that reads the files.
+     * @param concurrency the maximum number of files that are read at the same time.
+     * @param ordered     whether the files are returned in the order of the listing.
+     */
+    /* default */ ConcurrentReadIterator(Iterator<UnixPath> files, Function<UnixPath, S3FileContent> reader,
+                                         Executor executor, int concurrency, boolean ordered) {
+        this.files = files;
+        this.reader = reader;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.ordered = ordered;
+        this.inFlight = new ArrayDeque<>();
+        this.completed = new LinkedBlockingQueue<>();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending < concurrency && files.hasNext()) {
+            read(files.next());
+        }
+        return pending > 0;
+    }
+
+    @Override
+    public S3FileContent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        pending--;
+        return ordered ? inFlight.remove().join() : take();
+    }
+
+    /**
+     * Cancels the reads that have not started, when the caller stops before the end of the listing.
+     */
+    @Override
+    public void close() {
+        inFlight.forEach(read -> read.cancel(false));
+    }
+
+    private void read(UnixPath file) {
+        var read = CompletableFuture.supplyAsync(() -> reader.apply(file), executor);
+        if (!ordered) {
+            inFlight.removeIf(CompletableFuture::isDone);
+            read.thenAccept(completed::add);
+        }
+        inFlight.add(read);
+        pending++;
+    }
+
+    private S3FileContent take() {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package no.unit.nva.s3;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static nva.commons.core.attempt.Try.attempt;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -10,9 +11,20 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.GZIPInputStream;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
@@ -35,9 +47,11 @@ import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
 //TODO: Address God Class issue
-@SuppressWarnings("PMD.GodClass")
+@SuppressWarnings({"PMD.GodClass", "PMD.DoNotUseThreads"})
 public class S3Driver {
 
     public static final String GZIP_ENDING = ".gz";
@@ -54,9 +68,16 @@ public class S3Driver {
     public static final String S3_SCHEME = "s3";
     public static final int IDLE_TIME = 30;
     public static final int TIMEOUT_TIME = 30;
+    public static final int DEFAULT_READ_CONCURRENCY = 32;
     private static final Environment ENVIRONMENT = new Environment();
+    private static final ExecutorService BACKGROUND_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "s3-background");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final S3Client client;
     private final String bucketName;
+    private S3Presigner presigner;
 
     @JacocoGenerated
     public S3Driver(String bucketName) {
@@ -68,6 +89,18 @@ public class S3Driver {
         this.bucketName = bucketName;
     }
 
+    /**
+     * Constructor for a driver that also creates pre-signed URLs.
+     *
+     * @param s3Client   the client for accessing the bucket.
+     * @param presigner  the presigner for creating pre-signed URLs.
+     * @param bucketName the name of the bucket.
+     */
+    public S3Driver(S3Client s3Client, S3Presigner presigner, String bucketName) {
+        this(s3Client, bucketName);
+        this.presigner = presigner;
+    }
+
     @JacocoGenerated
     public static S3Driver fromPermanentCredentialsInEnvironment(String bucketName) {
         verifyThatRequiredEnvVariablesAreInPlace();
@@ -77,13 +110,22 @@ public class S3Driver {
         return new S3Driver(s3Client, bucketName);
     }
 
+    /**
+     * Creates a presigner for the region of the default S3 client.
+     *
+     * @return an S3 presigner.
+     */
+    @JacocoGenerated
+    public static S3Presigner defaultS3Presigner() {
+        return S3Presigner.builder()
+                   .region(defaultRegion())
+                   .build();
+    }
+
     @JacocoGenerated
     public static S3ClientBuilder defaultS3Client() {
-        Region region = ENVIRONMENT.readEnvOpt(AWS_REGION_ENV_VARIABLE)
-                            .map(Region::of)
-                            .orElse(Region.EU_WEST_1);
         return S3Client.builder()
-                   .region(region)
+                   .region(defaultRegion())
                    .httpClient(httpClientForConcurrentQueries());
     }
 
@@ -109,6 +151,53 @@ public class S3Driver {
         return s3BucketUri().addChild(fullPath).getUri();
     }
 
+    /**
+     * Inserts content of known length by streaming it to S3, without reading the whole content into memory first.
+     *
+     * @param fullPath      the Location path of the item (without the bucketname)
+     * @param content       The data we want to store
+     * @param contentLength the number of bytes in the content
+     * @return URI for the S3 object
+     */
+    public URI insertFile(UnixPath fullPath, InputStream content, long contentLength) {
+        client.putObject(newPutObjectRequest(fullPath), RequestBody.fromInputStream(content, contentLength));
+        return s3BucketUri().addChild(fullPath).getUri();
+    }
+
+    /**
+     * Inserts binary content together with the Content-Type and Content-Encoding that clients need for interpreting
+     * the content when they download it directly from S3, e.g. through a pre-signed URL.
+     *
+     * @param fullPath        the Location path of the item (without the bucketname)
+     * @param content         the data we want to store
+     * @param contentType     the media type of the data
+     * @param contentEncoding the encoding the data is compressed with
+     * @return URI for the S3 object
+     */
+    public URI insertFile(UnixPath fullPath, byte[] content, String contentType, String contentEncoding) {
+        var request = newPutObjectRequest(fullPath).toBuilder()
+                          .contentType(contentType)
+                          .contentEncoding(contentEncoding)
+                          .build();
+        client.putObject(request, RequestBody.fromBytes(content));
+        return s3BucketUri().addChild(fullPath).getUri();
+    }
+
+    /**
+     * Creates a URL that grants anyone holding it read access to a file for a limited time.
+     *
+     * @param file     the path of the file (without the bucketname)
+     * @param validity how long the URL can be used
+     * @return a pre-signed HTTPS URL for the file
+     */
+    public URI createPresignedGetUrl(UnixPath file, Duration validity) {
+        var presignRequest = GetObjectPresignRequest.builder()
+                                 .signatureDuration(validity)
+                                 .getObjectRequest(createGetObjectRequest(file))
+                                 .build();
+        return attempt(() -> getPresigner().presignGetObject(presignRequest).url().toURI()).orElseThrow();
+    }
+
     /**
      * Method for creating event bodies in S3 bucket.
      *
@@ -170,11 +259,48 @@ public class S3Driver {
         return insertAndCompressObjects(UnixPath.EMPTY_PATH, content);
     }
 
+    /**
+     * Reads the contents of all files in a folder, {@value DEFAULT_READ_CONCURRENCY} files at a time.
+     *
+     * @param folder The folder that we wish to read its files.
+     * @return the contents of the files, in the order of the listing.
+     */
     public List<String> getFiles(UnixPath folder) {
-        return listAllFiles(folder)
-                   .stream()
-                   .map(this::getFile)
-                   .collect(Collectors.toList());
+        try (var files = readFiles(folder, DEFAULT_READ_CONCURRENCY, true)) {
+            return files.map(file -> file.getContent().orElseThrow()).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads the files of a folder concurrently, while the folder is being listed. At most {@code concurrency} files are
+     * read at the same time, and a file that cannot be read is returned as a failure, without stopping the reading of
+     * the other files. Close the stream when it is not consumed to the end.
+     *
+     * @param folder      The folder that we wish to read its files.
+     * @param concurrency The maximum number of files that are read at the same time.
+     * @param ordered     Whether the files are returned in the order of the listing, or as soon as they have been read.
+     * @return the contents of the files.
+     */
+    public Stream<S3FileContent> readFiles(UnixPath folder, int concurrency, boolean ordered) {
+        return readFiles(streamAllFiles(folder), concurrency, ordered);
+    }
+
+    /**
+     * Reads files concurrently, e.g. the files of a listing that has been filtered. At most {@code concurrency} files
+     * are read at the same time, and a file that cannot be read is returned as a failure, without stopping the reading
+     * of the other files. Closing the returned stream closes the input stream.
+     *
+     * @param files       The files that we wish to read.
+     * @param concurrency The maximum number of files that are read at the same time.
+     * @param ordered     Whether the files are returned in the order of the input, or as soon as they have been read.
+     * @return the contents of the files.
+     */
+    @SuppressWarnings("PMD.CloseResource") // The iterator is closed when the stream is closed
+    public Stream<S3FileContent> readFiles(Stream<UnixPath> files, int concurrency, boolean ordered) {
+        var contents = new ConcurrentReadIterator(files.iterator(),
+                                                  file -> new S3FileContent(file, attempt(() -> getFile(file))),
+                                                  BACKGROUND_EXECUTOR, concurrency, ordered);
+        return toStream(contents).onClose(contents::close).onClose(files::close);
     }
 
     public List<UnixPath> listAllFiles(URI s3Uri) {
@@ -182,18 +308,68 @@ public class S3Driver {
     }
 
     public List<UnixPath> listAllFiles(UnixPath folder) {
+        try (var files = streamAllFiles(folder)) {
+            return files.collect(Collectors.toList());
+        }
+    }
 
-        ListingResult result = ListingResult.emptyResult();
-        do {
-            var currentStartingPoint = result.getListingStartingPoint();
-            var newBatch = listFiles(calculateListingFolder(folder),
-                                     currentStartingPoint,
-                                     MAX_RESPONSE_SIZE_FOR_S3_LISTING);
+    /**
+     * Lists the files of a folder lazily. The listing is fetched one page at a time as the stream is consumed, and the
+     * next page is fetched in the background while the current page is consumed, so that folders with millions of
+     * files can be processed without holding their listing in memory. Close the stream when it is not consumed to the
+     * end.
+     *
+     * @param folder The folder that we wish to list its files.
+     * @return the files of the folder.
+     */
+    @SuppressWarnings("PMD.CloseResource") // The iterator is closed when the stream is closed
+    public Stream<UnixPath> streamAllFiles(UnixPath folder) {
+        var listingFolder = calculateListingFolder(folder);
+        var files = new S3ListingIterator(
+            startingPoint -> listFiles(listingFolder, startingPoint, MAX_RESPONSE_SIZE_FOR_S3_LISTING),
+            BACKGROUND_EXECUTOR);
+        return toStream(files).onClose(files::close);
+    }
 
-            result = result.add(newBatch);
-        } while (result.isTruncated());
+    /**
+     * Lists the files of a folder in parallel shards, one shard per subfolder of the folder, and one shard per run of
+     * files that are directly in the folder. A single listing is serial, so listing the subfolders of a large folder
+     * concurrently makes the listing several times faster when the files are spread over many subfolders. The folder
+     * itself is listed one page at a time as the shards are needed, so the files directly in the folder are listed
+     * serially: use {@link #streamAllFilesInParallel(UnixPath, List, int, boolean)} for flat folders.
+     *
+     * @param folder      The folder that we wish to list its files.
+     * @param parallelism The maximum number of shards that are listed concurrently.
+     * @param ordered     Whether the files are returned in key order, or as soon as any shard has listed them.
+     * @return the files of the folder.
+     */
+    public Stream<UnixPath> streamAllFilesInParallel(UnixPath folder, int parallelism, boolean ordered) {
+        return streamShards(discoverShards(folderPrefix(folder)).iterator(), parallelism, ordered);
+    }
 
-        return result.getFiles();
+    /**
+     * Lists the files of a folder in parallel shards between split points, e.g. the hex digits that identifiers in the
+     * folder start with. The split points are keys relative to the folder, in ascending order. The first shard
+     * contains the keys up to and including the first split point, and each of the following shards contains the keys
+     * after a split point up to and including the next one.
+     *
+     * @param folder      The folder that we wish to list its files.
+     * @param splitPoints The keys relative to the folder that separate the shards, in ascending order.
+     * @param parallelism The maximum number of shards that are listed concurrently.
+     * @param ordered     Whether the files are returned in key order, or as soon as any shard has listed them.
+     * @return the files of the folder.
+     */
+    public Stream<UnixPath> streamAllFilesInParallel(UnixPath folder, List<String> splitPoints, int parallelism,
+                                                     boolean ordered) {
+        var prefix = folderPrefix(folder);
+        var shards = new ArrayList<Supplier<Stream<UnixPath>>>();
+        String startAfter = null;
+        for (var splitPoint : splitPoints) {
+            shards.add(keyRange(prefix, startAfter, prefix + splitPoint));
+            startAfter = prefix + splitPoint;
+        }
+        shards.add(keyRange(prefix, startAfter, null));
+        return streamShards(shards.iterator(), parallelism, ordered);
     }
 
     /**
@@ -244,6 +420,21 @@ public class S3Driver {
         return getFile(filename, StandardCharsets.UTF_8);
     }
 
+    @JacocoGenerated
+    private static Region defaultRegion() {
+        return ENVIRONMENT.readEnvOpt(AWS_REGION_ENV_VARIABLE)
+                   .map(Region::of)
+                   .orElse(Region.EU_WEST_1);
+    }
+
+    @JacocoGenerated
+    private S3Presigner getPresigner() {
+        if (isNull(presigner)) {
+            presigner = defaultS3Presigner();
+        }
+        return presigner;
+    }
+
     @JacocoGenerated
     private static SdkHttpClient httpClientForConcurrentQueries() {
         return ApacheHttpClient.builder()
@@ -338,6 +529,104 @@ public class S3Driver {
                    .collect(Collectors.toList());
     }
 
+    @SuppressWarnings("PMD.CloseResource") // The iterator is closed when the stream is closed
+    private static Stream<UnixPath> streamShards(Iterator<Supplier<Stream<UnixPath>>> shards, int parallelism,
+                                                 boolean ordered) {
+        var files = new ShardedListingIterator(shards, BACKGROUND_EXECUTOR, parallelism, ordered,
+                                                 MAX_RESPONSE_SIZE_FOR_S3_LISTING);
+        return toStream(files).onClose(files::close);
+    }
+
+    private static <T> Stream<T> toStream(Iterator<T> files) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(files, Spliterator.ORDERED
+                                                                              | Spliterator.NONNULL), false);
+    }
+
+    private static String folderPrefix(UnixPath folder) {
+        return isNull(folder) || folder.isEmptyPath() || folder.isRoot()
+                   ? ""
+                   : folder.removeRoot() + UNIX_SEPARATOR;
+    }
+
+    /*
+     * Lists one level of the folder with a delimiter, one page at a time as the shards are needed. Each subfolder
+     * becomes a shard, and each run of consecutive files directly in the folder becomes a shard of at most one page,
+     * so that the shards are in key order and the listing of the level is never held in memory as a whole.
+     */
+    private Stream<Supplier<Stream<UnixPath>>> discoverShards(String prefix) {
+        return Stream.iterate(listLevel(prefix, null), page -> nonNull(page),
+                              page -> page.isTruncated() ? listLevel(prefix, page.nextContinuationToken()) : null)
+                   .flatMap(page -> shardsOfPage(page).stream());
+    }
+
+    private ListObjectsV2Response listLevel(String prefix, String continuationToken) {
+        return client.listObjectsV2(requestForListingKeys(prefix, null, continuationToken)
+                                        .toBuilder().delimiter(UNIX_SEPARATOR).build());
+    }
+
+    private List<Supplier<Stream<UnixPath>>> shardsOfPage(ListObjectsV2Response page) {
+        var subfolders = new HashSet<String>();
+        var keys = new TreeSet<String>();
+        page.commonPrefixes().forEach(subfolder -> subfolders.add(subfolder.prefix()));
+        page.contents().forEach(file -> keys.add(file.key()));
+
+        keys.addAll(subfolders);
+        var shards = new ArrayList<Supplier<Stream<UnixPath>>>();
+        var filesInFolder = new ArrayList<UnixPath>();
+        for (var key : keys) {
+            if (subfolders.contains(key)) {
+                addFilesShard(shards, filesInFolder);
+                shards.add(keyRange(key, null, null));
+            } else {
+                filesInFolder.add(UnixPath.of(key));
+            }
+        }
+        addFilesShard(shards, filesInFolder);
+        return shards;
+    }
+
+    private static void addFilesShard(List<Supplier<Stream<UnixPath>>> shards, List<UnixPath> filesInFolder) {
+        if (!filesInFolder.isEmpty()) {
+            var files = List.copyOf(filesInFolder);
+            shards.add(files::stream);
+            filesInFolder.clear();
+        }
+    }
+
+    @SuppressWarnings("PMD.CloseResource") // The iterator is closed when the stream is closed
+    private Supplier<Stream<UnixPath>> keyRange(String prefix, String startAfter, String lastKey) {
+        return () -> {
+            var files = new S3ListingIterator(
+                continuationToken -> listKeys(prefix, startAfter, lastKey, continuationToken), BACKGROUND_EXECUTOR);
+            return toStream(files).onClose(files::close);
+        };
+    }
+
+    /*
+     * The raw keys are compared with the last key of the range, since UnixPath normalizes keys with repeated or
+     * trailing separators, and the listing ends at the first key after the range.
+     */
+    private ListingResult listKeys(String prefix, String startAfter, String lastKey, String continuationToken) {
+        var response = client.listObjectsV2(requestForListingKeys(prefix, startAfter, continuationToken));
+        var keys = response.contents().stream().map(S3Object::key).collect(Collectors.toList());
+        var keysInRange = keys.stream()
+                              .takeWhile(key -> isNull(lastKey) || key.compareTo(lastKey) <= 0)
+                              .collect(Collectors.toList());
+        var files = keysInRange.stream().map(UnixPath::of).collect(Collectors.toList());
+        return new ListingResult(files, response.nextContinuationToken(),
+                                 response.isTruncated() && keysInRange.size() == keys.size());
+    }
+
+    private ListObjectsV2Request requestForListingKeys(String prefix, String startAfter, String continuationToken) {
+        return ListObjectsV2Request.builder()
+                   .bucket(bucketName)
+                   .prefix(prefix)
+                   .startAfter(startAfter)
+                   .continuationToken(continuationToken)
+                   .maxKeys(MAX_RESPONSE_SIZE_FOR_S3_LISTING)
+                   .build();
+    }
+
     private ListObjectsV2Request requestForListingFiles(UnixPath folder, String startingPoint, int responseSize) {
         return ListObjectsV2Request.builder()
                    .bucket(bucketName)
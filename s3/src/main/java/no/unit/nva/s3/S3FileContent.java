@@ -0,0 +1,27 @@
+package no.unit.nva.s3;
+
+import nva.commons.core.attempt.Try;
+import nva.commons.core.paths.UnixPath;
+
+/**
+ * The content of a file that was read in bulk, or the failure of reading it, so that one failing file does not stop
+ * the reading of the rest.
+ */
+public final class S3FileContent {
+
+    private final UnixPath path;
+    private final Try<String> content;
+
+    public S3FileContent(UnixPath path, Try<String> content) {
+        this.path = path;
+        this.content = content;
+    }
+
+    public UnixPath getPath() {
+        return path;
+    }
+
+    public Try<String> getContent() {
+        return content;
+    }
+}
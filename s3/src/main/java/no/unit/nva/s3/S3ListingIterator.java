@@ -0,0 +1,83 @@
+package no.unit.nva.s3;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import nva.commons.core.paths.UnixPath;
+
+/**
+ * Iterates lazily over the files of an S3 listing, one page at a time. When a page arrives, the next page is requested
+ * in the background, so that it is usually available by the time the current page has been consumed. At most two pages
+ * are held in memory, regardless of the number of files in the listing.
+ */
+public final class S3ListingIterator implements Iterator<UnixPath>, AutoCloseable {
+
+    private final Function<String, ListingResult> pageFetcher;
+    private final Executor executor;
+    private Iterator<UnixPath> currentPage;
+    private CompletableFuture<ListingResult> nextPage;
+    private boolean lastPageReceived;
+
+    /**
+     * Starts the listing by requesting its first page in the background.
+     *
+     * @param pageFetcher fetches the page that starts at a listing starting point, or the first page for null.
+     * @param executor    the executor that fetches the pages.
+     */
+    public S3ListingIterator(Function<String, ListingResult> pageFetcher, Executor executor) {
+        this.pageFetcher = pageFetcher;
+        this.executor = executor;
+        this.currentPage = Collections.emptyIterator();
+        this.nextPage = fetchPage(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext() && !lastPageReceived) {
+            var page = awaitNextPage();
+            lastPageReceived = !page.isTruncated();
+            if (!lastPageReceived) {
+                nextPage = fetchPage(page.getListingStartingPoint());
+            }
+            currentPage = page.getFiles().iterator();
+        }
+        return currentPage.hasNext();
+    }
+
+    @Override
+    public UnixPath next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * Cancels the request for the next page, when the caller stops before the end of the listing.
+     */
+    @Override
+    public void close() {
+        if (!lastPageReceived) {
+            nextPage.cancel(false);
+        }
+    }
+
+    private CompletableFuture<ListingResult> fetchPage(String listingStartingPoint) {
+        return CompletableFuture.supplyAsync(() -> pageFetcher.apply(listingStartingPoint), executor);
+    }
+
+    private ListingResult awaitNextPage() {
+        try {
+            return nextPage.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
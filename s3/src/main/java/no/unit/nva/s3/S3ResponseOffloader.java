@@ -0,0 +1,62 @@
+package no.unit.nva.s3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+import nva.commons.core.JacocoGenerated;
+import nva.commons.core.paths.UnixPath;
+
+/**
+ * Stores response bodies that are too large to be returned through API Gateway in an S3 bucket, and creates
+ * pre-signed URLs that clients can download them from. Lambda functions cannot return synchronous responses larger
+ * than 6 MB, and serializing and transferring responses near that size dominates the latency of the function. An
+ * {@code ApiGatewayHandler} offloads its large responses with
+ * {@code setResponseOffloader(new S3ResponseOffloader(bucketName)::offload)}.
+ *
+ * <p>Bodies are stored gzip-compressed, with the Content-Type of the response and "Content-Encoding: gzip", so that
+ * HTTP clients decompress them transparently. The bucket should expire the objects with a lifecycle rule.
+ */
+public class S3ResponseOffloader {
+
+    public static final String OFFLOADED_RESPONSES_FOLDER = "responses";
+    public static final Duration DEFAULT_URL_VALIDITY = Duration.ofMinutes(15);
+    public static final String GZIP_CONTENT_ENCODING = "gzip";
+    private final S3Driver s3Driver;
+    private final Duration urlValidity;
+
+    @JacocoGenerated
+    public S3ResponseOffloader(String bucketName) {
+        this(new S3Driver(S3Driver.defaultS3Client().build(), S3Driver.defaultS3Presigner(), bucketName),
+             DEFAULT_URL_VALIDITY);
+    }
+
+    public S3ResponseOffloader(S3Driver s3Driver, Duration urlValidity) {
+        this.s3Driver = s3Driver;
+        this.urlValidity = urlValidity;
+    }
+
+    /**
+     * Compresses and stores a response body.
+     *
+     * @param serializedBody the UTF-8 encoded body of the response.
+     * @param contentType    the Content-Type of the response.
+     * @return a pre-signed URL for downloading the body.
+     * @throws IOException when compressing the body fails.
+     */
+    public URI offload(byte[] serializedBody, String contentType) throws IOException {
+        var file = UnixPath.of(OFFLOADED_RESPONSES_FOLDER, UUID.randomUUID() + S3Driver.GZIP_ENDING);
+        s3Driver.insertFile(file, compress(serializedBody), contentType, GZIP_CONTENT_ENCODING);
+        return s3Driver.createPresignedGetUrl(file, urlValidity);
+    }
+
+    private static byte[] compress(byte[] serializedBody) throws IOException {
+        var compressedBody = new ByteArrayOutputStream();
+        try (var compressingStream = new GZIPOutputStream(compressedBody)) {
+            compressingStream.write(serializedBody);
+        }
+        return compressedBody.toByteArray();
+    }
+}
@@ -0,0 +1,158 @@
+package no.unit.nva.s3;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import nva.commons.core.paths.UnixPath;
+
+/**
+ * Lists several shards of a listing concurrently and merges them into one iterator. At most {@code parallelism} shards
+ * are listed at the same time, and each shard is buffered in a bounded queue, so that memory use does not depend on
+ * the size of the listing. The shards are taken from their iterator only when a shard can be started, so that shards
+ * that are discovered while listing can be listed before the discovery ends. The shards are listed on a shared
+ * executor, and closing the iterator interrupts the shards that are still listing, so that their threads are released.
+ *
+ * <p>In ordered mode, the shards are returned one after the other, in the order they are given, while the following
+ * shards are listed in the background. In unordered mode, the files are returned as soon as any shard has listed them.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class ShardedListingIterator implements Iterator<UnixPath>, AutoCloseable {
+
+    private static final Object END_OF_SHARD = new Object();
+    private final Iterator<Supplier<Stream<UnixPath>>> shards;
+    private final int parallelism;
+    private final boolean ordered;
+    private final int queueCapacity;
+    private final Queue<BlockingQueue<Object>> queues;
+    private final Executor executor;
+    private final Queue<UnixPath> buffer;
+    private final Queue<FutureTask<Void>> listings;
+    private int listingShards;
+
+    /**
+     * Creates an iterator that starts listing the first shards.
+     *
+     * @param shards        the shards, each of which lists its files when it is called.
+     * @param executor      the executor that lists the shards.
+     * @param parallelism   the maximum number of shards that are listed at the same time.
+     * @param ordered       whether the shards are returned in the order they are given.
+     * @param queueCapacity the maximum number of files that are buffered per shard.
+     */
+    /* default */ ShardedListingIterator(Iterator<Supplier<Stream<UnixPath>>> shards, Executor executor,
+                                         int parallelism, boolean ordered, int queueCapacity) {
+        this.shards = shards;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.ordered = ordered;
+        this.queueCapacity = queueCapacity;
+        this.queues = new ArrayDeque<>();
+        this.buffer = new ArrayDeque<>();
+        this.listings = new ArrayDeque<>();
+        if (!ordered) {
+            addQueue();
+        }
+        startShards();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (buffer.isEmpty() && listingShards > 0) {
+            var element = take(queues.element());
+            if (element == END_OF_SHARD) {
+                completeShard();
+            } else if (element instanceof Throwable) {
+                close();
+                throw rethrow((Throwable) element);
+            } else {
+                buffer.add((UnixPath) element);
+            }
+        }
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public UnixPath next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.remove();
+    }
+
+    /**
+     * Stops listing the shards, when the caller stops before the end of the listing.
+     */
+    @Override
+    public void close() {
+        listings.forEach(listing -> listing.cancel(true));
+    }
+
+    private void startShards() {
+        listings.removeIf(FutureTask::isDone);
+        while (listingShards < parallelism && shards.hasNext()) {
+            var queue = ordered ? addQueue() : queues.element();
+            var files = shards.next();
+            var listing = new FutureTask<Void>(() -> listShard(files, queue), null);
+            listings.add(listing);
+            executor.execute(listing);
+            listingShards++;
+        }
+    }
+
+    private BlockingQueue<Object> addQueue() {
+        var queue = new ArrayBlockingQueue<>(queueCapacity);
+        queues.add(queue);
+        return queue;
+    }
+
+    private void completeShard() {
+        listingShards--;
+        if (ordered) {
+            queues.remove();
+        }
+        startShards();
+    }
+
+    /*
+     * Errors are passed to the consumer like exceptions, since the consumer would otherwise wait for the end of the
+     * shard forever.
+     */
+    private static void listShard(Supplier<Stream<UnixPath>> shard, BlockingQueue<Object> queue) {
+        try {
+            try (var files = shard.get()) {
+                var iterator = files.iterator();
+                while (iterator.hasNext()) {
+                    queue.put(iterator.next());
+                }
+            } catch (RuntimeException | Error e) {
+                queue.put(e);
+                return;
+            }
+            queue.put(END_OF_SHARD);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable failure) {
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return (RuntimeException) failure;
+    }
+
+    private static Object take(BlockingQueue<Object> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
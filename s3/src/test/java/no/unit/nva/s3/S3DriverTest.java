@@ -5,20 +5,25 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.StringStartsWith.startsWith;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 import net.datafaker.providers.base.BaseFaker;
@@ -31,9 +36,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 class S3DriverTest {
 
@@ -63,6 +72,84 @@ class S3DriverTest {
         assertThat(files, containsInAnyOrder(firstPath, secondPath));
     }
 
+    @Test
+    void shouldStreamAllFilenamesInS3FolderAcrossListingPages() throws IOException {
+        var numberOfFiles = 2 * S3Driver.MAX_RESPONSE_SIZE_FOR_S3_LISTING + 1;
+        for (int i = 0; i < numberOfFiles; i++) {
+            s3Driver.insertFile(UnixPath.of(SOME_PATH, randomFileName()), EMPTY_STRING);
+        }
+
+        try (var files = s3Driver.streamAllFiles(UnixPath.of(SOME_PATH))) {
+            assertThat(files.distinct().count(), is(equalTo((long) numberOfFiles)));
+        }
+    }
+
+    @Test
+    void shouldListSubfoldersAndFilesOfFolderInParallelInKeyOrder() throws IOException {
+        var keys = List.of("a.json", "b/1.json", "b/2.json", "b.json", "c/d/3.json", "e.json", "f/4.json");
+        for (var key : keys) {
+            s3Driver.insertFile(UnixPath.of(SOME_PATH, key), randomString());
+        }
+        s3Driver.insertFile(UnixPath.of(SOME_PATH + "-other", "g.json"), randomString());
+
+        try (var files = s3Driver.streamAllFilesInParallel(UnixPath.of(SOME_PATH), 2, true)) {
+            var expected = keys.stream().map(key -> UnixPath.of(SOME_PATH, key)).sorted(
+                Comparator.comparing(UnixPath::toString)).collect(Collectors.toList());
+            assertThat(files.collect(Collectors.toList()), is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    void shouldListKeyRangesBetweenSplitPointsInParallel() throws IOException {
+        var expected = new ArrayList<UnixPath>();
+        for (var identifier : List.of("0a", "3f", "4", "4a", "7f", "80", "c0", "ff")) {
+            var file = UnixPath.of(SOME_PATH, identifier);
+            s3Driver.insertFile(file, randomString());
+            expected.add(file);
+        }
+        var splitPoints = List.of("4", "8", "c");
+
+        try (var ordered = s3Driver.streamAllFilesInParallel(UnixPath.of(SOME_PATH), splitPoints, 3, true);
+            var unordered = s3Driver.streamAllFilesInParallel(UnixPath.of(SOME_PATH), splitPoints, 3, false)) {
+            assertThat(ordered.collect(Collectors.toList()), is(equalTo(expected)));
+            assertThat(unordered.collect(Collectors.toList()), containsInAnyOrder(expected.toArray()));
+        }
+    }
+
+    @Test
+    void shouldListKeysThatUnixPathNormalizesOnceWhenTheyAreOnShardBoundaries() {
+        var keys = List.of(SOME_PATH + "//5", SOME_PATH + "/0a", SOME_PATH + "/4", SOME_PATH + "/4/",
+                           SOME_PATH + "/4a", SOME_PATH + "/9");
+        for (var key : keys) {
+            s3Client.putObject(PutObjectRequest.builder().bucket(SAMPLE_BUCKET).key(key).build(),
+                               RequestBody.fromString(randomString()));
+        }
+        var expected = keys.stream().map(UnixPath::of).collect(Collectors.toList());
+
+        try (var ordered = s3Driver.streamAllFilesInParallel(UnixPath.of(SOME_PATH), List.of("4"), 2, true)) {
+            assertThat(ordered.collect(Collectors.toList()), is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    void shouldListFlatFolderWithSubfolderInParallelAcrossListingPages() throws IOException {
+        var pageSize = S3Driver.MAX_RESPONSE_SIZE_FOR_S3_LISTING;
+        var keys = new ArrayList<String>();
+        IntStream.range(0, pageSize - 1).forEach(index -> keys.add(String.format("a%05d.json", index)));
+        keys.addAll(List.of("b/1.json", "b/2.json"));
+        IntStream.range(0, pageSize + 1).forEach(index -> keys.add(String.format("c%05d.json", index)));
+        for (var key : keys) {
+            s3Driver.insertFile(UnixPath.of(SOME_PATH, key), EMPTY_STRING);
+        }
+        var expected = keys.stream().map(key -> UnixPath.of(SOME_PATH, key)).collect(Collectors.toList());
+
+        try (var ordered = s3Driver.streamAllFilesInParallel(UnixPath.of(SOME_PATH), 4, true);
+            var unordered = s3Driver.streamAllFilesInParallel(UnixPath.of(SOME_PATH), 4, false)) {
+            assertThat(ordered.collect(Collectors.toList()), is(equalTo(expected)));
+            assertThat(unordered.collect(Collectors.toList()), containsInAnyOrder(expected.toArray()));
+        }
+    }
+
     @Test
     void shouldReturnResultContainingPartialFileListAndNewListStartingPointAndSignForTerminatingListing()
         throws IOException {
@@ -99,6 +186,40 @@ class S3DriverTest {
         assertThat(actualContent, containsInAnyOrder(firstFileContent, secondFileContent));
     }
 
+    @Test
+    void shouldReadFilesOfFolderConcurrentlyInListingOrderOrAsTheyAreRead() throws IOException {
+        var expectedContents = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            var content = randomString();
+            s3Driver.insertFile(UnixPath.of(SOME_PATH, String.format("%03d.json", i)), content);
+            expectedContents.add(content);
+        }
+
+        try (var ordered = s3Driver.readFiles(UnixPath.of(SOME_PATH), 4, true);
+            var unordered = s3Driver.readFiles(UnixPath.of(SOME_PATH), 4, false)) {
+            assertThat(ordered.map(file -> file.getContent().orElseThrow()).collect(Collectors.toList()),
+                       is(equalTo(expectedContents)));
+            assertThat(unordered.map(file -> file.getContent().orElseThrow()).collect(Collectors.toList()),
+                       containsInAnyOrder(expectedContents.toArray()));
+        }
+    }
+
+    @Test
+    void shouldCaptureFailureOfFileThatCannotBeReadAndReadTheOtherFiles() throws IOException {
+        var readableFile = UnixPath.of(SOME_PATH, "a.json");
+        var brokenFile = UnixPath.of(SOME_PATH, "b.gz");
+        s3Driver.insertFile(readableFile, randomString());
+        s3Driver.insertFile(brokenFile, randomString().getBytes(StandardCharsets.UTF_8), "application/gzip", "gzip");
+
+        try (var files = s3Driver.readFiles(UnixPath.of(SOME_PATH), 2, false)) {
+            var failures = files.collect(Collectors.toMap(S3FileContent::getPath,
+                                                          file -> file.getContent().isFailure()));
+            assertThat(failures.get(readableFile), is(false));
+            assertThat(failures.get(brokenFile), is(true));
+        }
+        assertThrows(RuntimeException.class, () -> s3Driver.getFiles(UnixPath.of(SOME_PATH)));
+    }
+
     @Test
     void shouldReturnTheContentsOfAllFilesInFolderWhenInputIsAFolderAsAnS3Uri() throws IOException {
 
@@ -157,6 +278,43 @@ class S3DriverTest {
         assertThat(actualContent, is(equalTo(expectedContent)));
     }
 
+    @Test
+    void shouldStreamDataToS3WhenInputIsInputStreamOfKnownLength() throws IOException {
+        var expectedContent = longText().getBytes(StandardCharsets.UTF_8);
+        var somePath = UnixPath.of(randomString());
+        s3Driver.insertFile(somePath, new ByteArrayInputStream(expectedContent), expectedContent.length);
+
+        assertThat(s3Driver.getFile(somePath), is(equalTo(new String(expectedContent, StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void shouldStoreBinaryContentUnchanged() throws IOException {
+        String expectedContent = longText();
+        UnixPath filePath = UnixPath.of(randomString());
+        URI fileLocation = s3Driver.insertFile(filePath, expectedContent.getBytes(StandardCharsets.UTF_8),
+                                               "text/plain", "identity");
+
+        assertThat(fileLocation, is(equalTo(new UriWrapper(S3_SCHEME, SAMPLE_BUCKET).addChild(filePath).getUri())));
+        assertThat(s3Driver.getFile(filePath), is(equalTo(expectedContent)));
+    }
+
+    @Test
+    void shouldCreatePresignedUrlForReadingFile() {
+        var presigner = S3Presigner.builder()
+                            .region(Region.EU_WEST_1)
+                            .credentialsProvider(StaticCredentialsProvider.create(
+                                AwsBasicCredentials.create(randomString(), randomString())))
+                            .build();
+        var driver = new S3Driver(s3Client, presigner, SAMPLE_BUCKET);
+        UnixPath filePath = constructNestedPath();
+
+        URI url = driver.createPresignedGetUrl(filePath, Duration.ofMinutes(1));
+
+        assertThat(url.getScheme(), is(equalTo("https")));
+        assertThat(url.toString(), containsString(filePath.toString()));
+        assertThat(url.getQuery(), containsString("X-Amz-Signature"));
+    }
+
     @Test
     void shouldCompressAndStoreFileWhenInputFilenameEndsWithGzAndContentIsString() throws IOException {
         String expectedContent = longText();
@@ -0,0 +1,69 @@
+package no.unit.nva.s3;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import nva.commons.core.paths.UnixPath;
+import org.junit.jupiter.api.Test;
+
+class S3ListingIteratorTest {
+
+    private static final Executor SAME_THREAD = Runnable::run;
+    private static final String SECOND_PAGE = "second";
+    private static final Map<String, ListingResult> PAGES = Map.of(
+        "", new ListingResult(List.of(UnixPath.of("a"), UnixPath.of("b")), SECOND_PAGE, true),
+        SECOND_PAGE, new ListingResult(List.of(UnixPath.of("c")), null, false));
+
+    @Test
+    void shouldIterateOverAllPagesInOrder() {
+        var files = new ArrayList<UnixPath>();
+        new S3ListingIterator(S3ListingIteratorTest::page, SAME_THREAD).forEachRemaining(files::add);
+
+        assertThat(files, contains(UnixPath.of("a"), UnixPath.of("b"), UnixPath.of("c")));
+    }
+
+    @Test
+    void shouldFetchNextPageWhenCurrentPageArrives() {
+        var fetchedPages = new AtomicInteger();
+        var iterator = new S3ListingIterator(startingPoint -> {
+            fetchedPages.incrementAndGet();
+            return page(startingPoint);
+        }, SAME_THREAD);
+
+        assertThat(fetchedPages.get(), is(equalTo(1)));
+        iterator.next();
+        assertThat(fetchedPages.get(), is(equalTo(2)));
+        iterator.next();
+        iterator.next();
+        assertThat(fetchedPages.get(), is(equalTo(2)));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    void shouldRethrowFailureOfFetchingPage() {
+        var iterator = new S3ListingIterator(startingPoint -> {
+            throw new IllegalStateException();
+        }, SAME_THREAD);
+
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+    }
+
+    @Test
+    void shouldThrowNoSuchElementExceptionAfterLastFile() {
+        var iterator = new S3ListingIterator(startingPoint -> new ListingResult(List.of(), null, false), SAME_THREAD);
+
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    private static ListingResult page(String startingPoint) {
+        return PAGES.get(startingPoint == null ? "" : startingPoint);
+    }
+}
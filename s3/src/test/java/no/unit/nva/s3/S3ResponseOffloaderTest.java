@@ -0,0 +1,46 @@
+package no.unit.nva.s3;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import no.unit.nva.stubs.FakeS3Client;
+import nva.commons.core.paths.UnixPath;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+class S3ResponseOffloaderTest {
+
+    private static final String SAMPLE_BUCKET = "sampleBucket";
+    private static final String JSON = "application/json; charset=utf-8";
+
+    @Test
+    void shouldStoreCompressedBodyAndReturnPresignedUrlForDownloadingIt() throws IOException {
+        var s3Driver = new S3Driver(new FakeS3Client(), fakeS3Presigner(), SAMPLE_BUCKET);
+        var body = "{\"value\":\"" + UUID.randomUUID() + "\"}";
+        var offloader = new S3ResponseOffloader(s3Driver, Duration.ofMinutes(1));
+
+        var url = offloader.offload(body.getBytes(StandardCharsets.UTF_8), JSON);
+
+        var offloadedFile = s3Driver.listAllFiles(UnixPath.of(S3ResponseOffloader.OFFLOADED_RESPONSES_FOLDER)).get(0);
+        assertThat(offloadedFile.getLastPathElement(), containsString(S3Driver.GZIP_ENDING));
+        assertThat(s3Driver.getFile(offloadedFile), is(equalTo(body)));
+        assertThat(url.toString(), containsString(offloadedFile.toString()));
+        assertThat(url.getQuery(), containsString("X-Amz-Signature"));
+    }
+
+    private static S3Presigner fakeS3Presigner() {
+        return S3Presigner.builder()
+                   .region(Region.EU_WEST_1)
+                   .credentialsProvider(StaticCredentialsProvider.create(
+                       AwsBasicCredentials.create(UUID.randomUUID().toString(), UUID.randomUUID().toString())))
+                   .build();
+    }
+}
@@ -0,0 +1,104 @@
+package no.unit.nva.s3;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import nva.commons.core.paths.UnixPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedListingIteratorTest {
+
+    private static final int QUEUE_CAPACITY = 10;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void init() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldTakeShardsFromTheirIteratorOnlyWhenTheyCanBeListed() {
+        var takenShards = new AtomicInteger();
+        List<Supplier<Stream<UnixPath>>> listOfShards = List.of(() -> Stream.of(UnixPath.of("a")),
+                                                                () -> Stream.of(UnixPath.of("b")),
+                                                                () -> Stream.of(UnixPath.of("c")));
+        var shardIterator = listOfShards.iterator();
+        var shards = new Iterator<Supplier<Stream<UnixPath>>>() {
+            @Override
+            public boolean hasNext() {
+                return shardIterator.hasNext();
+            }
+
+            @Override
+            public Supplier<Stream<UnixPath>> next() {
+                takenShards.incrementAndGet();
+                return shardIterator.next();
+            }
+        };
+
+        try (var files = new ShardedListingIterator(shards, executor, 1, true, QUEUE_CAPACITY)) {
+            assertThat(takenShards.get(), is(equalTo(1)));
+            var listed = new ArrayList<UnixPath>();
+            files.forEachRemaining(listed::add);
+
+            assertThat(listed, contains(UnixPath.of("a"), UnixPath.of("b"), UnixPath.of("c")));
+            assertThat(takenShards.get(), is(equalTo(3)));
+        }
+    }
+
+    @Test
+    void shouldRethrowErrorOfListingShardInsteadOfWaitingForTheShard() {
+        List<Supplier<Stream<UnixPath>>> shards = List.of(() -> {
+            throw new AssertionError("listing failed");
+        });
+
+        try (var files = new ShardedListingIterator(shards.iterator(), executor, 2, false, QUEUE_CAPACITY)) {
+            assertThrows(AssertionError.class, files::hasNext);
+        }
+    }
+
+    @Test
+    void shouldRethrowExceptionOfListingShard() {
+        List<Supplier<Stream<UnixPath>>> shards = List.of(() -> Stream.of(UnixPath.of("a")), () -> {
+            throw new IllegalStateException("listing failed");
+        });
+
+        try (var files = new ShardedListingIterator(shards.iterator(), executor, 2, true, QUEUE_CAPACITY)) {
+            assertThat(files.next(), is(equalTo(UnixPath.of("a"))));
+            assertThrows(IllegalStateException.class, files::hasNext);
+        }
+    }
+
+    @Test
+    void shouldStopListingShardsThatAreWaitingForTheConsumerWhenClosed() throws InterruptedException {
+        var shardClosed = new CountDownLatch(1);
+        List<Supplier<Stream<UnixPath>>> shards = List.of(
+            () -> Stream.iterate(0, index -> index + 1).map(index -> UnixPath.of("a" + index))
+                      .onClose(shardClosed::countDown));
+
+        try (var files = new ShardedListingIterator(shards.iterator(), executor, 1, true, 1)) {
+            assertThat(files.next(), is(equalTo(UnixPath.of("a0"))));
+        }
+
+        assertThat(shardClosed.await(10, TimeUnit.SECONDS), is(true));
+    }
+}